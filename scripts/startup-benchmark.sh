@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+# Measures time-to-first-request: from launching the JVM (or native executable) until the first request to
+# the application is answered, for each way of running it that has been built.
+#
+#   ./mvnw -DskipTests package                         # plain jar
+#   ./mvnw -DskipTests -Pstartup package               # AOT + CDS, in target/application
+#   ./mvnw -DskipTests -Pnative native:compile         # optional, needs GraalVM
+#   scripts/startup-benchmark.sh [runs]
+#
+# Run from the project root, with the services of .env (MySQL, Redis, RabbitMQ) reachable, on an otherwise idle
+# machine. The first request is a login with an unknown account, which goes through the security filters,
+# the controller and a database query; any answer below 500 counts. Each variant is started [runs] times
+# (default 10) after one discarded warm-up run, and the minimum, median and maximum are reported in ms.
+set -euo pipefail
+
+RUNS=${1:-10}
+PORT=${SERVER_PORT:-8080}
+URL="http://localhost:${PORT}/api/auth/login"
+BODY='{"email":"startup-benchmark@example.com","password":"not-a-password"}'
+JAR=$(ls target/*.jar 2>/dev/null | grep -v original | head -n 1 || true)
+APP_JAR=$(ls target/application/*.jar 2>/dev/null | head -n 1 || true)
+NATIVE=target/AddressBook
+PID=
+
+cleanup() {
+    if [ -n "$PID" ]; then kill "$PID" 2>/dev/null || true; wait "$PID" 2>/dev/null || true; fi
+}
+trap cleanup EXIT
+
+now_ms() {
+    date +%s%3N
+}
+
+# Starts the command, polls until the first request is answered, prints the elapsed ms and stops the application
+time_to_first_request() {
+    local start status
+    start=$(now_ms)
+    "$@" > target/startup-benchmark.log 2>&1 &
+    PID=$!
+    while true; do
+        status=$(curl -s -o /dev/null -w '%{http_code}' -H 'Content-Type: application/json' -d "$BODY" "$URL" || true)
+        if [ "$status" != "000" ] && [ "$status" -lt 500 ]; then
+            break
+        fi
+        if ! kill -0 "$PID" 2>/dev/null; then
+            echo "application exited before answering, see target/startup-benchmark.log" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    echo $(( $(now_ms) - start ))
+    cleanup
+    PID=
+}
+
+benchmark() {
+    local name=$1
+    shift
+    local samples=()
+    time_to_first_request "$@" > /dev/null
+    for ((i = 0; i < RUNS; i++)); do
+        samples+=("$(time_to_first_request "$@")")
+    done
+    printf '%s\n' "${samples[@]}" | sort -n | awk -v name="$name" -v runs="$RUNS" \
+        '{ v[NR] = $1 } END { printf "variant=%-22s runs=%d minMs=%d medianMs=%d maxMs=%d\n", name, runs, v[1], v[int((NR + 1) / 2)], v[NR] }'
+}
+
+if [ -n "$JAR" ]; then
+    benchmark "jar" java -jar "$JAR"
+    benchmark "jar+fast-start" java -Dspring.profiles.active=fast-start -jar "$JAR"
+fi
+if [ -n "$APP_JAR" ] && [ -f target/application/application.jsa ]; then
+    benchmark "aot+cds+fast-start" java -XX:SharedArchiveFile=target/application/application.jsa -Dspring.aot.enabled=true \
+        -Dspring.profiles.active=fast-start -jar "$APP_JAR"
+fi
+if [ -x "$NATIVE" ]; then
+    benchmark "native+fast-start" "$NATIVE" -Dspring.profiles.active=fast-start
+fi
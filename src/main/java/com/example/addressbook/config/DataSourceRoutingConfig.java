@@ -0,0 +1,92 @@
+package com.example.addressbook.config;
+
+import com.example.addressbook.util.ReadYourWritesTracker;
+import com.example.addressbook.util.ReplicaLagMonitor;
+import com.example.addressbook.util.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration class for read-replica routing.
+ * When addressbook.datasource.routing.enabled=true, the application DataSource becomes a
+ * ReplicaRoutingDataSource over separate Hikari pools for the primary and each replica.
+ * Each pool publishes its own Hikari metrics, tagged with its pool name.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaRoutingProperties.class)
+@ConditionalOnProperty(prefix = "addressbook.datasource.routing", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(ReplicaRoutingProperties properties) {
+        return new ReadYourWritesTracker(properties.getReadYourWritesWindow());
+    }
+
+    /**
+     * Creates the routing DataSource with one pool for the primary and one per replica.
+     *
+     * @return a ReplicaRoutingDataSource
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties dataSourceProperties, ReplicaRoutingProperties properties,
+                                                             ReadYourWritesTracker readYourWritesTracker, MeterRegistry meterRegistry) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        // Without cursor fetch the MySQL driver reads whole results into memory and ignores the fetch size of scans
+        primary.addDataSourceProperty("useCursorFetch", "true");
+        primary.setMetricRegistry(meterRegistry);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReplicaRoutingProperties.Replica> replicaProperties = properties.getReplicas();
+        for (int i = 0; i < replicaProperties.size(); i++) {
+            ReplicaRoutingProperties.Replica replica = replicaProperties.get(i);
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build();
+            pool.setPoolName("replica-" + i);
+            pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+            pool.setReadOnly(true);
+            pool.addDataSourceProperty("useCursorFetch", "true");
+            pool.setMetricRegistry(meterRegistry);
+            replicas.put(pool.getPoolName(), pool);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, readYourWritesTracker, meterRegistry);
+    }
+
+    /**
+     * Exposes the routing DataSource to JPA. The lazy proxy delays fetching a physical
+     * connection until the first statement, when the transaction's read-only flag is set.
+     * With sharding enabled the routing DataSource becomes the home shard instead.
+     *
+     * @return the application DataSource
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "addressbook.sharding", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaRoutingDataSource replicaRoutingDataSource, ReplicaRoutingProperties properties,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(replicaRoutingDataSource, properties.getMaxLag(), properties.getLagQuery(), meterRegistry);
+    }
+}
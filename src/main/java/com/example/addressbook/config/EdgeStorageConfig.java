@@ -0,0 +1,106 @@
+package com.example.addressbook.config;
+
+import com.example.addressbook.repository.*;
+import com.example.addressbook.util.LogStoreTransactionManager;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Configuration class for edge deployments without MySQL, active with the "edge" profile.
+ * The repositories are backed by embedded log-structured stores under addressbook.edge.store.directory,
+ * while application-edge.properties turns off the DataSource and JPA auto-configuration.
+ * Only a single node is supported, and sharding and read replicas must stay disabled.
+ */
+@Configuration
+@Profile("edge")
+@EnableConfigurationProperties(EdgeStorageProperties.class)
+public class EdgeStorageConfig {
+
+    @Autowired
+    EdgeStorageProperties properties;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    /**
+     * Creates the contact repository, indexed by owner, in the contacts store.
+     *
+     * @return a LogStructuredAddressBookRepository
+     */
+    @Bean
+    public LogStructuredAddressBookRepository addressBookRepository() throws IOException {
+        return register("contacts", new LogStructuredAddressBookRepository(directory("contacts"),
+                segmentSize(), properties.isSyncWrites(), properties.getCompactionGarbageRatio()));
+    }
+
+    /**
+     * Creates the account repository, indexed by email, in the accounts store.
+     *
+     * @return a LogStructuredUserAuthenticationRepository
+     */
+    @Bean
+    public LogStructuredUserAuthenticationRepository userAuthenticationRepository() throws IOException {
+        return register("accounts", new LogStructuredUserAuthenticationRepository(directory("accounts"),
+                segmentSize(), properties.isSyncWrites(), properties.getCompactionGarbageRatio()));
+    }
+
+    /**
+     * Creates the tombstone repository, indexed by owner, in the tombstones store.
+     *
+     * @return a LogStructuredContactTombstoneRepository
+     */
+    @Bean
+    public LogStructuredContactTombstoneRepository contactTombstoneRepository() throws IOException {
+        return register("tombstones", new LogStructuredContactTombstoneRepository(directory("tombstones"),
+                segmentSize(), properties.isSyncWrites(), properties.getCompactionGarbageRatio()));
+    }
+
+    /**
+     * Creates the transaction manager for @Transactional service methods, which have no database to run on.
+     *
+     * @return a LogStoreTransactionManager
+     */
+    @Bean
+    public PlatformTransactionManager transactionManager() {
+        return new LogStoreTransactionManager();
+    }
+
+    /**
+     * This method compacts the stores whose sealed segments are mostly garbage.
+     */
+    @Scheduled(fixedDelayString = "${addressbook.edge.store.compaction-interval-ms:60000}")
+    public void compactStores() throws IOException {
+        for (LogStructuredRepository<?> repository : List.of(addressBookRepository(), userAuthenticationRepository(), contactTombstoneRepository())) {
+            repository.compact();
+        }
+    }
+
+    private <R extends LogStructuredRepository<?>> R register(String name, R repository) {
+        Gauge.builder("addressbook.edge.store.records", repository, r -> r.getStore().size())
+                .tag("store", name).register(meterRegistry);
+        Gauge.builder("addressbook.edge.store.bytes", repository, r -> r.getStore().usage()[0])
+                .tag("store", name).tag("state", "live").register(meterRegistry);
+        Gauge.builder("addressbook.edge.store.bytes", repository, r -> r.getStore().usage()[1])
+                .tag("store", name).tag("state", "total").register(meterRegistry);
+        return repository;
+    }
+
+    private Path directory(String name) {
+        return Path.of(properties.getDirectory(), name);
+    }
+
+    private int segmentSize() {
+        return Math.toIntExact(properties.getSegmentSize().toBytes());
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.addressbook.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Properties for the embedded log-structured store used by the edge profile, bound from addressbook.edge.store.*.
+ */
+@Data
+@ConfigurationProperties(prefix = "addressbook.edge.store")
+public class EdgeStorageProperties {
+
+    // Each repository keeps its segments in a subdirectory of this one.
+    private String directory = "data/edge";
+
+    // Segments are sealed at this size and must stay below 2 GB, as they are mapped whole.
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    // Forces every write to disk before it returns; without it a power loss can lose the last writes.
+    private boolean syncWrites = true;
+
+    // Sealed segments are compacted once this share of their bytes belongs to overwritten or deleted records.
+    private double compactionGarbageRatio = 0.5;
+}
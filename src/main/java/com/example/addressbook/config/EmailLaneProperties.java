@@ -0,0 +1,55 @@
+package com.example.addressbook.config;
+
+import com.example.addressbook.util.EmailLane;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Properties for the email lanes, bound from addressbook.email.lanes.critical.* and addressbook.email.lanes.bulk.*.
+ * Each lane has its own queue and consumers; its share of the consumers is its weight against the other lane.
+ */
+@Data
+@ConfigurationProperties(prefix = "addressbook.email.lanes")
+public class EmailLaneProperties {
+
+    private Lane critical = new Lane(4, 8, 1, Duration.ofSeconds(5),
+            List.of(Duration.ofSeconds(2), Duration.ofSeconds(10), Duration.ofMinutes(1), Duration.ofMinutes(5)));
+
+    private Lane bulk = new Lane(1, 2, 50, Duration.ofMinutes(5),
+            List.of(Duration.ofSeconds(10), Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(30)));
+
+    public Lane lane(EmailLane lane) {
+        return lane == EmailLane.CRITICAL ? critical : bulk;
+    }
+
+    @Data
+    public static class Lane {
+        private int concurrency;
+        private int maxConcurrency;
+
+        // Messages a consumer holds unacknowledged; 1 keeps a slow send from delaying the messages queued behind it.
+        private int prefetch;
+
+        // Deliveries that take longer from publish to sent, retries included, count as SLO misses.
+        private Duration latencySlo;
+
+        // A message that failed n times waits retryDelays[n] in a delay queue; after the last one it is dead-lettered.
+        // Each delay is a queue named after it, so changing a delay declares a new queue instead of redefining one.
+        private List<Duration> retryDelays = new ArrayList<>();
+
+        public Lane() {
+        }
+
+        Lane(int concurrency, int maxConcurrency, int prefetch, Duration latencySlo, List<Duration> retryDelays) {
+            this.concurrency = concurrency;
+            this.maxConcurrency = maxConcurrency;
+            this.prefetch = prefetch;
+            this.latencySlo = latencySlo;
+            this.retryDelays = new ArrayList<>(retryDelays);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.addressbook.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Configuration class for the compact binary response formats.
+ * Clients that send "Accept: application/cbor" or "Accept: application/x-jackson-smile"
+ * receive the same ResponseDTO structure as JSON clients, encoded in binary.
+ * The Jackson converters write straight to the response stream, so large list
+ * responses are encoded incrementally rather than buffered.
+ */
+@Configuration
+public class MessageConverterConfig {
+
+    /**
+     * Creates the CBOR message converter.
+     * The builder is a prototype bean, so it carries the application's Jackson settings
+     * without affecting the JSON ObjectMapper.
+     *
+     * @param builder - Spring Boot's Jackson2ObjectMapperBuilder
+     * @return a converter for application/cbor
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Creates the Smile message converter.
+     *
+     * @param builder - Spring Boot's Jackson2ObjectMapperBuilder
+     * @return a converter for application/x-jackson-smile
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -1,15 +1,40 @@
 package com.example.addressbook.config;
 
+import com.example.addressbook.util.EmailLane;
 import org.springframework.amqp.core.*;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration class for the email queues.
+ * Messages travel on one of two lanes (see EmailLane): emailQueue.critical for mails a user is waiting for,
+ * and emailQueue for bulk notifications. Each lane has its own consumers, so a bulk backlog never delays
+ * a critical mail.
+ * A delivery that fails is not requeued in place; the consumer republishes it through the retry exchange
+ * to the delay queue of its lane and attempt, where it waits out the queue's TTL without occupying a consumer
+ * and is then dead-lettered back to its lane. Messages that failed permanently or ran out of attempts are
+ * parked in the dead-letter queue until an admin replays them.
+ */
 @Configuration
+@EnableConfigurationProperties(EmailLaneProperties.class)
 public class RabbitMQConfig {
 
     public static final String QUEUE_NAME = "emailQueue";
     public static final String EXCHANGE_NAME = "emailExchange";
     public static final String ROUTING_KEY = "emailRoutingKey";
+    public static final String CRITICAL_QUEUE_NAME = QUEUE_NAME + ".critical";
+    public static final String CRITICAL_ROUTING_KEY = "emailCriticalRoutingKey";
+
+    public static final String RETRY_EXCHANGE_NAME = "emailRetryExchange";
+    public static final String DEAD_LETTER_QUEUE_NAME = QUEUE_NAME + ".dlq";
 
     @Bean
     public Queue queue() {
@@ -25,4 +50,88 @@ public class RabbitMQConfig {
     public Binding binding(Queue queue, DirectExchange exchange) {
         return BindingBuilder.bind(queue).to(exchange).with(ROUTING_KEY);
     }
-}
\ No newline at end of file
+
+    /**
+     * This method declares the critical lane's queue, the retry exchange, one delay queue per lane and
+     * configured delay, and the dead-letter queue. Each delay queue and the dead-letter queue are bound
+     * to the retry exchange under their own name.
+     *
+     * @param properties - The lanes and their retry delays
+     * @return Declarables - The lane and retry topology
+     */
+    @Bean
+    public Declarables emailLaneTopology(EmailLaneProperties properties) {
+        List<Declarable> declarables = new ArrayList<>();
+        Queue criticalQueue = QueueBuilder.durable(EmailLane.CRITICAL.getQueueName()).build();
+        declarables.add(criticalQueue);
+        declarables.add(new Binding(criticalQueue.getName(), Binding.DestinationType.QUEUE,
+                EXCHANGE_NAME, EmailLane.CRITICAL.getRoutingKey(), null));
+
+        DirectExchange retryExchange = new DirectExchange(RETRY_EXCHANGE_NAME);
+        declarables.add(retryExchange);
+        for (EmailLane lane : EmailLane.values()) {
+            for (Duration delay : properties.lane(lane).getRetryDelays()) {
+                Queue delayQueue = QueueBuilder.durable(retryQueueName(lane, delay))
+                        .ttl((int) delay.toMillis())
+                        .deadLetterExchange(EXCHANGE_NAME)
+                        .deadLetterRoutingKey(lane.getRoutingKey())
+                        .build();
+                declarables.add(delayQueue);
+                declarables.add(BindingBuilder.bind(delayQueue).to(retryExchange).with(delayQueue.getName()));
+            }
+        }
+        Queue deadLetterQueue = QueueBuilder.durable(DEAD_LETTER_QUEUE_NAME).build();
+        declarables.add(deadLetterQueue);
+        declarables.add(BindingBuilder.bind(deadLetterQueue).to(retryExchange).with(DEAD_LETTER_QUEUE_NAME));
+        return new Declarables(declarables);
+    }
+
+    /**
+     * This method creates the listener containers of the critical lane: several consumers, each holding
+     * one message at a time, so a critical mail is picked up as soon as any consumer is free.
+     *
+     * @return SimpleRabbitListenerContainerFactory - The factory named by the critical @RabbitListener
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory criticalListenerContainerFactory(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+                                                                                 ConnectionFactory connectionFactory,
+                                                                                 EmailLaneProperties properties) {
+        return listenerContainerFactory(configurer, connectionFactory, properties.getCritical());
+    }
+
+    /**
+     * This method creates the listener containers of the bulk lane: few consumers with a large prefetch,
+     * for throughput rather than latency.
+     *
+     * @return SimpleRabbitListenerContainerFactory - The factory named by the bulk @RabbitListener
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory bulkListenerContainerFactory(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+                                                                             ConnectionFactory connectionFactory,
+                                                                             EmailLaneProperties properties) {
+        return listenerContainerFactory(configurer, connectionFactory, properties.getBulk());
+    }
+
+    /**
+     * This method names the delay queue of a lane's retry delay, e.g. emailQueue.retry.60000ms for the bulk lane.
+     *
+     * @param lane  - The lane
+     * @param delay - The retry delay
+     * @return String - The queue name, which is also its routing key on the retry exchange
+     */
+    public static String retryQueueName(EmailLane lane, Duration delay) {
+        return lane.getQueueName() + ".retry." + delay.toMillis() + "ms";
+    }
+
+    // Starts from the spring.rabbitmq.listener.simple.* settings, e.g. auto-startup, and applies the lane's own
+    private static SimpleRabbitListenerContainerFactory listenerContainerFactory(SimpleRabbitListenerContainerFactoryConfigurer configurer,
+                                                                                 ConnectionFactory connectionFactory,
+                                                                                 EmailLaneProperties.Lane lane) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setConcurrentConsumers(lane.getConcurrency());
+        factory.setMaxConcurrentConsumers(Math.max(lane.getConcurrency(), lane.getMaxConcurrency()));
+        factory.setPrefetchCount(lane.getPrefetch());
+        return factory;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.addressbook.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Properties for request rate limiting, bound from addressbook.ratelimit.*.
+ * Each group applies its own limits to the requests whose path starts with its path prefix;
+ * the first matching group wins, and requests matching no group are not limited.
+ */
+@Data
+@ConfigurationProperties(prefix = "addressbook.ratelimit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Global quotas count requests across all nodes in fixed windows of this length.
+    private Duration globalWindow = Duration.ofMinutes(1);
+
+    private List<Group> groups = new ArrayList<>();
+
+    @Data
+    public static class Group {
+        private String name;
+        private String pathPrefix;
+
+        // Applied to authenticated requests, per user id.
+        private Limit user = new Limit();
+
+        // Applied to every request, per client address.
+        private Limit ip = new Limit();
+    }
+
+    @Data
+    public static class Limit {
+        // Burst size in requests; 0 disables the limit.
+        private int capacity;
+        private double refillPerSecond;
+
+        // Requests per global window across all nodes, kept in Redis; 0 disables the global quota.
+        private long globalQuota;
+    }
+}
@@ -1,21 +1,138 @@
 package com.example.addressbook.config;
 
+import com.example.addressbook.util.CompactRedisSerializer;
+import com.example.addressbook.util.CircuitBreakerCache;
+import com.example.addressbook.util.DecoratingCacheManager;
+import com.example.addressbook.util.RedisCircuitBreaker;
+import com.example.addressbook.util.SingleFlightCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class RedisConfig {
 
+    /**
+     * This method selects the serializer for values stored in Redis by both the RedisTemplate
+     * and the cache manager: "compact" (default) or "json" for the previous JSON encoding.
+     *
+     * @param serializer - The configured serializer name
+     * @param compressionThreshold - Compact values larger than this many bytes are compressed
+     * @return RedisSerializer<Object> - The value serializer
+     */
+    @Bean
+    public RedisSerializer<Object> redisValueSerializer(
+            @Value("${addressbook.redis.serializer:compact}") String serializer,
+            @Value("${addressbook.redis.compression-threshold:1024}") int compressionThreshold) {
+        if ("json".equalsIgnoreCase(serializer))
+            return new GenericJackson2JsonRedisSerializer();
+        return new CompactRedisSerializer(compressionThreshold);
+    }
+
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory) {
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                       RedisSerializer<Object> redisValueSerializer) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(redisConnectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        template.setValueSerializer(redisValueSerializer);
         return template;
     }
-}
\ No newline at end of file
+
+    @Bean
+    public RedisCacheConfiguration redisCacheConfiguration(RedisSerializer<Object> redisValueSerializer,
+                                                           @Value("${addressbook.cache.ttl:10m}") Duration cacheTtl) {
+        return RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(cacheTtl)
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(redisValueSerializer));
+    }
+
+    /**
+     * This method creates the circuit breaker guarding cache traffic to Redis.
+     * While it is open, a background probe pings Redis until it answers again.
+     *
+     * @return RedisCircuitBreaker - The shared breaker
+     */
+    @Bean
+    public RedisCircuitBreaker redisCircuitBreaker(StringRedisTemplate stringRedisTemplate,
+                                                   MeterRegistry meterRegistry,
+                                                   @Value("${addressbook.cache.circuit.window-size:50}") int windowSize,
+                                                   @Value("${addressbook.cache.circuit.minimum-calls:20}") int minimumCalls,
+                                                   @Value("${addressbook.cache.circuit.failure-rate-threshold:0.5}") double failureRateThreshold,
+                                                   @Value("${addressbook.cache.circuit.slow-call-threshold:100ms}") Duration slowCallThreshold,
+                                                   @Value("${addressbook.cache.circuit.slow-call-rate-threshold:0.8}") double slowCallRateThreshold) {
+        return new RedisCircuitBreaker(
+                () -> "PONG".equalsIgnoreCase(stringRedisTemplate.execute((RedisCallback<String>) RedisConnection::ping)),
+                meterRegistry, windowSize, minimumCalls, failureRateThreshold, slowCallThreshold, slowCallRateThreshold);
+    }
+
+    /**
+     * This method builds the Redis cache manager and decorates its caches.
+     * Concurrent misses for a key are loaded once, in-process and across nodes, and hot entries are refreshed early
+     * on a small bounded pool; refreshes that do not fit in its queue are skipped and retried by a later read.
+     * Every cache call goes through the circuit breaker, falling back to a bounded local cache while Redis is failing.
+     *
+     * @return CacheManager - The cache manager used by @Cacheable
+     */
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                     RedisCacheConfiguration redisCacheConfiguration,
+                                     StringRedisTemplate stringRedisTemplate,
+                                     RedisCircuitBreaker redisCircuitBreaker,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${addressbook.cache.ttl:10m}") Duration cacheTtl,
+                                     @Value("${addressbook.cache.load-lock-ttl:2s}") Duration loadLockTtl,
+                                     @Value("${addressbook.cache.early-refresh-beta:1.0}") double earlyRefreshBeta,
+                                     @Value("${addressbook.cache.early-refresh-threads:2}") int earlyRefreshThreads,
+                                     @Value("${addressbook.cache.early-refresh-queue-capacity:100}") int earlyRefreshQueueCapacity,
+                                     @Value("${addressbook.cache.local.max-entries:1000}") int localMaxEntries,
+                                     @Value("${addressbook.cache.local.ttl:30s}") Duration localTtl) {
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
+                .cacheDefaults(redisCacheConfiguration)
+                .build();
+        redisCacheManager.afterPropertiesSet();
+        ThreadPoolExecutor refreshExecutor = new ThreadPoolExecutor(earlyRefreshThreads, earlyRefreshThreads, 30L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(earlyRefreshQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        refreshExecutor.allowCoreThreadTimeOut(true);
+        return new DecoratingCacheManager(redisCacheManager, cache -> new CircuitBreakerCache(
+                new SingleFlightCache(cache, stringRedisTemplate, meterRegistry, cacheTtl, loadLockTtl, earlyRefreshBeta, refreshExecutor),
+                redisCircuitBreaker, meterRegistry, localMaxEntries, localTtl));
+    }
+
+    /**
+     * This method creates the container for Redis pub/sub subscriptions, e.g. contact change events.
+     * Listeners are added by the services that subscribe.
+     *
+     * @return RedisMessageListenerContainer - The listener container
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
+}
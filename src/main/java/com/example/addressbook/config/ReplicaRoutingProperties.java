@@ -0,0 +1,39 @@
+package com.example.addressbook.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Properties for read-replica routing, bound from addressbook.datasource.routing.*.
+ * The primary database keeps using the spring.datasource.* properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "addressbook.datasource.routing")
+public class ReplicaRoutingProperties {
+
+    private boolean enabled;
+
+    // Replicas receiving @Transactional(readOnly = true) work.
+    private List<Replica> replicas = new ArrayList<>();
+
+    // Replicas further behind than this are excluded from routing.
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    // How long a user's reads stay on the primary after their own write.
+    private Duration readYourWritesWindow = Duration.ofSeconds(10);
+
+    // Query returning Seconds_Behind_Source; leave empty to only check connectivity.
+    private String lagQuery = "SHOW REPLICA STATUS";
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
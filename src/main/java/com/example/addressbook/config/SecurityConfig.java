@@ -4,6 +4,10 @@ package com.example.addressbook.config;
 import com.example.addressbook.util.CustomUserDetailsService;
 import com.example.addressbook.util.JwtAuthenticationEntryPoint;
 import com.example.addressbook.util.JwtRequestFilter;
+import com.example.addressbook.util.RateLimitFilter;
+import com.example.addressbook.util.TimedPasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -32,24 +36,28 @@ public class SecurityConfig {
     @Autowired
     JwtRequestFilter jwtRequestFilter;
 
+    @Autowired
+    RateLimitFilter rateLimitFilter;
+
     @Autowired
     CustomUserDetailsService customUserDetailsService;
 
     /**
      * Bean to provide PasswordEncoder implementation.
+     * Hashing and verification are timed, so BCrypt CPU time is visible in metrics.
      *
      * @return a BCryptPasswordEncoder instance
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 
     @Bean
-    public AuthenticationManager authenticationManager() {
+    public AuthenticationManager authenticationManager(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(customUserDetailsService);
-        provider.setPasswordEncoder(passwordEncoder());
+        provider.setPasswordEncoder(passwordEncoder);
         return new ProviderManager(List.of(provider));
     }
 
@@ -65,9 +73,12 @@ public class SecurityConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // Completion of event streams and streamed responses; the original request was authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/api/auth/register",
                                 "/api/auth/login",
+                                "/api/auth/refresh",
                                 "/api/auth/forgot-password",
                                 "/api/auth/reset-password",
                                 "/swagger-ui/**",
@@ -77,7 +88,9 @@ public class SecurityConfig {
                 )
                 .exceptionHandling(ex -> ex.authenticationEntryPoint(jwtAuthenticationEntryPoint))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class)
+                // Limits per user need the authentication set by the JWT filter
+                .addFilterAfter(rateLimitFilter, JwtRequestFilter.class);
         return http.build();
     }
 }
@@ -0,0 +1,90 @@
+package com.example.addressbook.config;
+
+import com.example.addressbook.util.ReplicaRoutingDataSource;
+import com.example.addressbook.util.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.*;
+
+/**
+ * Configuration class for sharding ADDRESS_BOOK by owner user_id.
+ * When addressbook.sharding.enabled=true, the application DataSource routes every
+ * connection to the shard bound by ShardContext. The home shard is the replica routed
+ * DataSource when read-replica routing is enabled, and a plain pool otherwise.
+ * Shards other than the home shard must have the ADDRESS_BOOK table created without
+ * the foreign key to ACCOUNTS, and the CONTACT_TOMBSTONE table, which is kept next to the contacts.
+ * Their address_book_seq and contact_tombstone_seq must start in disjoint id ranges, as the rebalancer
+ * copies rows between shards with their ids.
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+@ConditionalOnProperty(prefix = "addressbook.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    /**
+     * Creates the shard routing DataSource with one pool per shard.
+     *
+     * @return a ShardRoutingDataSource
+     */
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties dataSourceProperties, ShardingProperties properties,
+                                                         ObjectProvider<ReplicaRoutingDataSource> replicaRoutingDataSource,
+                                                         MeterRegistry meterRegistry) {
+        DataSource home = replicaRoutingDataSource.getIfAvailable();
+        if (home == null) {
+            HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            pool.setPoolName(ShardRoutingDataSource.HOME_SHARD);
+            // Without cursor fetch the MySQL driver reads whole results into memory and ignores the fetch size of scans
+            pool.addDataSourceProperty("useCursorFetch", "true");
+            pool.setMetricRegistry(meterRegistry);
+            home = pool;
+        }
+
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        Set<String> members = new TreeSet<>();
+        shards.put(ShardRoutingDataSource.HOME_SHARD, home);
+        members.add(ShardRoutingDataSource.HOME_SHARD);
+        List<ShardingProperties.Shard> shardProperties = properties.getShards();
+        for (int i = 0; i < shardProperties.size(); i++) {
+            ShardingProperties.Shard shard = shardProperties.get(i);
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build();
+            pool.setPoolName("shard-" + (i + 1));
+            pool.setMaximumPoolSize(shard.getMaximumPoolSize());
+            pool.addDataSourceProperty("useCursorFetch", "true");
+            pool.setMetricRegistry(meterRegistry);
+            shards.put(pool.getPoolName(), pool);
+            if (!shard.isJoining())
+                members.add(pool.getPoolName());
+        }
+        return new ShardRoutingDataSource(shards, members);
+    }
+
+    /**
+     * Exposes the shard routing DataSource to JPA. The lazy proxy delays the shard lookup
+     * until the first statement of a transaction.
+     *
+     * @return the application DataSource
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.addressbook.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Properties for ADDRESS_BOOK sharding, bound from addressbook.sharding.*.
+ * The home shard (shard-0) is the spring.datasource.* database; the shards listed
+ * here become shard-1, shard-2, ... in order.
+ */
+@Data
+@ConfigurationProperties(prefix = "addressbook.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+
+        // A joining shard is connected but owns no users until it is rebalanced into the ring.
+        private boolean joining;
+    }
+}
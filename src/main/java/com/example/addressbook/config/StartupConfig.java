@@ -0,0 +1,115 @@
+package com.example.addressbook.config;
+
+import com.example.addressbook.dto.*;
+import com.example.addressbook.model.AddressBook;
+import com.example.addressbook.model.ContactTombstone;
+import com.example.addressbook.model.UserAuthentication;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ClassUtils;
+
+import java.lang.annotation.Annotation;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Configuration class for the startup-time settings of the fast-start profile and the AOT/native builds.
+ * With lazy initialization, a bean is only created when first used, which would silently disable the beans
+ * that are never injected anywhere but do their work from @Scheduled or @RabbitListener methods, and would
+ * move the Hibernate bootstrap onto the first request; those beans are kept eager.
+ * Rabbit listeners can be started after the application is ready, so consumers do not compete with startup.
+ */
+@Slf4j
+@Configuration
+@ImportRuntimeHints(StartupConfig.ModelReflectionHints.class)
+public class StartupConfig {
+
+    @Autowired(required = false)
+    RabbitListenerEndpointRegistry rabbitListenerEndpointRegistry;
+
+    @Autowired
+    TaskScheduler taskScheduler;
+
+    @Value("${spring.rabbitmq.listener.simple.auto-startup:true}")
+    private boolean listenersAutoStartup;
+
+    @Value("${addressbook.startup.listener-start-delay:0s}")
+    private Duration listenerStartDelay;
+
+    /**
+     * This method keeps the beans that lazy initialization would break, or only postpone to the first request, eager.
+     * It is static so it is available before any other bean of this class is created.
+     *
+     * @return LazyInitializationExcludeFilter - The filter, only consulted when lazy initialization is enabled
+     */
+    @Bean
+    static LazyInitializationExcludeFilter eagerBackgroundBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (EntityManagerFactory.class.isAssignableFrom(beanType)
+                || AbstractEntityManagerFactoryBean.class.isAssignableFrom(beanType)
+                || AnnotatedElementUtils.hasAnnotation(beanType, RabbitListener.class)
+                || hasMethodAnnotatedWith(beanType, Scheduled.class)
+                || hasMethodAnnotatedWith(beanType, RabbitListener.class));
+    }
+
+    /**
+     * This method starts the Rabbit listeners once the application is ready, when they do not start with the context.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startDeferredListeners() {
+        if (listenersAutoStartup || rabbitListenerEndpointRegistry == null)
+            return;
+        taskScheduler.schedule(() -> {
+            rabbitListenerEndpointRegistry.getListenerContainers().forEach(container -> {
+                if (!container.isRunning())
+                    container.start();
+            });
+            log.info("Started {} deferred Rabbit listener containers", rabbitListenerEndpointRegistry.getListenerContainers().size());
+        }, Instant.now().plus(listenerStartDelay));
+    }
+
+    private static boolean hasMethodAnnotatedWith(Class<?> beanType, Class<? extends Annotation> annotation) {
+        Class<?> userClass = ClassUtils.getUserClass(beanType);
+        return !MethodIntrospector.selectMethods(userClass, (MethodIntrospector.MetadataLookup<Boolean>) method ->
+                AnnotatedElementUtils.hasAnnotation(method, annotation) ? Boolean.TRUE : null).isEmpty();
+    }
+
+    /**
+     * Reflection hints for the native image: ModelMapper and Jackson reach the entities and DTOs reflectively,
+     * including through ResponseDTO payloads whose type AOT processing can not see.
+     */
+    static class ModelReflectionHints implements RuntimeHintsRegistrar {
+
+        private static final Class<?>[] TYPES = {
+                AddressBook.class, ContactTombstone.class, UserAuthentication.class,
+                AddressBookDTO.class, AddressBookChangesDTO.class, BatchGetDTO.class, ChangePasswordDTO.class,
+                ContactEventDTO.class, DuplicateSuggestionDTO.class, ForgotPasswordDTO.class, LoginDTO.class,
+                RefreshTokenDTO.class, ResetPasswordDTO.class, ResponseDTO.class, UserAuthenticationDTO.class};
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (Class<?> type : TYPES) {
+                hints.reflection().registerType(type, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_PUBLIC_METHODS, MemberCategory.DECLARED_FIELDS);
+            }
+        }
+    }
+}
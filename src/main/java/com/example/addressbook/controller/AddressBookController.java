@@ -1,19 +1,37 @@
 package com.example.addressbook.controller;
 
+import com.example.addressbook.dto.AddressBookChangesDTO;
 import com.example.addressbook.dto.AddressBookDTO;
+import com.example.addressbook.dto.BatchGetDTO;
+import com.example.addressbook.dto.DuplicateSuggestionDTO;
 import com.example.addressbook.dto.ResponseDTO;
 import com.example.addressbook.exception.AddressBookNotFoundException;
 import com.example.addressbook.interfaces.IAddressBookService;
+import com.example.addressbook.service.AddressBookCacheWarmer;
+import com.example.addressbook.util.ContactExportFormat;
+import com.example.addressbook.util.SecurityUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Controller for Address Book operations.
@@ -28,33 +46,145 @@ public class AddressBookController {
     @Autowired
     IAddressBookService addressBookService;
 
+    // ObjectMapper to stream large responses without building them in memory.
+    @Autowired
+    ObjectMapper objectMapper;
+
+    // MeterRegistry to compare read latency of full and sparse fieldset responses.
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    // Records whether the first list read after login was served from a warmed cache.
+    @Autowired
+    AddressBookCacheWarmer addressBookCacheWarmer;
+
+    private Timer readTimer(String operation, String fields) {
+        return meterRegistry.timer("addressbook.contacts.read",
+                "operation", operation,
+                "projection", fields == null ? "full" : "sparse");
+    }
+
     /**
      * Endpoint to get all address book entries.
+     * @param fields - Optional comma separated field names; when present only those columns are selected and returned
      * @return ResponseEntity with list of AddressBookDTO which contains all address book entries
      */
     @GetMapping("/")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<ResponseDTO<?>> getMyAllAddressBook(@RequestHeader ("Authorization") String authorization) {
-        log.info("Fetching all address book entries");
+    public ResponseEntity<ResponseDTO<?>> getMyAllAddressBook(@RequestHeader ("Authorization") String authorization, @RequestParam(required = false) String fields) {
+        log.info("Fetching all address book entries with fields: {}", fields);
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
+            if (fields != null) {
+                List<Map<String, Object>> addressBookFields = addressBookService.getMyAddressBookFields(fields);
+                return new ResponseEntity<>(new ResponseDTO<List<Map<String, Object>>>("Get All Address Book Data", addressBookFields), HttpStatus.OK);
+            }
             List<AddressBookDTO> addressBookData = addressBookService.getMyAddressBookData(authorization);
             return new ResponseEntity<>(new ResponseDTO<List<AddressBookDTO>>("Get All Address Book Data", addressBookData), HttpStatus.OK);
         } catch (Exception e) {
             log.error("Error fetching address book entries: {}", e.getMessage());
             return new ResponseEntity<>(new ResponseDTO<String>("Get Call Unsuccessful", e.getMessage()), HttpStatus.NOT_FOUND);
+        } finally {
+            long elapsed = sample.stop(readTimer("list", fields));
+            if (fields == null)
+                addressBookCacheWarmer.recordFirstRead(SecurityUtil.getAuthenticatedUserEmail(), elapsed);
+        }
+    }
+
+    /**
+     * Endpoint to get the address book entries changed since a sync cursor.
+     * @param since - The cursor returned by the previous call, or 0 for the first sync
+     * @return ResponseEntity with AddressBookChangesDTO which contains changed entries, deleted ids and the next cursor
+     */
+    @GetMapping("/changes")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ResponseDTO<?>> getAddressBookChanges(@RequestParam(defaultValue = "0") long since) {
+        log.info("Fetching address book changes since cursor: {}", since);
+        try {
+            AddressBookChangesDTO changes = addressBookService.getAddressBookChanges(since);
+            return new ResponseEntity<>(new ResponseDTO<AddressBookChangesDTO>("Get Address Book Changes", changes), HttpStatus.OK);
+        } catch (Exception e) {
+            log.error("Error fetching address book changes: {}", e.getMessage());
+            return new ResponseEntity<>(new ResponseDTO<String>("Get Changes Unsuccessful", e.getMessage()), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Endpoint to stream the changes of the user's address book entries as Server-Sent Events.
+     * Each "contact" event carries a ContactEventDTO; after a reconnect clients catch up through /changes.
+     * @return SseEmitter which stays open until it times out or the client disconnects
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public SseEmitter streamAddressBookChanges() {
+        log.info("Opening address book change stream");
+        return addressBookService.streamAddressBookChanges();
+    }
+
+    /**
+     * Endpoint to get merge suggestions for duplicate address book entries.
+     * @return ResponseEntity with list of DuplicateSuggestionDTO, most similar groups first
+     */
+    @GetMapping("/duplicates")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ResponseDTO<?>> getDuplicateSuggestions() {
+        log.info("Finding duplicate address book entries");
+        try {
+            List<DuplicateSuggestionDTO> suggestions = addressBookService.getDuplicateSuggestions();
+            return new ResponseEntity<>(new ResponseDTO<List<DuplicateSuggestionDTO>>("Get Duplicate Suggestions", suggestions), HttpStatus.OK);
+        } catch (Exception e) {
+            log.error("Error finding duplicate address book entries: {}", e.getMessage());
+            return new ResponseEntity<>(new ResponseDTO<String>("Get Duplicate Suggestions Unsuccessful", e.getMessage()), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * Endpoint to download the user's address book entries as CSV or vCard.
+     * The entries are streamed from the database to the client as they are formatted, and gzipped
+     * when the client accepts gzip encoding.
+     * @param format - "csv" or "vcard"
+     * @param acceptEncoding - The Accept-Encoding header, if any
+     * @return ResponseEntity with the export as an attachment
+     */
+    @GetMapping("/export")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> exportAddressBook(@RequestParam(defaultValue = "csv") String format,
+                                               @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.info("Exporting address book entries as {}", format);
+        try {
+            ContactExportFormat exportFormat = ContactExportFormat.fromName(format);
+            boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+            StreamingResponseBody body = addressBookService.exportAddressBook(exportFormat, gzip);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(exportFormat.getMediaType() + ";charset=UTF-8"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                            .filename("contacts." + exportFormat.getExtension()).build().toString())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip)
+                response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return response.body(body);
+        } catch (Exception e) {
+            log.error("Error exporting address book entries: {}", e.getMessage());
+            return new ResponseEntity<>(new ResponseDTO<String>("Export Unsuccessful", e.getMessage()), HttpStatus.BAD_REQUEST);
         }
     }
 
     /**
      * Endpoint to get a specific address book entry by ID.
      * @param id - The ID of the address book entry
+     * @param fields - Optional comma separated field names; when present only those columns are selected and returned
      * @return ResponseEntity with AddressBookDTO which contains the address book entry
      */
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<ResponseDTO<?>> getContactById(@PathVariable Long id, @RequestHeader ("Authorization") String authorization) {
+    public ResponseEntity<ResponseDTO<?>> getContactById(@PathVariable Long id, @RequestHeader ("Authorization") String authorization, @RequestParam(required = false) String fields) {
         log.info("Fetching address book entry with ID: {}", id);
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
+            if (fields != null) {
+                Map<String, Object> addressBookFields = addressBookService.getAddressBookFieldsById(id, fields);
+                return new ResponseEntity<>(new ResponseDTO<Map<String, Object>>("Get Call for ID Successful", addressBookFields), HttpStatus.OK);
+            }
             AddressBookDTO addressBook = addressBookService.getAddressBookDataById(authorization, id);
             if (addressBook == null)
                 throw new AddressBookNotFoundException("Address Book entry not found for ID: " + id);
@@ -62,6 +192,29 @@ public class AddressBookController {
         } catch (Exception e) {
             log.error("Error fetching address book entry with ID {}: {}", id, e.getMessage());
             return new ResponseEntity<>(new ResponseDTO<String>("Get Call for ID Unsuccessful", e.getMessage()), HttpStatus.NOT_FOUND);
+        } finally {
+            sample.stop(readTimer("single", fields));
+        }
+    }
+
+    /**
+     * Endpoint to get several address book entries by ID in one call.
+     * @param batchGetDTO - The IDs of the address book entries, at most BatchGetDTO.MAX_IDS
+     * @return ResponseEntity with the AddressBookDTOs found, in request order
+     */
+    @PostMapping("/batch-get")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ResponseDTO<?>> getContactsByIds(@Valid @RequestBody BatchGetDTO batchGetDTO, @RequestHeader ("Authorization") String authorization) {
+        log.info("Fetching {} address book entries by ID", batchGetDTO.getIds().size());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            List<AddressBookDTO> addressBooks = addressBookService.getAddressBookDataByIds(authorization, batchGetDTO.getIds());
+            return new ResponseEntity<>(new ResponseDTO<List<AddressBookDTO>>("Batch Get Call Successful", addressBooks), HttpStatus.OK);
+        } catch (Exception e) {
+            log.error("Error fetching address book entries by ID: {}", e.getMessage());
+            return new ResponseEntity<>(new ResponseDTO<String>("Batch Get Call Unsuccessful", e.getMessage()), HttpStatus.NOT_FOUND);
+        } finally {
+            sample.stop(readTimer("batch", null));
         }
     }
 
@@ -72,7 +225,7 @@ public class AddressBookController {
      */
     @PostMapping("/")
     public ResponseEntity<ResponseDTO<?>> addInAddressBook(@Valid @RequestBody AddressBookDTO AddressBookDTO) {
-        log.info("Adding new address book entry: {}", AddressBookDTO);
+        log.info("Adding new address book entry");
         try {
             AddressBookDTO newAddressBook = addressBookService.createAddressBookData(AddressBookDTO);
             return new ResponseEntity<>(new ResponseDTO<AddressBookDTO>("Create New Address Book Data", newAddressBook), HttpStatus.OK);
@@ -90,7 +243,7 @@ public class AddressBookController {
      */
     @PutMapping("/{id}")
     public ResponseEntity<ResponseDTO<?>> updateAddressBook(@PathVariable Long id, @Valid @RequestBody AddressBookDTO updatedAddressBook, @RequestHeader ("Authorization") String authorization) {
-        log.info("Updating address book entry with ID: {} to {}", id, updatedAddressBook);
+        log.info("Updating address book entry with ID: {}", id);
         try {
             AddressBookDTO addressBook = addressBookService.getAddressBookDataById(authorization, id);
             boolean operation = addressBookService.updateAddressBookData(id, updatedAddressBook);
@@ -131,14 +284,35 @@ public class AddressBookController {
     /**
      * Endpoint to get all address book entries.
      * This endpoint is used only if the user is an admin.
+     * By default the entries are read whole, in parallel partitions when addressbook.admin-scan.partitioned is on.
+     * With stream=true they are read from every shard in parallel and streamed to the client as they are merged,
+     * so the response never has to fit in memory.
+     * @param stream - true to stream the entries as JSON instead of building the list in memory
      * @return ResponseEntity with list of AddressBookDTO which contains all address book entries
      */
     @GetMapping("/all")
-    public ResponseEntity<ResponseDTO<?>> getAllAddressBook() {
+    public ResponseEntity<?> getAllAddressBook(@RequestParam(defaultValue = "false") boolean stream) {
         log.info("Fetching all address book entries for admin");
         try {
-            List<AddressBookDTO> addressBookData = addressBookService.getAllAddressBookData();
-            return new ResponseEntity<>(new ResponseDTO<List<AddressBookDTO>>("Get All Address Book Data", addressBookData), HttpStatus.OK);
+            if (!stream) {
+                List<AddressBookDTO> addressBooks = addressBookService.getAllAddressBookData();
+                return new ResponseEntity<>(new ResponseDTO<List<AddressBookDTO>>("Get All Address Book Data", addressBooks), HttpStatus.OK);
+            }
+            Stream<AddressBookDTO> addressBookData = addressBookService.streamAllAddressBookData();
+            StreamingResponseBody body = outputStream -> {
+                try (addressBookData; JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                    generator.writeStartObject();
+                    generator.writeStringField("message", "Get All Address Book Data");
+                    generator.writeArrayFieldStart("data");
+                    Iterator<AddressBookDTO> addressBooks = addressBookData.iterator();
+                    while (addressBooks.hasNext()) {
+                        generator.writeObject(addressBooks.next());
+                    }
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                }
+            };
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
         } catch (Exception e) {
             log.error("Error fetching all address book entries: {}", e.getMessage());
             return new ResponseEntity<>(new ResponseDTO<String>("Get Call Unsuccessful", e.getMessage()), HttpStatus.NOT_FOUND);
@@ -0,0 +1,54 @@
+package com.example.addressbook.controller;
+
+import com.example.addressbook.dto.ResponseDTO;
+import com.example.addressbook.service.EmailRetryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller for email delivery administration.
+ * Provides endpoints to inspect and replay the email messages parked in the dead-letter queue.
+ * Only admins may use it.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/email")     // Base URL for Email Admin API
+public class EmailAdminController {
+
+    @Autowired
+    EmailRetryService emailRetryService;
+
+    /**
+     * Endpoint to get the number of dead-lettered email messages.
+     * @return ResponseEntity with the dead-letter queue depth
+     */
+    @GetMapping("/dead-letters")
+    public ResponseEntity<ResponseDTO<?>> getDeadLetterCount() {
+        log.info("Fetching email dead-letter count");
+        try {
+            return new ResponseEntity<>(new ResponseDTO<Long>("Dead-Lettered Emails", emailRetryService.deadLetterCount()), HttpStatus.OK);
+        } catch (Exception e) {
+            log.error("Error fetching email dead-letter count: {}", e.getMessage());
+            return new ResponseEntity<>(new ResponseDTO<String>("Get Call Unsuccessful", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Endpoint to move dead-lettered email messages back to the email queue for another round of attempts.
+     * @param max - The maximum number of messages to replay
+     * @return ResponseEntity with the number of messages replayed
+     */
+    @PostMapping("/dead-letters/replay")
+    public ResponseEntity<ResponseDTO<?>> replayDeadLetters(@RequestParam(defaultValue = "100") int max) {
+        log.info("Replaying up to {} dead-lettered emails", max);
+        try {
+            return new ResponseEntity<>(new ResponseDTO<Integer>("Dead-Lettered Emails Replayed", emailRetryService.replayDeadLetters(max)), HttpStatus.OK);
+        } catch (Exception e) {
+            log.error("Error replaying dead-lettered emails: {}", e.getMessage());
+            return new ResponseEntity<>(new ResponseDTO<String>("Replay Failed", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.addressbook.controller;
+
+import com.example.addressbook.dto.ResponseDTO;
+import com.example.addressbook.service.ShardRebalancer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Controller for shard administration.
+ * Provides endpoints to inspect the shard ring and to rebalance a new shard into it.
+ * Only admins may use it.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/shards")     // Base URL for Shard Admin API
+public class ShardAdminController {
+
+    @Autowired
+    ShardRebalancer shardRebalancer;
+
+    /**
+     * Endpoint to get the shard ring status.
+     * @return ResponseEntity with the ring members and rebalance state
+     */
+    @GetMapping
+    public ResponseEntity<ResponseDTO<?>> getShardStatus() {
+        log.info("Fetching shard ring status");
+        try {
+            return new ResponseEntity<>(new ResponseDTO<Map<String, Object>>("Shard Ring Status", shardRebalancer.getStatus()), HttpStatus.OK);
+        } catch (Exception e) {
+            log.error("Error fetching shard ring status: {}", e.getMessage());
+            return new ResponseEntity<>(new ResponseDTO<String>("Get Call Unsuccessful", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Endpoint to add a joining shard to the ring and move its users onto it in the background.
+     * @param shard - The key of the joining shard, e.g. "shard-3"
+     * @return ResponseEntity with the rebalance status message
+     */
+    @PostMapping("/{shard}/rebalance")
+    public ResponseEntity<ResponseDTO<?>> rebalance(@PathVariable String shard) {
+        log.info("Rebalancing shard ring onto: {}", shard);
+        try {
+            return new ResponseEntity<>(new ResponseDTO<String>("Rebalance Started", shardRebalancer.startRebalance(shard)), HttpStatus.ACCEPTED);
+        } catch (Exception e) {
+            log.error("Error starting rebalance onto {}: {}", shard, e.getMessage());
+            return new ResponseEntity<>(new ResponseDTO<String>("Rebalance Failed", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.addressbook.controller;
+
+import com.example.addressbook.dto.ContactStatsDTO;
+import com.example.addressbook.dto.ResponseDTO;
+import com.example.addressbook.service.ContactStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller for the admin statistics dashboard.
+ * Serves contact and user statistics from counters kept up to date on every change,
+ * instead of reading every contact. Only admins may use it.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/stats")     // Base URL for Stats Admin API
+public class StatsAdminController {
+
+    @Autowired
+    ContactStatsService contactStatsService;
+
+    /**
+     * Endpoint to get the contact statistics.
+     * @param top - The number of users and email domains to return, by contact count
+     * @param days - The number of days of growth to return
+     * @return ResponseEntity with ContactStatsDTO
+     */
+    @GetMapping
+    public ResponseEntity<ResponseDTO<?>> getStats(@RequestParam(defaultValue = "10") int top,
+                                                   @RequestParam(defaultValue = "30") int days) {
+        log.info("Fetching contact statistics for the top {} users and domains over {} days", top, days);
+        try {
+            return new ResponseEntity<>(new ResponseDTO<ContactStatsDTO>("Contact Statistics", contactStatsService.getStats(top, days)), HttpStatus.OK);
+        } catch (Exception e) {
+            log.error("Error fetching contact statistics: {}", e.getMessage());
+            return new ResponseEntity<>(new ResponseDTO<String>("Get Call Unsuccessful", e.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+    }
+}
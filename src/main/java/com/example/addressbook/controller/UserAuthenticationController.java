@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.*;
 import com.example.addressbook.dto.*;
 import com.example.addressbook.exception.UserException;
 import com.example.addressbook.dto.UserAuthenticationDTO;
+import com.example.addressbook.util.LogRedactor;
 
 /**
  * Controller for User Authentication operations.
@@ -32,7 +33,7 @@ public class UserAuthenticationController {
      */
     @PostMapping("/register")
     public ResponseEntity<ResponseDTO<?>> register(@Valid @RequestBody UserAuthenticationDTO userDTO) {
-        log.info("Registering user with email: {}", userDTO.getEmail());
+        log.info("Registering user with email: {}", LogRedactor.email(userDTO.getEmail()));
         try {
             UserAuthenticationDTO user = userAuthenticationService.register(userDTO);
             ResponseDTO<UserAuthenticationDTO> responseUserDTO = new ResponseDTO<UserAuthenticationDTO>("User details is submitted!", user);
@@ -52,7 +53,7 @@ public class UserAuthenticationController {
      */
     @PostMapping("/login")
     public ResponseEntity<ResponseDTO<?>> login(@Valid @RequestBody LoginDTO loginDTO) {
-        log.info("Logging in user with email: {}", loginDTO.getEmail());
+        log.info("Logging in user with email: {}", LogRedactor.email(loginDTO.getEmail()));
         try {
             String result = userAuthenticationService.login(loginDTO);
             ResponseDTO<String> responseUserDTO = new ResponseDTO<String>("Login successfully!!", result);
@@ -65,6 +66,46 @@ public class UserAuthenticationController {
     }
 
 
+    /**
+     * Endpoint to exchange a refresh token for a new access token and refresh token.
+     * @param refreshTokenDTO - The RefreshTokenDTO object containing the refresh token.
+     * @return ResponseEntity with the new JWT sessionToken and refresh token
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<ResponseDTO<?>> refresh(@Valid @RequestBody RefreshTokenDTO refreshTokenDTO) {
+        log.info("Refreshing access token");
+        try {
+            String result = userAuthenticationService.refresh(refreshTokenDTO);
+            ResponseDTO<String> responseUserDTO = new ResponseDTO<String>("Token refreshed successfully!!", result);
+            return new ResponseEntity<>(responseUserDTO, HttpStatus.OK);
+        } catch (UserException e) {
+            log.error("Error refreshing token: {}", e.getMessage());
+            ResponseDTO<String> responseUserDTO = new ResponseDTO<String>("Token refresh failed!!", e.getMessage());
+            return new ResponseEntity<>(responseUserDTO, HttpStatus.UNAUTHORIZED);
+        }
+    }
+
+    /**
+     * Endpoint to logout a user.
+     * @param Authorization - It contains JWT sessionToken of the user to logout.
+     * @param refreshTokenDTO - The RefreshTokenDTO object containing the refresh token to revoke, optional.
+     * @return ResponseEntity with logout message
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<ResponseDTO<?>> logout(@RequestHeader String Authorization, @RequestBody(required = false) RefreshTokenDTO refreshTokenDTO) {
+        String sessionToken = Authorization.substring(7);
+        log.info("Logging out user");
+        try {
+            String result = userAuthenticationService.logout(sessionToken, refreshTokenDTO == null ? null : refreshTokenDTO.getRefreshToken());
+            ResponseDTO<String> responseUserDTO = new ResponseDTO<String>("Logout successfully!!", result);
+            return new ResponseEntity<>(responseUserDTO, HttpStatus.OK);
+        } catch (UserException e) {
+            log.error("Error logging out user: {}", e.getMessage());
+            ResponseDTO<String> responseUserDTO = new ResponseDTO<String>("Logout failed!!", e.getMessage());
+            return new ResponseEntity<>(responseUserDTO, HttpStatus.BAD_REQUEST);
+        }
+    }
+
     /**
      * Endpoint to reset password for a user.
      * @param resetToken - The JWT resetToken of the user whose password is to be reset.
@@ -73,7 +114,7 @@ public class UserAuthenticationController {
      */
     @PostMapping("/reset-password")
     public ResponseEntity<ResponseDTO<?>> resetPassword(@RequestHeader String resetToken, @Valid @RequestBody ResetPasswordDTO resetPasswordDTO) {
-        log.info("Resetting password for user with resetToken: {}", resetToken);
+        log.info("Resetting password for user with resetToken: {}", LogRedactor.token(resetToken));
         try {
             if(!resetPasswordDTO.getNewPassword().equals(resetPasswordDTO.getConfirmPassword())) {
                 log.error("New password and confirm password do not match");
@@ -99,7 +140,7 @@ public class UserAuthenticationController {
      */
     @PostMapping("/forgot-password")
     public ResponseEntity<ResponseDTO<?>> forgotPassword(@Valid @RequestBody ForgotPasswordDTO forgotPasswordDTO) {
-        log.info("Processing forgot password for email: {}", forgotPasswordDTO.getEmail());
+        log.info("Processing forgot password for email: {}", LogRedactor.email(forgotPasswordDTO.getEmail()));
         try {
             String result = userAuthenticationService.forgotPassword(forgotPasswordDTO);
             ResponseDTO<String> responseUserDTO = new ResponseDTO<String>("Forgot password successfully!!", result);
@@ -121,7 +162,7 @@ public class UserAuthenticationController {
     @PostMapping("/change-password")
     public ResponseEntity<ResponseDTO<?>> changePassword(@RequestHeader String Authorization, @Valid @RequestBody ChangePasswordDTO changePasswordDTO) {
         String sessionToken = Authorization.substring(7);
-        log.info("Changing password for user with sessionToken: {}", sessionToken);
+        log.info("Changing password for user with sessionToken: {}", LogRedactor.token(sessionToken));
         try {
             if(!changePasswordDTO.getNewPassword().equals(changePasswordDTO.getConfirmPassword())) {
                 log.error("New password and confirm password do not match");
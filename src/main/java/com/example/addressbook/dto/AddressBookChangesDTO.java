@@ -0,0 +1,24 @@
+package com.example.addressbook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * AddressBookChangesDTO class for the delta-sync response.
+ * It contains the contacts created or updated since the client's cursor, the ids of
+ * contacts deleted since then, and the cursor to send with the next request.
+ * When fullResync is true the client must replace its local copy with the changed list.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AddressBookChangesDTO implements Serializable {
+    private List<AddressBookDTO> changed;
+    private List<Long> deletedIds;
+    private long cursor;
+    private boolean fullResync;
+}
@@ -23,6 +23,10 @@ import java.io.Serializable;
 @NoArgsConstructor
 public class AddressBookDTO implements Serializable {
 
+    // Server assigned id; a client supplied one is ignored by the write endpoints.
+    // Kept writable for Jackson so that JSON cached entries keep their id.
+    private Long id;
+
     @NotNull(message = "First name is required")
     @Size(min = 3, max = 30, message = "First name must be between 3 and 30 characters")
     @Pattern(regexp = "^[A-Z][a-zA-Z]*$", message = "First Name should always start with a capital letter and contain only letters")
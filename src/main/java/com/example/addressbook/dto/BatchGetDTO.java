@@ -0,0 +1,25 @@
+package com.example.addressbook.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * BatchGetDTO class for the batch get-by-ids request.
+ * It contains the ids of the address book entries to fetch in one call.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchGetDTO {
+
+    public static final int MAX_IDS = 100;
+
+    @NotEmpty(message = "At least one id is required")
+    @Size(max = MAX_IDS, message = "At most " + MAX_IDS + " ids can be fetched at once")
+    private List<Long> ids;
+}
@@ -0,0 +1,21 @@
+package com.example.addressbook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ContactEventDTO class to represent a change of an address book entry pushed to connected clients.
+ * The type is "created", "updated" or "deleted"; the contact is null for deletions.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContactEventDTO {
+
+    private String type;
+
+    private Long id;
+
+    private AddressBookDTO contact;
+}
@@ -0,0 +1,28 @@
+package com.example.addressbook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * ContactStatsDTO class for the admin statistics dashboard.
+ * The top users and email domains are ordered by contact count, highest first; the growth maps
+ * hold the net contacts (created minus deleted) and the users added per day (UTC, yyyy-MM-dd), oldest day first.
+ * reconciledAt is when the counters were last checked against the database, or null if never.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContactStatsDTO implements Serializable {
+    private long totalContacts;
+    private long totalUsers;
+    private double averageContactsPerUser;
+    private Map<Long, Long> topUsersByContacts;
+    private Map<String, Long> topEmailDomains;
+    private Map<String, Long> contactGrowthPerDay;
+    private Map<String, Long> userGrowthPerDay;
+    private String reconciledAt;
+}
@@ -0,0 +1,26 @@
+package com.example.addressbook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DuplicateSuggestionDTO class to represent a group of contacts that are likely the same person.
+ * The primary contact is the most complete one and the suggested survivor of a merge;
+ * the score is the highest pair similarity in the group, between 0 and 1.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DuplicateSuggestionDTO {
+
+    private Long primaryId;
+
+    private List<Long> duplicateIds;
+
+    private double score;
+
+    private List<AddressBookDTO> contacts;
+}
@@ -0,0 +1,19 @@
+package com.example.addressbook.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * RefreshTokenDTO class to represent the data transfer object for the refresh token functionality.
+ * This class contains the refresh token issued at login or by the previous refresh.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshTokenDTO {
+
+    @NotBlank(message = "Refresh token is required")
+    private String refreshToken;
+}
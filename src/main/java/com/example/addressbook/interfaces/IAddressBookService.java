@@ -1,9 +1,16 @@
 package com.example.addressbook.interfaces;
 
+import com.example.addressbook.dto.AddressBookChangesDTO;
 import com.example.addressbook.dto.AddressBookDTO;
+import com.example.addressbook.dto.DuplicateSuggestionDTO;
+import com.example.addressbook.util.ContactExportFormat;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Interface for Address Book Service.
@@ -12,8 +19,16 @@ import java.util.List;
 public interface IAddressBookService {
     List<AddressBookDTO> getMyAddressBookData(String authorization);
     AddressBookDTO getAddressBookDataById(String authorization, long id);
+    List<AddressBookDTO> getAddressBookDataByIds(String authorization, List<Long> ids);
     AddressBookDTO createAddressBookData(AddressBookDTO empPayrollDTO);
     boolean updateAddressBookData(long id, AddressBookDTO updatedAddressBookDTO);
     void deleteAddressBookData(long id);
     List<AddressBookDTO> getAllAddressBookData();
+    Stream<AddressBookDTO> streamAllAddressBookData();
+    AddressBookChangesDTO getAddressBookChanges(long since);
+    List<DuplicateSuggestionDTO> getDuplicateSuggestions();
+    SseEmitter streamAddressBookChanges();
+    StreamingResponseBody exportAddressBook(ContactExportFormat format, boolean gzip);
+    List<Map<String, Object>> getMyAddressBookFields(String fields);
+    Map<String, Object> getAddressBookFieldsById(long id, String fields);
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import com.example.addressbook.util.ChangeSequenceGenerator;
 
 import java.io.Serializable;
 
@@ -13,13 +14,14 @@ import java.io.Serializable;
  * This class is used to map the address book data to the database.
  * It contains fields for first name, last name, email, address, and phone number.
  * It also includes annotations for JPA entity mapping and validation.
+ * Every insert and update stamps a new change sequence, which the delta-sync API uses as its cursor.
  */
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "ADDRESS_BOOK")
+@Table(name = "ADDRESS_BOOK", indexes = @Index(name = "idx_address_book_user_sequence", columnList = "user_id, change_sequence"))
 @Builder
 public class AddressBook implements Serializable {
     @Id
@@ -42,4 +44,13 @@ public class AddressBook implements Serializable {
     @ManyToOne(fetch = FetchType.LAZY)  // Lazy loading to optimize performance.
     @JoinColumn(name = "user_id", nullable = false)  // Links contacts to a specific user
     private UserAuthentication user;
+
+    @Column(name = "change_sequence")
+    private Long changeSequence;
+
+    @PrePersist
+    @PreUpdate
+    void assignChangeSequence() {
+        changeSequence = ChangeSequenceGenerator.next();
+    }
 }
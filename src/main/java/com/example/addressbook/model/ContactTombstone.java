@@ -0,0 +1,32 @@
+package com.example.addressbook.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ContactTombstone entity class representing a deleted address book entry.
+ * A tombstone keeps the id and owner of a deleted contact for the retention period,
+ * so that delta-sync clients can learn about deletions made since their last cursor.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "CONTACT_TOMBSTONE", indexes = @Index(name = "idx_tombstone_user_sequence", columnList = "user_id, change_sequence"))
+public class ContactTombstone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(name = "contact_id", nullable = false)
+    private Long contactId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "change_sequence", nullable = false)
+    private Long changeSequence;
+}
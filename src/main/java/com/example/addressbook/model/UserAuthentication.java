@@ -41,4 +41,8 @@ public class UserAuthentication {
     private String role;
 
     private String resetToken;
+
+    // Carried in access tokens; incremented on password change or reset to invalidate every token issued before.
+    @Column(nullable = false)
+    private int tokenVersion;
 }
@@ -1,5 +1,6 @@
 package com.example.addressbook.repository;
 
+import com.example.addressbook.dto.AddressBookDTO;
 import com.example.addressbook.model.AddressBook;
 import com.example.addressbook.model.UserAuthentication;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -7,14 +8,16 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
  * AddressBookRepository is an interface that extends JpaRepository to provide CRUD operations for AddressBook entities.
  * It allows for easy interaction with the database without the need for boilerplate code.
+ * Column projections for sparse fieldsets come from AddressBookRepositoryCustom.
  */
 @Repository
-public interface AddressBookRepository extends JpaRepository<AddressBook, Long> {
+public interface AddressBookRepository extends JpaRepository<AddressBook, Long>, AddressBookRepositoryCustom {
 
     /**
      * Custom query to find address books by user ID.
@@ -24,4 +27,35 @@ public interface AddressBookRepository extends JpaRepository<AddressBook, Long>
      */
     @Query(value = "SELECT * FROM ADDRESS_BOOK WHERE user_id = :userId", nativeQuery = true)
     List<AddressBook> findByUser(Long userId);
+
+    /**
+     * Custom query to find the address books of a user changed after the given change sequence.
+     *
+     * @param userId the ID of the user
+     * @param since the change sequence the client has already seen
+     * @return a list of AddressBook entities ordered by change sequence
+     */
+    @Query(value = "SELECT * FROM ADDRESS_BOOK WHERE user_id = :userId AND change_sequence > :since ORDER BY change_sequence", nativeQuery = true)
+    List<AddressBook> findChangedSince(@Param("userId") Long userId, @Param("since") long since);
+
+    /**
+     * Custom query to find the address books of a user among the given IDs.
+     *
+     * @param ids the IDs of the address books
+     * @param userId the ID of the user
+     * @return a list of AddressBook entities owned by the user, in no particular order
+     */
+    @Query(value = "SELECT * FROM ADDRESS_BOOK WHERE id IN (:ids) AND user_id = :userId", nativeQuery = true)
+    List<AddressBook> findByIdsAndUser(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    /**
+     * Custom query to read the contacts of a user straight into AddressBookDTOs,
+     * without managed entities, for whole-book scans such as duplicate detection.
+     *
+     * @param userId the ID of the user
+     * @return a list of AddressBookDTO for every contact of the user
+     */
+    @Query("SELECT new com.example.addressbook.dto.AddressBookDTO(a.id, a.firstName, a.lastName, a.address, a.email, a.phoneNumber) "
+            + "FROM AddressBook a WHERE a.user.userId = :userId")
+    List<AddressBookDTO> findContactsByUser(@Param("userId") Long userId);
 }
@@ -0,0 +1,16 @@
+package com.example.addressbook.repository;
+
+import com.example.addressbook.util.ContactFieldSet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * AddressBookRepositoryCustom declares queries that select only a subset of the ADDRESS_BOOK columns.
+ * It is implemented by AddressBookRepositoryCustomImpl and exposed through AddressBookRepository.
+ */
+public interface AddressBookRepositoryCustom {
+    List<Map<String, Object>> findFieldsByUser(Long userId, ContactFieldSet fieldSet);
+    Optional<Map<String, Object>> findFieldsById(long id, Long userId, ContactFieldSet fieldSet);
+}
@@ -0,0 +1,52 @@
+package com.example.addressbook.repository;
+
+import com.example.addressbook.util.ContactFieldSet;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * AddressBookRepositoryCustomImpl runs projection queries that fetch only the requested columns.
+ * The column list comes from ContactFieldSet, which only accepts known field names,
+ * so it is safe to build the SELECT clause from it.
+ */
+public class AddressBookRepositoryCustomImpl implements AddressBookRepositoryCustom {
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFieldsByUser(Long userId, ContactFieldSet fieldSet) {
+        List<Tuple> rows = entityManager
+                .createNativeQuery("SELECT " + fieldSet.toSelectList() + " FROM ADDRESS_BOOK WHERE user_id = :userId", Tuple.class)
+                .setParameter("userId", userId)
+                .getResultList();
+        return rows.stream().map(row -> toMap(row, fieldSet)).toList();
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(long id, Long userId, ContactFieldSet fieldSet) {
+        List<Tuple> rows = entityManager
+                .createNativeQuery("SELECT " + fieldSet.toSelectList() + " FROM ADDRESS_BOOK WHERE id = :id AND user_id = :userId", Tuple.class)
+                .setParameter("id", id)
+                .setParameter("userId", userId)
+                .getResultList();
+        return rows.stream().findFirst().map(row -> toMap(row, fieldSet));
+    }
+
+    private Map<String, Object> toMap(Tuple row, ContactFieldSet fieldSet) {
+        Map<String, Object> contact = new LinkedHashMap<>();
+        List<String> fields = fieldSet.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            Object value = row.get(i);
+            // Normalise driver specific integer types so ids serialise the same as in AddressBookDTO.
+            contact.put(fields.get(i), value instanceof Number number && "id".equals(fields.get(i)) ? number.longValue() : value);
+        }
+        return contact;
+    }
+}
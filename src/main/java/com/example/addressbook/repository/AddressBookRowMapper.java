@@ -0,0 +1,47 @@
+package com.example.addressbook.repository;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * AddressBookRowMapper maps ADDRESS_BOOK rows straight to AddressBookDTO for JDBC scans,
+ * which skip the persistence context and ModelMapper.
+ */
+public class AddressBookRowMapper implements RowMapper<AddressBookDTO> {
+
+    public static final String TABLE = "ADDRESS_BOOK";
+
+    // In the order fromColumns expects
+    public static final String COLUMNS = "id, first_name, last_name, address, email, phone_number";
+
+    public static final String SELECT_ALL_ORDERED_BY_ID =
+            "SELECT id, first_name, last_name, address, email, phone_number FROM ADDRESS_BOOK ORDER BY id";
+
+    public static final String SELECT_BY_USER_ORDERED_BY_ID =
+            "SELECT id, first_name, last_name, address, email, phone_number FROM ADDRESS_BOOK WHERE user_id = ? ORDER BY id";
+
+    @Override
+    public AddressBookDTO mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        return new AddressBookDTO(
+                resultSet.getLong("id"),
+                resultSet.getString("first_name"),
+                resultSet.getString("last_name"),
+                resultSet.getString("address"),
+                resultSet.getString("email"),
+                resultSet.getString("phone_number"));
+    }
+
+    /**
+     * This method maps the column values of a row read with COLUMNS, as PartitionedTableScan returns them.
+     *
+     * @param row - The values of COLUMNS, in order
+     * @return AddressBookDTO - The mapped entry
+     */
+    public static AddressBookDTO fromColumns(Object[] row) {
+        return new AddressBookDTO(((Number) row[0]).longValue(), (String) row[1], (String) row[2],
+                (String) row[3], (String) row[4], (String) row[5]);
+    }
+}
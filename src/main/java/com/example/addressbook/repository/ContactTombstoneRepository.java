@@ -0,0 +1,40 @@
+package com.example.addressbook.repository;
+
+import com.example.addressbook.model.ContactTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * ContactTombstoneRepository is an interface that extends JpaRepository to provide CRUD operations for ContactTombstone entities.
+ * It is used by the delta-sync API to report deleted contacts and to compact old tombstones.
+ */
+@Repository
+public interface ContactTombstoneRepository extends JpaRepository<ContactTombstone, Long> {
+
+    /**
+     * Custom query to find the tombstones of a user recorded after the given change sequence.
+     *
+     * @param userId the ID of the user
+     * @param since the change sequence the client has already seen
+     * @return a list of ContactTombstone entities ordered by change sequence
+     */
+    @Query(value = "SELECT * FROM CONTACT_TOMBSTONE WHERE user_id = :userId AND change_sequence > :since ORDER BY change_sequence", nativeQuery = true)
+    List<ContactTombstone> findDeletedSince(@Param("userId") Long userId, @Param("since") long since);
+
+    /**
+     * Custom query to remove all tombstones recorded before the given change sequence.
+     *
+     * @param horizon the oldest change sequence to keep
+     * @return the number of removed tombstones
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM CONTACT_TOMBSTONE WHERE change_sequence < :horizon", nativeQuery = true)
+    int deleteOlderThan(@Param("horizon") long horizon);
+}
@@ -0,0 +1,138 @@
+package com.example.addressbook.repository;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import com.example.addressbook.model.AddressBook;
+import com.example.addressbook.model.UserAuthentication;
+import com.example.addressbook.util.ChangeSequenceGenerator;
+import com.example.addressbook.util.ContactFieldSet;
+import com.example.addressbook.util.LogStructuredStore;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * LogStructuredAddressBookRepository keeps contacts in a LogStructuredStore, indexed by owner.
+ * The owner of a stored contact is a UserAuthentication with only the userId set,
+ * like the lazy reference JPA returns.
+ */
+public class LogStructuredAddressBookRepository extends LogStructuredRepository<AddressBook> implements AddressBookRepository {
+
+    static final LogStructuredStore.Codec<AddressBook> CODEC = new LogStructuredStore.Codec<>() {
+        @Override
+        public void write(DataOutput out, AddressBook addressBook) throws IOException {
+            out.writeLong(addressBook.getId());
+            writeNullable(out, addressBook.getFirstName());
+            writeNullable(out, addressBook.getLastName());
+            writeNullable(out, addressBook.getEmail());
+            writeNullable(out, addressBook.getAddress());
+            writeNullable(out, addressBook.getPhoneNumber());
+            writeNullable(out, ownerOf(addressBook));
+            writeNullable(out, addressBook.getChangeSequence());
+        }
+
+        @Override
+        public AddressBook read(DataInput in) throws IOException {
+            AddressBook addressBook = new AddressBook();
+            addressBook.setId(in.readLong());
+            addressBook.setFirstName(readNullable(in));
+            addressBook.setLastName(readNullable(in));
+            addressBook.setEmail(readNullable(in));
+            addressBook.setAddress(readNullable(in));
+            addressBook.setPhoneNumber(readNullable(in));
+            Long userId = readNullableLong(in);
+            if (userId != null) {
+                UserAuthentication user = new UserAuthentication();
+                user.setUserId(userId);
+                addressBook.setUser(user);
+            }
+            addressBook.setChangeSequence(readNullableLong(in));
+            return addressBook;
+        }
+    };
+
+    public LogStructuredAddressBookRepository(Path directory, int segmentCapacity, boolean syncWrites, double compactionGarbageRatio) throws IOException {
+        super(new LogStructuredStore<>(directory, CODEC, addressBook -> String.valueOf(ownerOf(addressBook)), segmentCapacity, syncWrites),
+                compactionGarbageRatio);
+    }
+
+    private static Long ownerOf(AddressBook addressBook) {
+        return addressBook.getUser() == null ? null : addressBook.getUser().getUserId();
+    }
+
+    @Override
+    protected Long idOf(AddressBook addressBook) {
+        return addressBook.getId();
+    }
+
+    @Override
+    protected void assignId(AddressBook addressBook, Long id) {
+        addressBook.setId(id);
+    }
+
+    @Override
+    protected void beforeSave(AddressBook addressBook) {
+        addressBook.setChangeSequence(ChangeSequenceGenerator.next());
+    }
+
+    @Override
+    public List<AddressBook> findByUser(Long userId) {
+        return read(store.idsFor(String.valueOf(userId)));
+    }
+
+    @Override
+    public List<AddressBook> findChangedSince(Long userId, long since) {
+        List<AddressBook> changed = new ArrayList<>(findByUser(userId));
+        changed.removeIf(addressBook -> addressBook.getChangeSequence() == null || addressBook.getChangeSequence() <= since);
+        changed.sort(Comparator.comparing(AddressBook::getChangeSequence));
+        return changed;
+    }
+
+    @Override
+    public List<AddressBook> findByIdsAndUser(Collection<Long> ids, Long userId) {
+        List<AddressBook> found = new ArrayList<>();
+        for (Long id : ids) {
+            AddressBook addressBook = store.get(id);
+            if (addressBook != null && Objects.equals(ownerOf(addressBook), userId))
+                found.add(addressBook);
+        }
+        return found;
+    }
+
+    @Override
+    public List<AddressBookDTO> findContactsByUser(Long userId) {
+        return findByUser(userId).stream()
+                .map(addressBook -> new AddressBookDTO(addressBook.getId(), addressBook.getFirstName(), addressBook.getLastName(),
+                        addressBook.getAddress(), addressBook.getEmail(), addressBook.getPhoneNumber()))
+                .toList();
+    }
+
+    @Override
+    public List<Map<String, Object>> findFieldsByUser(Long userId, ContactFieldSet fieldSet) {
+        return findByUser(userId).stream().map(addressBook -> toMap(addressBook, fieldSet)).toList();
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(long id, Long userId, ContactFieldSet fieldSet) {
+        return findById(id)
+                .filter(addressBook -> Objects.equals(ownerOf(addressBook), userId))
+                .map(addressBook -> toMap(addressBook, fieldSet));
+    }
+
+    private Map<String, Object> toMap(AddressBook addressBook, ContactFieldSet fieldSet) {
+        Map<String, Object> contact = new LinkedHashMap<>();
+        for (String field : fieldSet.getFields()) {
+            contact.put(field, switch (field) {
+                case "id" -> addressBook.getId();
+                case "firstName" -> addressBook.getFirstName();
+                case "lastName" -> addressBook.getLastName();
+                case "email" -> addressBook.getEmail();
+                case "address" -> addressBook.getAddress();
+                default -> addressBook.getPhoneNumber();
+            });
+        }
+        return contact;
+    }
+}
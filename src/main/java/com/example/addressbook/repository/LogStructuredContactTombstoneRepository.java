@@ -0,0 +1,67 @@
+package com.example.addressbook.repository;
+
+import com.example.addressbook.model.ContactTombstone;
+import com.example.addressbook.util.LogStructuredStore;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * LogStructuredContactTombstoneRepository keeps the tombstones of deleted contacts in a LogStructuredStore,
+ * indexed by owner.
+ */
+public class LogStructuredContactTombstoneRepository extends LogStructuredRepository<ContactTombstone> implements ContactTombstoneRepository {
+
+    static final LogStructuredStore.Codec<ContactTombstone> CODEC = new LogStructuredStore.Codec<>() {
+        @Override
+        public void write(DataOutput out, ContactTombstone tombstone) throws IOException {
+            out.writeLong(tombstone.getId());
+            out.writeLong(tombstone.getContactId());
+            out.writeLong(tombstone.getUserId());
+            out.writeLong(tombstone.getChangeSequence());
+        }
+
+        @Override
+        public ContactTombstone read(DataInput in) throws IOException {
+            return new ContactTombstone(in.readLong(), in.readLong(), in.readLong(), in.readLong());
+        }
+    };
+
+    public LogStructuredContactTombstoneRepository(Path directory, int segmentCapacity, boolean syncWrites, double compactionGarbageRatio) throws IOException {
+        super(new LogStructuredStore<>(directory, CODEC, tombstone -> String.valueOf(tombstone.getUserId()), segmentCapacity, syncWrites),
+                compactionGarbageRatio);
+    }
+
+    @Override
+    protected Long idOf(ContactTombstone tombstone) {
+        return tombstone.getId();
+    }
+
+    @Override
+    protected void assignId(ContactTombstone tombstone, Long id) {
+        tombstone.setId(id);
+    }
+
+    @Override
+    public List<ContactTombstone> findDeletedSince(Long userId, long since) {
+        List<ContactTombstone> deleted = new ArrayList<>(read(store.idsFor(String.valueOf(userId))));
+        deleted.removeIf(tombstone -> tombstone.getChangeSequence() <= since);
+        deleted.sort(Comparator.comparing(ContactTombstone::getChangeSequence));
+        return deleted;
+    }
+
+    @Override
+    public int deleteOlderThan(long horizon) {
+        int removed = 0;
+        for (ContactTombstone tombstone : findAll()) {
+            if (tombstone.getChangeSequence() < horizon && store.delete(tombstone.getId()))
+                removed++;
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.addressbook.repository;
+
+import com.example.addressbook.util.LogStructuredStore;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * LogStructuredRepository implements the JpaRepository operations used by the services on top of
+ * a LogStructuredStore, so the embedded store can stand in for the database without changes to them.
+ * Entities are stored by value: a save writes the entity as it is, and reads return fresh copies.
+ * Query by example, paging and sorting are not supported.
+ */
+@Slf4j
+public abstract class LogStructuredRepository<T> implements JpaRepository<T, Long>, AutoCloseable {
+
+    protected final LogStructuredStore<T> store;
+    private final double compactionGarbageRatio;
+
+    protected LogStructuredRepository(LogStructuredStore<T> store, double compactionGarbageRatio) {
+        this.store = store;
+        this.compactionGarbageRatio = compactionGarbageRatio;
+    }
+
+    protected abstract Long idOf(T entity);
+
+    protected abstract void assignId(T entity, Long id);
+
+    /**
+     * This method prepares an entity for writing, as the JPA lifecycle callbacks would.
+     *
+     * @param entity - The entity about to be stored
+     */
+    protected void beforeSave(T entity) {
+    }
+
+    /**
+     * This method reads the entities with the given ids, skipping ids deleted in the meantime.
+     *
+     * @param ids - The ids to read
+     * @return List<T> - The entities, in the order of the ids
+     */
+    protected List<T> read(long[] ids) {
+        List<T> entities = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            T entity = store.get(id);
+            if (entity != null)
+                entities.add(entity);
+        }
+        return entities;
+    }
+
+    /**
+     * This method compacts the store once enough of it is garbage.
+     * It is called on a schedule by EdgeStorageConfig.
+     */
+    public void compact() {
+        try {
+            store.compact(compactionGarbageRatio);
+        } catch (IOException e) {
+            log.error("Compaction failed, the store keeps its current segments: {}", e.getMessage());
+        }
+    }
+
+    public LogStructuredStore<T> getStore() {
+        return store;
+    }
+
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        if (idOf(entity) == null)
+            assignId(entity, store.nextId());
+        beforeSave(entity);
+        store.put(idOf(entity), entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            saved.add(save(entity));
+        }
+        return saved;
+    }
+
+    @Override
+    public <S extends T> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends T> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public void flush() {
+        // Every write is appended to the log as it happens
+    }
+
+    @Override
+    public Optional<T> findById(Long id) {
+        return Optional.ofNullable(store.get(id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return store.contains(id);
+    }
+
+    @Override
+    public List<T> findAll() {
+        return read(store.ids());
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<Long> ids) {
+        List<T> entities = new ArrayList<>();
+        for (Long id : ids) {
+            findById(id).ifPresent(entities::add);
+        }
+        return entities;
+    }
+
+    @Override
+    public long count() {
+        return store.size();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        store.delete(id);
+    }
+
+    @Override
+    public void delete(T entity) {
+        if (idOf(entity) != null)
+            store.delete(idOf(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        for (Long id : ids) {
+            store.delete(id);
+        }
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        for (T entity : entities) {
+            delete(entity);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        for (long id : store.ids()) {
+            store.delete(id);
+        }
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<T> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    @Deprecated
+    public T getOne(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public T getById(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public T getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("No entity found with id: " + id));
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        if (sort.isSorted())
+            throw unsupported("Sorting");
+        return findAll();
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        throw unsupported("Paging");
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        throw unsupported("Query by example");
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        throw unsupported("Query by example");
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        throw unsupported("Query by example");
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw unsupported("Query by example");
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        throw unsupported("Query by example");
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        throw unsupported("Query by example");
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw unsupported("Query by example");
+    }
+
+    protected static void writeNullable(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeUTF(value);
+    }
+
+    protected static String readNullable(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    protected static void writeNullable(DataOutput out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeLong(value);
+    }
+
+    protected static Long readNullableLong(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static UnsupportedOperationException unsupported(String operation) {
+        return new UnsupportedOperationException(operation + " is not supported by the embedded log-structured store");
+    }
+}
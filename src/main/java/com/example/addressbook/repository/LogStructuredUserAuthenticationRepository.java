@@ -0,0 +1,91 @@
+package com.example.addressbook.repository;
+
+import com.example.addressbook.model.UserAuthentication;
+import com.example.addressbook.util.LogStructuredStore;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * LogStructuredUserAuthenticationRepository keeps accounts in a LogStructuredStore, indexed by email.
+ * Emails are matched case-insensitively and must be unique, as in the ACCOUNTS table.
+ */
+public class LogStructuredUserAuthenticationRepository extends LogStructuredRepository<UserAuthentication> implements UserAuthenticationRepository {
+
+    static final LogStructuredStore.Codec<UserAuthentication> CODEC = new LogStructuredStore.Codec<>() {
+        @Override
+        public void write(DataOutput out, UserAuthentication user) throws IOException {
+            out.writeLong(user.getUserId());
+            writeNullable(out, user.getFirstName());
+            writeNullable(out, user.getLastName());
+            writeNullable(out, user.getEmail());
+            writeNullable(out, user.getPassword());
+            writeNullable(out, user.getSessionToken());
+            writeNullable(out, user.getRole());
+            writeNullable(out, user.getResetToken());
+            out.writeInt(user.getTokenVersion());
+        }
+
+        @Override
+        public UserAuthentication read(DataInput in) throws IOException {
+            return new UserAuthentication(in.readLong(), readNullable(in), readNullable(in), readNullable(in), readNullable(in),
+                    readNullable(in), readNullable(in), readNullable(in), in.readInt());
+        }
+    };
+
+    public LogStructuredUserAuthenticationRepository(Path directory, int segmentCapacity, boolean syncWrites, double compactionGarbageRatio) throws IOException {
+        super(new LogStructuredStore<>(directory, CODEC, LogStructuredUserAuthenticationRepository::emailKey, segmentCapacity, syncWrites),
+                compactionGarbageRatio);
+    }
+
+    private static String emailKey(UserAuthentication user) {
+        return user.getEmail() == null ? null : user.getEmail().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    protected Long idOf(UserAuthentication user) {
+        return user.getUserId();
+    }
+
+    @Override
+    protected void assignId(UserAuthentication user, Long id) {
+        user.setUserId(id);
+    }
+
+    // Serialized so that two registrations with the same email cannot both pass the uniqueness check
+    @Override
+    public synchronized <S extends UserAuthentication> S save(S user) {
+        for (long id : store.idsFor(emailKey(user))) {
+            if (!Long.valueOf(id).equals(user.getUserId()))
+                throw new DataIntegrityViolationException("Duplicate entry '" + user.getEmail() + "' for key 'email'");
+        }
+        return super.save(user);
+    }
+
+    @Override
+    public Optional<UserAuthentication> findByEmail(String email) {
+        long[] ids = email == null ? new long[0] : store.idsFor(email.toLowerCase(Locale.ROOT));
+        return ids.length == 0 ? Optional.empty() : findById(ids[0]);
+    }
+
+    @Override
+    public UserAuthentication findByResetToken(String resetToken) {
+        return findAll().stream().filter(user -> resetToken.equals(user.getResetToken())).findFirst().orElse(null);
+    }
+
+    @Override
+    public List<String> findAllEmails() {
+        return findAll().stream().map(UserAuthentication::getEmail).toList();
+    }
+
+    @Override
+    public Optional<Integer> findTokenVersion(Long userId) {
+        return findById(userId).map(UserAuthentication::getTokenVersion);
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -17,4 +18,10 @@ public interface UserAuthenticationRepository extends JpaRepository<UserAuthenti
     @Query(value = "SELECT * FROM ACCOUNTS WHERE EMAIL = :email", nativeQuery = true)
     Optional<UserAuthentication> findByEmail(@Param("email") String email);
     UserAuthentication findByResetToken(String resetToken);
+
+    @Query(value = "SELECT EMAIL FROM ACCOUNTS", nativeQuery = true)
+    List<String> findAllEmails();
+
+    @Query(value = "SELECT token_version FROM ACCOUNTS WHERE user_id = :userId", nativeQuery = true)
+    Optional<Integer> findTokenVersion(@Param("userId") Long userId);
 }
@@ -0,0 +1,181 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import com.example.addressbook.model.UserAuthentication;
+import com.example.addressbook.repository.AddressBookRepository;
+import com.example.addressbook.util.TokenBucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * AddressBookCacheWarmer prefetches a user's address book into addressBookCache right after login,
+ * so the first list request of the session is served from Redis instead of the database.
+ * Warm-ups run on a small bounded executor and are rate limited, so a login storm cannot turn into a database storm.
+ */
+@Service
+public class AddressBookCacheWarmer {
+
+    // Only this many logins are tracked for the first-read metric at once.
+    private static final int MAX_TRACKED_FIRST_READS = 10_000;
+
+    // A login awaiting its first list read, and whether the cache was warmed for it
+    private record FirstRead(boolean warmed, long trackedAt) {
+    }
+
+    @Autowired
+    AddressBookRepository addressBookRepository;
+
+    @Autowired
+    ModelMapper modelMapper;
+
+    @Autowired
+    RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    ShardRouter shardRouter;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${addressbook.cache.ttl:10m}")
+    Duration cacheTtl;
+
+    @Value("${addressbook.cache-warmup.enabled:true}")
+    boolean enabled;
+
+    @Value("${addressbook.cache-warmup.max-per-second:20}")
+    double maxPerSecond;
+
+    @Value("${addressbook.cache-warmup.threads:2}")
+    int threads;
+
+    @Value("${addressbook.cache-warmup.queue-capacity:100}")
+    int queueCapacity;
+
+    Executor executor;
+    private TokenBucket tokenBucket;
+
+    // Logins of users who never list are dropped after the cache TTL, when a warmed entry would have expired anyway
+    private final Map<String, FirstRead> awaitingFirstRead = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-warmup");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        tokenBucket = new TokenBucket(maxPerSecond, maxPerSecond);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ExecutorService pool)
+            pool.shutdownNow();
+    }
+
+    /**
+     * This method returns the addressBookCache key of a user's address book list.
+     *
+     * @param email - The email of the user
+     * @return String - The Redis key
+     */
+    public static String listCacheKey(String email) {
+        return "addressBookCache::" + email;
+    }
+
+    /**
+     * This method schedules a warm-up of the user's address book list.
+     * It never blocks the login: when the rate limit or the queue is exhausted the warm-up is dropped.
+     *
+     * @param user - The user who just logged in
+     */
+    public void warmUp(UserAuthentication user) {
+        if (!enabled)
+            return;
+        if (awaitingFirstRead.size() < MAX_TRACKED_FIRST_READS)
+            awaitingFirstRead.put(user.getEmail(), new FirstRead(false, System.nanoTime()));
+        if (!tokenBucket.tryConsume()) {
+            count("throttled");
+            return;
+        }
+        try {
+            executor.execute(() -> load(user));
+        } catch (RejectedExecutionException e) {
+            count("rejected");
+        }
+    }
+
+    private void load(UserAuthentication user) {
+        String key = listCacheKey(user.getEmail());
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+                count("skipped");
+                markWarmed(user.getEmail());
+                return;
+            }
+            List<AddressBookDTO> addressBooks = shardRouter.onShardOf(user.getUserId(), true, () ->
+                    addressBookRepository.findByUser(user.getUserId()).stream()
+                            .map(addressBook -> modelMapper.map(addressBook, AddressBookDTO.class))
+                            .toList());
+            // Never overwrite an entry a request has populated in the meantime
+            redisTemplate.opsForValue().setIfAbsent(key, addressBooks, cacheTtl);
+            count("warmed");
+            markWarmed(user.getEmail());
+        } catch (RuntimeException e) {
+            count("failed");
+        }
+    }
+
+    private void markWarmed(String email) {
+        awaitingFirstRead.computeIfPresent(email, (key, firstRead) -> new FirstRead(true, firstRead.trackedAt()));
+    }
+
+    /**
+     * This method records the latency of the first list read after login, tagged by whether it was warmed,
+     * so the effect of warm-up shows up as addressbook.contacts.first_read{warmed=true|false}.
+     *
+     * @param email - The email of the user
+     * @param nanos - The latency of the read in nanoseconds
+     */
+    public void recordFirstRead(String email, long nanos) {
+        FirstRead firstRead = awaitingFirstRead.remove(email);
+        if (firstRead != null && !isExpired(firstRead, System.nanoTime()))
+            meterRegistry.timer("addressbook.contacts.first_read", "warmed", Boolean.toString(firstRead.warmed()))
+                    .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * This method drops the logins whose user has not listed within the cache TTL, freeing their place for new logins.
+     */
+    @Scheduled(fixedDelayString = "${addressbook.cache-warmup.first-read-sweep-interval-ms:60000}")
+    public void sweepFirstReads() {
+        sweepFirstReads(System.nanoTime());
+    }
+
+    void sweepFirstReads(long now) {
+        awaitingFirstRead.values().removeIf(firstRead -> isExpired(firstRead, now));
+    }
+
+    private boolean isExpired(FirstRead firstRead, long now) {
+        return now - firstRead.trackedAt() > cacheTtl.toNanos();
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("addressbook.cache.warmup", "result", result).increment();
+    }
+}
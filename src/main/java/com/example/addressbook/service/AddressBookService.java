@@ -1,31 +1,57 @@
 package com.example.addressbook.service;
 
+import com.example.addressbook.dto.AddressBookChangesDTO;
 import com.example.addressbook.dto.AddressBookDTO;
+import com.example.addressbook.dto.BatchGetDTO;
+import com.example.addressbook.dto.DuplicateSuggestionDTO;
 import com.example.addressbook.interfaces.IAddressBookService;
 import com.example.addressbook.model.AddressBook;
+import com.example.addressbook.model.ContactTombstone;
 import com.example.addressbook.model.UserAuthentication;
 import com.example.addressbook.repository.AddressBookRepository;
+import com.example.addressbook.repository.AddressBookRowMapper;
 import com.example.addressbook.repository.UserAuthenticationRepository;
+import com.example.addressbook.util.AuthenticatedUser;
+import com.example.addressbook.util.ChangeSequenceGenerator;
+import com.example.addressbook.util.ContactExportFormat;
+import com.example.addressbook.util.ContactFieldSet;
 import com.example.addressbook.util.JwtToken;
+import com.example.addressbook.util.RedisCircuitBreaker;
 import com.example.addressbook.util.SecurityUtil;
-import org.hibernate.annotations.Cache;
 import jakarta.servlet.http.HttpServletRequest;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * AddressBookService class implements IAddressBookService interface
  * and provides the implementation for the methods defined in the interface.
+ * Read methods are read-only transactions, so they can be served by a read replica when routing is enabled.
  */
 @Service
 public class AddressBookService implements IAddressBookService {
@@ -45,6 +71,47 @@ public class AddressBookService implements IAddressBookService {
     @Autowired
     JwtToken jwtToken; // JWT token for authentication
 
+    @Autowired
+    ContactTombstoneService contactTombstoneService; // Records deleted contacts for delta-sync clients
+
+    @Autowired
+    ShardRouter shardRouter; // Runs contact queries on the shard that owns the user's contacts
+
+    @Autowired
+    NegativeLookupCache negativeLookupCache; // Answers lookups of recently missing contact ids without a query
+
+    @Autowired
+    RedisCircuitBreaker redisCircuitBreaker; // Skips direct Redis calls while Redis is failing
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    ContactDeduplicationService contactDeduplicationService; // Finds likely duplicate contacts
+
+    @Autowired
+    ContactEventService contactEventService; // Pushes contact changes to the owner's open event streams
+
+    @Autowired
+    ContactExportService contactExportService; // Streams a user's contacts as CSV or vCard
+
+    @Autowired
+    ContactStatsService contactStatsService; // Keeps the admin dashboard counters up to date
+
+    // Reads the whole table for admins in id-range partitions over several connections (see ShardRouter).
+    @Value("${addressbook.admin-scan.partitioned:false}")
+    boolean partitionedAdminScan;
+
+    // Changes newer than this may still be committing, so the returned cursor never moves past them.
+    private static final Duration SYNC_SETTLE_WINDOW = Duration.ofSeconds(5);
+
+    // Batch get entries live in addressBookCache, so creating or deleting a contact clears them too.
+    private static final String CONTACT_CACHE_KEY_PREFIX = "addressBookCache::";
+
+    // The owner and email of a deleted contact, read before the delete.
+    private record DeletedContact(Long ownerId, String email) {
+    }
+
     /**
      * This method retrieves all address book entries from the database.
      * It maps each AddressBook entity to AddressBookDTO and returns a list of AddressBookDTO.
@@ -52,34 +119,21 @@ public class AddressBookService implements IAddressBookService {
      * @return List<AddressBookDTO> - List of AddressBookDTO
      */
     @Override
-    @Cacheable(value = "addressBookCache")
+    @Transactional(readOnly = true)
+    @Cacheable(value = "addressBookCache", key = "T(com.example.addressbook.util.SecurityUtil).getAuthenticatedUserEmail()", sync = true)
     public List<AddressBookDTO> getMyAddressBookData(String authorization) {
-        Date expiryDate;
-        if (authorization == null || !authorization.startsWith("Bearer ")) {
-            Calendar calendar = Calendar.getInstance();
-
-            // Add 1 minute to current time
-            calendar.add(Calendar.MINUTE, 1);
-
-            // Generate the new date
-            expiryDate = calendar.getTime();
-        } else {
-            String sessionToken = authorization.substring(7);
-            // Decode JWT to get expiration
-            expiryDate = jwtToken.getTokenExpiry(sessionToken);
-        }
-        long ttl = calculateTTL(expiryDate);
+        long ttl = calculateTTL(resolveCacheExpiry(authorization));
 
         // Manually set TTL in Redis
-        redisTemplate.expire("addressBookCache", ttl, TimeUnit.SECONDS);
+        redisCircuitBreaker.call(() -> redisTemplate.expire("addressBookCache", ttl, TimeUnit.SECONDS), false);
 
-        String email = SecurityUtil.getAuthenticatedUserEmail();
-        UserAuthentication user = userAuthenticationRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
-        List<AddressBook> addressBooksLists = addressBookRepository.findByUser(user.getUserId()); // Fetch address books by email
-        return addressBooksLists.stream()
-                .map(addressBook -> modelMapper.map(addressBook, AddressBookDTO.class))
-                .toList();
+        AuthenticatedUser user = currentUser();
+        return shardRouter.onShardOf(user.getUserId(), true, () -> {
+            List<AddressBook> addressBooksLists = addressBookRepository.findByUser(user.getUserId()); // Fetch address books by email
+            return addressBooksLists.stream()
+                    .map(addressBook -> modelMapper.map(addressBook, AddressBookDTO.class))
+                    .toList();
+        });
     }
 
     /**
@@ -90,9 +144,98 @@ public class AddressBookService implements IAddressBookService {
      * @return AddressBookDTO - The address book entry with the specified ID
      */
     @Override
-    @Cacheable(value = "addressBookCache", key = "#id")
+    @Transactional(readOnly = true)
+    @Cacheable(value = "addressBookCache", key = "#id", sync = true)
     public AddressBookDTO getAddressBookDataById(String authorization, long id) {
-        Date expiryDate;
+        long ttl = calculateTTL(resolveCacheExpiry(authorization));
+        // Manually set TTL in Redis
+        redisCircuitBreaker.call(() -> redisTemplate.expire("addressBookCache::" + id, ttl, TimeUnit.SECONDS), false);
+
+
+        AuthenticatedUser user = currentUser();
+        if (negativeLookupCache.isKnownMissingContact(user.getUserId(), id)) {
+            throw new RuntimeException("Address Data not found with id: " + id);
+        }
+        return shardRouter.onShardOf(user.getUserId(), true, () -> {
+            AddressBook addressBook = addressBookRepository.findById(id).orElseThrow(() -> {
+                negativeLookupCache.recordMissingContact(user.getUserId(), id);
+                return new RuntimeException("Address Data not found with id: " + id);
+            });
+            if(!Objects.equals(addressBook.getUser().getUserId(), user.getUserId())) {
+                throw new RuntimeException("Can't Access Address Book Data with id: " + id + ". You are not the owner of that data");
+            }
+            return modelMapper.map(addressBook, AddressBookDTO.class);
+        });
+    }
+
+    /**
+     * This method retrieves several address book entries of the authenticated user in one call.
+     * All ids are looked up with a single Redis MGET, the misses with a single database query,
+     * and the loaded entries are written back to Redis in one pipeline.
+     * Ids that do not exist or belong to another user are left out.
+     *
+     * @param ids - The IDs of the address book entries
+     * @return List<AddressBookDTO> - The entries found, in the order of the requested ids
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<AddressBookDTO> getAddressBookDataByIds(String authorization, List<Long> ids) {
+        List<Long> requestedIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (requestedIds.size() > BatchGetDTO.MAX_IDS) {
+            throw new RuntimeException("At most " + BatchGetDTO.MAX_IDS + " ids can be fetched at once");
+        }
+        AuthenticatedUser user = currentUser();
+        Long userId = user.getUserId();
+
+        List<String> keys = requestedIds.stream().map(id -> CONTACT_CACHE_KEY_PREFIX + contactCacheEntry(userId, id)).toList();
+        // With Redis unavailable every id is a miss and is read from the database
+        List<Object> cached = redisCircuitBreaker.call(() -> redisTemplate.opsForValue().multiGet(keys), null);
+
+        Map<Long, AddressBookDTO> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (int i = 0; i < requestedIds.size(); i++) {
+            Object value = cached == null ? null : cached.get(i);
+            if (value instanceof AddressBookDTO addressBookDTO)
+                found.put(requestedIds.get(i), addressBookDTO);
+            else
+                misses.add(requestedIds.get(i));
+        }
+
+        if (!misses.isEmpty()) {
+            List<AddressBookDTO> loaded = shardRouter.onShardOf(userId, true, () ->
+                    addressBookRepository.findByIdsAndUser(misses, userId).stream()
+                            .map(addressBook -> modelMapper.map(addressBook, AddressBookDTO.class))
+                            .toList());
+            loaded.forEach(addressBookDTO -> found.put(addressBookDTO.getId(), addressBookDTO));
+            backfillContactCache(userId, loaded, calculateTTL(resolveCacheExpiry(authorization)));
+        }
+
+        return requestedIds.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    private void backfillContactCache(Long userId, List<AddressBookDTO> addressBooks, long ttl) {
+        if (addressBooks.isEmpty() || ttl <= 0)
+            return;
+        // The response is already complete, a failed backfill only costs a later miss
+        redisCircuitBreaker.call(() -> redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                ValueOperations<String, Object> values = ((RedisOperations<String, Object>) operations).opsForValue();
+                for (AddressBookDTO addressBookDTO : addressBooks) {
+                    values.set(CONTACT_CACHE_KEY_PREFIX + contactCacheEntry(userId, addressBookDTO.getId()), addressBookDTO, ttl, TimeUnit.SECONDS);
+                }
+                return null;
+            }
+        }), null);
+    }
+
+    // Owner scoped, so one user's batch can never be answered from another user's entry
+    private static String contactCacheEntry(Long userId, Long id) {
+        return "contact:" + userId + ":" + id;
+    }
+
+    private Date resolveCacheExpiry(String authorization) {
         if (authorization == null || !authorization.startsWith("Bearer ")) {
             Calendar calendar = Calendar.getInstance();
 
@@ -100,25 +243,61 @@ public class AddressBookService implements IAddressBookService {
             calendar.add(Calendar.MINUTE, 1);
 
             // Generate the new date
-            expiryDate = calendar.getTime();
-        } else {
-            String sessionToken = authorization.substring(7);
-            // Decode JWT to get expiration
-            expiryDate = jwtToken.getTokenExpiry(sessionToken);
+            return calendar.getTime();
         }
-        long ttl = calculateTTL(expiryDate);
-        // Manually set TTL in Redis
-        redisTemplate.expire("addressBookCache::" + id, ttl, TimeUnit.SECONDS);
+        String sessionToken = authorization.substring(7);
+        // Decode JWT to get expiration
+        return jwtToken.getTokenExpiry(sessionToken);
+    }
+
+    /**
+     * This method finds contacts of the authenticated user that are likely duplicates of each other.
+     *
+     * @return List<DuplicateSuggestionDTO> - Merge suggestions, most similar first
+     */
+    @Override
+    public List<DuplicateSuggestionDTO> getDuplicateSuggestions() {
+        return contactDeduplicationService.findDuplicates(currentUser().getUserId());
+    }
+
+    /**
+     * This method opens a Server-Sent Events stream of the authenticated user's contact changes.
+     *
+     * @return SseEmitter - The event stream
+     */
+    @Override
+    public SseEmitter streamAddressBookChanges() {
+        return contactEventService.subscribe(currentUser().getUserId());
+    }
 
+    /**
+     * This method prepares a streaming export of the authenticated user's address book.
+     * The user is resolved now, on the request thread; the rows are read while the body is written.
+     *
+     * @param format - The export format
+     * @param gzip   - true to gzip the output
+     * @return StreamingResponseBody - Writes the export to the response
+     */
+    @Override
+    public StreamingResponseBody exportAddressBook(ContactExportFormat format, boolean gzip) {
+        Long userId = currentUser().getUserId();
+        return outputStream -> contactExportService.export(userId, format, gzip, outputStream);
+    }
 
+    /**
+     * This method returns the authenticated user from the access token claims.
+     * Only requests authenticated without a claims-bearing token fall back to loading the account.
+     *
+     * @return AuthenticatedUser - The authenticated user
+     */
+    private AuthenticatedUser currentUser() {
+        AuthenticatedUser authenticatedUser = SecurityUtil.getAuthenticatedUser();
+        if (authenticatedUser != null)
+            return authenticatedUser;
         String email = SecurityUtil.getAuthenticatedUserEmail();
         UserAuthentication user = userAuthenticationRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
-        AddressBook addressBook = addressBookRepository.findById(id).orElseThrow(() -> new RuntimeException("Address Data not found with id: " + id));
-        if(!Objects.equals(addressBook.getUser().getUserId(), user.getUserId())) {
-            throw new RuntimeException("Can't Access Address Book Data with id: " + id + ". You are not the owner of that data");
-        }
-        return modelMapper.map(addressBook, AddressBookDTO.class);
+        return new AuthenticatedUser(user.getUserId(), user.getEmail(), user.getRole(), user.getTokenVersion());
     }
 
     private long calculateTTL(Date expiryDate) {
@@ -135,17 +314,26 @@ public class AddressBookService implements IAddressBookService {
      * @return AddressBookDTO - The created address book entry
      */
     @Override
-    @CacheEvict(value = "addressBookCache", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = "addressBookCache", allEntries = true),
+            @CacheEvict(value = "addressBookFieldsCache", allEntries = true)
+    })
     public AddressBookDTO createAddressBookData(AddressBookDTO addressBookDTO) {
-        String email = SecurityUtil.getAuthenticatedUserEmail();
-        UserAuthentication user = userAuthenticationRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
+        AuthenticatedUser user = currentUser();
 
+        addressBookDTO.setId(null); // The id is assigned on save, never taken from the request
         AddressBook addressBook = modelMapper.map(addressBookDTO, AddressBook.class);
-        addressBook.setUser(user);
+        addressBook.setUser(userAuthenticationRepository.getReferenceById(user.getUserId()));
 
-        addressBook = addressBookRepository.save(addressBook); // Save the address book entry to the database
-        return modelMapper.map(addressBook, AddressBookDTO.class);
+        AddressBookDTO createdAddressBookDTO = shardRouter.onShardOf(user.getUserId(), false, () -> {
+            AddressBook savedAddressBook = addressBookRepository.save(addressBook); // Save the address book entry to the database
+            negativeLookupCache.recordCreatedContact(user.getUserId(), savedAddressBook.getId());
+            AddressBookDTO savedAddressBookDTO = modelMapper.map(savedAddressBook, AddressBookDTO.class);
+            contactEventService.publish(user.getUserId(), "created", savedAddressBook.getId(), savedAddressBookDTO);
+            return savedAddressBookDTO;
+        });
+        contactStatsService.contactCreated(user.getUserId(), addressBook.getEmail());
+        return createdAddressBookDTO;
     }
 
     /**
@@ -157,24 +345,35 @@ public class AddressBookService implements IAddressBookService {
      * @return boolean - true if the update was successful, false otherwise
      */
     @Override
-    @CacheEvict(value = "addressBookCache", key = "#id")
+    @Caching(evict = {
+            @CacheEvict(value = "addressBookCache", key = "#id"),
+            @CacheEvict(value = "addressBookCache", key = "T(com.example.addressbook.util.SecurityUtil).getAuthenticatedUserEmail()"),
+            @CacheEvict(value = "addressBookFieldsCache", allEntries = true)
+    })
     public boolean updateAddressBookData(long id, AddressBookDTO updatedAddressBookDTO) {
         try {
-            String email = SecurityUtil.getAuthenticatedUserEmail();
-            UserAuthentication user = userAuthenticationRepository.findByEmail(email)
-                    .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
+            AuthenticatedUser user = currentUser();
 
-            AddressBook addressBook = addressBookRepository.findById(id).orElseThrow(() -> new RuntimeException("Address Book not found with id: " + id));
-            if(!Objects.equals(addressBook.getUser().getUserId(), user.getUserId())) {
-                throw new RuntimeException("Can't Modified Address Book Data with id: " + id + ". You are not the owner of that data");
-            }
-            addressBook.setFirstName(updatedAddressBookDTO.getFirstName());
-            addressBook.setLastName(updatedAddressBookDTO.getLastName());
-            addressBook.setAddress(updatedAddressBookDTO.getAddress());
-            System.out.println(updatedAddressBookDTO.getEmail());
-            addressBook.setEmail(updatedAddressBookDTO.getEmail());
-            addressBook.setPhoneNumber(updatedAddressBookDTO.getPhoneNumber());
-            addressBookRepository.save(addressBook);
+            String previousEmail = shardRouter.onShardOf(user.getUserId(), false, () -> {
+                AddressBook addressBook = addressBookRepository.findById(id).orElseThrow(() -> new RuntimeException("Address Book not found with id: " + id));
+                if(!Objects.equals(addressBook.getUser().getUserId(), user.getUserId())) {
+                    throw new RuntimeException("Can't Modified Address Book Data with id: " + id + ". You are not the owner of that data");
+                }
+                String previous = addressBook.getEmail();
+                addressBook.setFirstName(updatedAddressBookDTO.getFirstName());
+                addressBook.setLastName(updatedAddressBookDTO.getLastName());
+                addressBook.setAddress(updatedAddressBookDTO.getAddress());
+                addressBook.setEmail(updatedAddressBookDTO.getEmail());
+                addressBook.setPhoneNumber(updatedAddressBookDTO.getPhoneNumber());
+                addressBookRepository.save(addressBook);
+                contactEventService.publish(user.getUserId(), "updated", id, modelMapper.map(addressBook, AddressBookDTO.class));
+                return previous;
+            });
+            contactStatsService.contactUpdated(previousEmail, updatedAddressBookDTO.getEmail());
+            // Evicted through the cache so that an eviction missed during a Redis outage is caught up on recovery
+            Cache addressBookCache = cacheManager.getCache("addressBookCache");
+            if (addressBookCache != null)
+                addressBookCache.evict(contactCacheEntry(user.getUserId(), id));
             return true;
         } catch (Exception e) {
             return false;
@@ -183,15 +382,36 @@ public class AddressBookService implements IAddressBookService {
 
     /**
      * This method deletes an address book entry by its ID.
-     * It throws an exception if the entry is not found.
+     * It throws an exception if the entry is not found or belongs to another user.
      *
      * @param id - The ID of the address book entry to be deleted
      */
     @Override
-    @CacheEvict(value = "addressBookCache", allEntries = true)
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = "addressBookCache", allEntries = true),
+            @CacheEvict(value = "addressBookFieldsCache", allEntries = true)
+    })
     public void deleteAddressBookData(long id) {
         try {
-            addressBookRepository.deleteById(id);
+            // Entries live on their owner's shard, so another user's entry is either absent here or refused below.
+            Long userId = currentUser().getUserId();
+            DeletedContact deleted = shardRouter.onShardOf(userId, false, () -> {
+                AddressBook addressBook = addressBookRepository.findById(id).orElse(null);
+                if (addressBook != null && !Objects.equals(addressBook.getUser().getUserId(), userId)) {
+                    throw new RuntimeException("Can't Delete Address Book Data with id: " + id + ". You are not the owner of that data");
+                }
+                addressBookRepository.deleteById(id);
+                if (addressBook == null)
+                    return null;
+                // Committed with the delete, so delta-sync clients always learn about it
+                contactTombstoneService.recordDeletion(id, userId);
+                return new DeletedContact(userId, addressBook.getEmail());
+            });
+            if (deleted != null) {
+                contactEventService.publish(deleted.ownerId(), "deleted", id, null);
+                contactStatsService.contactDeleted(deleted.ownerId(), deleted.email());
+            }
         } catch (Exception e) {
             throw new RuntimeException("Address Book not found with id: " + id);
         }
@@ -204,17 +424,112 @@ public class AddressBookService implements IAddressBookService {
      * @return List<AddressBookDTO> - List of AddressBookDTO
      */
     @Override
+    @Transactional(readOnly = true)
 //    @Cacheable(value = "addressBookCache")
     public List<AddressBookDTO> getAllAddressBookData() {
-        String email = SecurityUtil.getAuthenticatedUserEmail();
-        UserAuthentication user = userAuthenticationRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
-        if (!user.getRole().equals("ADMIN")) {
+        AuthenticatedUser user = currentUser();
+        if (!user.isAdmin()) {
             throw new RuntimeException("You are not authorized to access this data");
         }
+        if (partitionedAdminScan)
+            return shardRouter.readAllShardsPartitioned(AddressBookRowMapper.TABLE, AddressBookRowMapper.COLUMNS, AddressBookRowMapper::fromColumns);
+        if (shardRouter.isSharded()) {
+            try (Stream<AddressBookDTO> addressBooks = scanAllShards()) {
+                return addressBooks.toList();
+            }
+        }
         List<AddressBook> addressBooksLists = addressBookRepository.findAll(); // Fetch all address books
         return addressBooksLists.stream()
                 .map(addressBook -> modelMapper.map(addressBook, AddressBookDTO.class))
                 .toList();
     }
+
+    /**
+     * This method streams all address book entries in id order.
+     * The admin check happens before the stream is returned; the rows are read from all
+     * shards in parallel and merged while the caller consumes the stream, which must be closed.
+     *
+     * @return Stream<AddressBookDTO> - Stream of all address book entries
+     */
+    @Override
+    public Stream<AddressBookDTO> streamAllAddressBookData() {
+        AuthenticatedUser user = currentUser();
+        if (!user.isAdmin()) {
+            throw new RuntimeException("You are not authorized to access this data");
+        }
+        return scanAllShards();
+    }
+
+    private Stream<AddressBookDTO> scanAllShards() {
+        return shardRouter.scanAllShards(AddressBookRowMapper.SELECT_ALL_ORDERED_BY_ID, new AddressBookRowMapper(), AddressBookDTO::getId);
+    }
+
+    /**
+     * This method retrieves the address book entries of the authenticated user changed since the given cursor.
+     * It returns created or updated entries, the ids of deleted entries and a new cursor.
+     * A cursor of 0, or one older than the tombstone retention period, results in a full resync.
+     *
+     * @param since - The cursor returned by the previous call, or 0 for the first sync
+     * @return AddressBookChangesDTO - The changes since the cursor
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public AddressBookChangesDTO getAddressBookChanges(long since) {
+        AuthenticatedUser user = currentUser();
+
+        boolean fullResync = since <= 0 || since < contactTombstoneService.getRetentionHorizon();
+        List<AddressBook> changed = shardRouter.onShardOf(user.getUserId(), true, () -> fullResync
+                ? addressBookRepository.findByUser(user.getUserId())
+                : addressBookRepository.findChangedSince(user.getUserId(), since));
+        List<ContactTombstone> tombstones = fullResync
+                ? List.of()
+                : shardRouter.onShardOf(user.getUserId(), true, () -> contactTombstoneService.findDeletedSince(user.getUserId(), since));
+
+        // Everything up to the settle window has been read, whatever the sequences of the returned rows;
+        // an empty book, old rows or rows without a sequence must still move the cursor past the retention horizon.
+        // Re-sending a few recent changes is harmless, missing a late commit is not.
+        long settled = ChangeSequenceGenerator.sequenceAt(Instant.now().minus(SYNC_SETTLE_WINDOW));
+        long cursor = fullResync ? settled : Math.max(since, settled);
+
+        return new AddressBookChangesDTO(
+                changed.stream().map(addressBook -> modelMapper.map(addressBook, AddressBookDTO.class)).toList(),
+                tombstones.stream().map(ContactTombstone::getContactId).toList(),
+                cursor,
+                fullResync);
+    }
+
+    /**
+     * This method retrieves the address book entries of the authenticated user with only the requested fields.
+     * The field set is pushed down to the SELECT clause, and the result is cached per user and field set.
+     *
+     * @param fields - Comma separated field names, e.g. "firstName,phoneNumber"
+     * @return List<Map<String, Object>> - One map per entry containing the id and the requested fields
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(value = "addressBookFieldsCache",
+            key = "T(com.example.addressbook.util.SecurityUtil).getAuthenticatedUserEmail() + ':' + T(com.example.addressbook.util.ContactFieldSet).parse(#fields).cacheKey()")
+    public List<Map<String, Object>> getMyAddressBookFields(String fields) {
+        ContactFieldSet fieldSet = ContactFieldSet.parse(fields);
+        AuthenticatedUser user = currentUser();
+        return shardRouter.onShardOf(user.getUserId(), true, () -> addressBookRepository.findFieldsByUser(user.getUserId(), fieldSet));
+    }
+
+    /**
+     * This method retrieves a specific address book entry of the authenticated user with only the requested fields.
+     *
+     * @param id     - The ID of the address book entry
+     * @param fields - Comma separated field names, e.g. "firstName,phoneNumber"
+     * @return Map<String, Object> - The id and the requested fields of the entry
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @Cacheable(value = "addressBookFieldsCache",
+            key = "T(com.example.addressbook.util.SecurityUtil).getAuthenticatedUserEmail() + ':' + #id + ':' + T(com.example.addressbook.util.ContactFieldSet).parse(#fields).cacheKey()")
+    public Map<String, Object> getAddressBookFieldsById(long id, String fields) {
+        ContactFieldSet fieldSet = ContactFieldSet.parse(fields);
+        AuthenticatedUser user = currentUser();
+        return shardRouter.onShardOf(user.getUserId(), true, () -> addressBookRepository.findFieldsById(id, user.getUserId(), fieldSet))
+                .orElseThrow(() -> new RuntimeException("Address Data not found with id: " + id));
+    }
 }
@@ -0,0 +1,92 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import com.example.addressbook.dto.DuplicateSuggestionDTO;
+import com.example.addressbook.repository.AddressBookRepository;
+import com.example.addressbook.util.ContactDeduplicator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+/**
+ * ContactDeduplicationService runs duplicate detection over one user's address book.
+ * Contacts are read as DTOs from the user's shard and scored by ContactDeduplicator on a dedicated
+ * ForkJoinPool, so the scoring uses every core without competing with the common pool.
+ * Only a few jobs run at once; further requests are turned away instead of queueing CPU-bound work.
+ */
+@Slf4j
+@Service
+public class ContactDeduplicationService {
+
+    @Autowired
+    AddressBookRepository addressBookRepository;
+
+    @Autowired
+    ShardRouter shardRouter;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${addressbook.dedup.parallelism:0}")
+    private int parallelism;
+
+    @Value("${addressbook.dedup.max-concurrent-jobs:2}")
+    private int maxConcurrentJobs;
+
+    @Value("${addressbook.dedup.threshold:0.85}")
+    private double threshold;
+
+    @Value("${addressbook.dedup.max-block-size:200}")
+    private int maxBlockSize;
+
+    @Value("${addressbook.dedup.window:20}")
+    private int window;
+
+    private ForkJoinPool pool;
+    private Semaphore jobs;
+    private ContactDeduplicator deduplicator;
+
+    @PostConstruct
+    void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        jobs = new Semaphore(maxConcurrentJobs);
+        deduplicator = new ContactDeduplicator(pool, threshold, maxBlockSize, window);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * This method finds the likely duplicate contacts of a user.
+     *
+     * @param userId - The ID of the user
+     * @return List<DuplicateSuggestionDTO> - The merge suggestions, most similar first
+     */
+    public List<DuplicateSuggestionDTO> findDuplicates(Long userId) {
+        if (!jobs.tryAcquire())
+            throw new RuntimeException("Duplicate detection is busy, please try again later");
+        try {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            List<AddressBookDTO> contacts = shardRouter.onShardOf(userId, true, () -> addressBookRepository.findContactsByUser(userId));
+            ContactDeduplicator.Result result = deduplicator.findDuplicates(contacts);
+            sample.stop(meterRegistry.timer("addressbook.dedup.duration"));
+            meterRegistry.counter("addressbook.dedup.comparisons").increment(result.comparisons());
+            log.info("Scored {} candidate pairs among {} contacts of user {}, {} duplicate groups",
+                    result.comparisons(), contacts.size(), userId, result.suggestions().size());
+            return result.suggestions();
+        } finally {
+            jobs.release();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import com.example.addressbook.dto.ContactEventDTO;
+import com.example.addressbook.util.RedisCircuitBreaker;
+import com.example.addressbook.util.SseSession;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ContactEventService pushes contact changes to every open event stream of the contact's owner.
+ * Changes are published on a Redis channel once the writing transaction commits, and every node
+ * delivers the events it receives to the streams connected to it, so a change made on one node
+ * reaches the user's sessions on all nodes. While Redis is unavailable, events are delivered to the
+ * streams on the publishing node only.
+ * Streams get a heartbeat comment so proxies keep them open and dead connections are noticed.
+ */
+@Slf4j
+@Service
+public class ContactEventService {
+
+    private static final String CHANNEL = "contact-events";
+
+    @Autowired
+    StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    RedisCircuitBreaker redisCircuitBreaker;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${addressbook.events.stream-timeout:30m}")
+    Duration streamTimeout;
+
+    @Value("${addressbook.events.buffer-size:64}")
+    int bufferSize;
+
+    @Value("${addressbook.events.max-streams-per-user:5}")
+    int maxStreamsPerUser;
+
+    @Value("${addressbook.events.max-streams:10000}")
+    int maxStreams;
+
+    @Value("${addressbook.events.sender-threads:4}")
+    int senderThreads;
+
+    private final Map<Long, List<SseSession>> sessionsByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+    Executor sender;
+
+    @PostConstruct
+    void init() {
+        sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "sse-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        redisMessageListenerContainer.addMessageListener(
+                (Message message, byte[] pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+        Gauge.builder("addressbook.events.streams", openStreams, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sessionsByUser.values().forEach(sessions -> sessions.forEach(SseSession::close));
+        if (sender instanceof ExecutorService pool)
+            pool.shutdownNow();
+    }
+
+    /**
+     * This method opens an event stream for a user.
+     * When the user already has the maximum number of streams, the oldest one is closed.
+     *
+     * @param userId - The ID of the user
+     * @return SseEmitter - The stream, kept open until it times out or the client disconnects
+     */
+    public SseEmitter subscribe(Long userId) {
+        if (openStreams.get() >= maxStreams)
+            throw new RuntimeException("Too many open event streams, please poll for changes instead");
+
+        SseEmitter emitter = createEmitter();
+        SseSession session = new SseSession(userId, emitter, bufferSize, sender);
+        List<SseSession> sessions = sessionsByUser.compute(userId, (id, existing) -> {
+            List<SseSession> updated = existing == null ? new CopyOnWriteArrayList<>() : existing;
+            updated.add(session);
+            return updated;
+        });
+        openStreams.incrementAndGet();
+        emitter.onCompletion(() -> remove(session));
+        emitter.onTimeout(() -> remove(session));
+        emitter.onError(e -> remove(session));
+
+        while (sessions.size() > maxStreamsPerUser) {
+            SseSession oldest = sessions.get(0);
+            remove(oldest);
+            oldest.close();
+        }
+        session.offer(SseEmitter.event().comment("connected"));
+        return emitter;
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(streamTimeout.toMillis());
+    }
+
+    /**
+     * This method publishes a contact change to the owner's streams once the current transaction commits.
+     *
+     * @param userId  - The ID of the contact's owner
+     * @param type    - "created", "updated" or "deleted"
+     * @param id      - The ID of the contact
+     * @param contact - The contact after the change, or null for deletions
+     */
+    public void publish(Long userId, String type, Long id, AddressBookDTO contact) {
+        Runnable send = () -> {
+            String message;
+            try {
+                message = userId + "|" + objectMapper.writeValueAsString(new ContactEventDTO(type, id, contact));
+            } catch (JsonProcessingException e) {
+                log.warn("Could not serialize contact event: {}", e.getMessage());
+                return;
+            }
+            boolean published = redisCircuitBreaker.call(() -> {
+                stringRedisTemplate.convertAndSend(CHANNEL, message);
+                return true;
+            }, false);
+            if (!published)
+                onMessage(message);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send.run();
+                }
+            });
+        } else {
+            send.run();
+        }
+    }
+
+    /**
+     * This method sends a heartbeat comment on every open stream.
+     */
+    @Scheduled(fixedDelayString = "${addressbook.events.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (List<SseSession> sessions : sessionsByUser.values()) {
+            for (SseSession session : sessions) {
+                offer(session, SseEmitter.event().comment("heartbeat"));
+            }
+        }
+    }
+
+    private void onMessage(String message) {
+        int separator = message.indexOf('|');
+        if (separator <= 0)
+            return;
+        List<SseSession> sessions = sessionsByUser.get(Long.valueOf(message.substring(0, separator)));
+        if (sessions == null)
+            return;
+        String data = message.substring(separator + 1);
+        for (SseSession session : sessions) {
+            // A builder is consumed when sent, so every stream gets its own
+            offer(session, SseEmitter.event().name("contact").data(data));
+        }
+    }
+
+    private void offer(SseSession session, SseEmitter.SseEventBuilder event) {
+        // Sessions closed by the client were already removed by the emitter callbacks, so this is a slow consumer
+        if (!session.offer(event) && remove(session))
+            meterRegistry.counter("addressbook.events.dropped_streams").increment();
+    }
+
+    private boolean remove(SseSession session) {
+        boolean[] removed = new boolean[1];
+        sessionsByUser.computeIfPresent(session.getUserId(), (id, sessions) -> {
+            removed[0] = sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+        if (removed[0])
+            openStreams.decrementAndGet();
+        return removed[0];
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.repository.AddressBookRowMapper;
+import com.example.addressbook.util.ContactExportFormat;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ContactExportService streams a user's address book to an output stream as CSV or vCard.
+ * Rows go from a server-side cursor through the formatter into a fixed-size buffer, so memory use
+ * does not depend on the size of the book; the pools set useCursorFetch=true, without which the MySQL
+ * driver ignores the fetch size and reads the whole book first. The buffer is flushed every few hundred
+ * rows to keep data moving to the client; a slow client blocks the flush, which in turn holds back the cursor.
+ * When the client disconnects, the failed write stops the query and releases the connection.
+ */
+@Slf4j
+@Service
+public class ContactExportService {
+
+    private static final AddressBookRowMapper ROW_MAPPER = new AddressBookRowMapper();
+
+    @Autowired
+    ShardRouter shardRouter;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${addressbook.export.buffer-size:65536}")
+    private int bufferSize;
+
+    @Value("${addressbook.export.flush-rows:500}")
+    private int flushRows;
+
+    @Value("${addressbook.export.gzip-level:1}")
+    private int gzipLevel;
+
+    /**
+     * This method writes all contacts of a user to the given stream, in id order.
+     *
+     * @param userId       - The ID of the user
+     * @param format       - The export format
+     * @param gzip         - true to gzip the output
+     * @param outputStream - The response stream, which is not closed
+     * @throws IOException - If the client disconnected; the export has been stopped
+     */
+    public void export(Long userId, ContactExportFormat format, boolean gzip, OutputStream outputStream) throws IOException {
+        CountingOutputStream counting = new CountingOutputStream(outputStream);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long[] rows = new long[1];
+        String outcome = "completed";
+        try {
+            OutputStream target = gzip ? gzipStream(counting) : counting;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), bufferSize);
+            try {
+                format.writeHeader(writer);
+                shardRouter.scanShardOf(userId, AddressBookRowMapper.SELECT_BY_USER_ORDERED_BY_ID, resultSet -> {
+                    try {
+                        format.writeContact(writer, ROW_MAPPER.mapRow(resultSet, resultSet.getRow()));
+                        if (++rows[0] % flushRows == 0)
+                            writer.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, userId);
+                writer.flush();
+                // Writes the gzip trailer; the response stream itself is left for the container to close
+                if (target instanceof GZIPOutputStream gzipStream)
+                    gzipStream.finish();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } catch (IOException e) {
+            outcome = "aborted";
+            log.info("Export of user {} stopped after {} contacts, the client disconnected: {}", userId, rows[0], e.getMessage());
+            throw e;
+        } catch (RuntimeException e) {
+            outcome = "failed";
+            throw e;
+        } finally {
+            long nanos = sample.stop(meterRegistry.timer("addressbook.export.duration",
+                    "format", format.getExtension(), "gzip", String.valueOf(gzip), "outcome", outcome));
+            meterRegistry.counter("addressbook.export.bytes", "format", format.getExtension(), "gzip", String.valueOf(gzip))
+                    .increment(counting.getCount());
+            meterRegistry.counter("addressbook.export.contacts", "format", format.getExtension()).increment(rows[0]);
+            if ("completed".equals(outcome))
+                log.info("Exported {} contacts of user {} as {}: {} bytes in {} ms ({} MB/s)", rows[0], userId, format.getExtension(),
+                        counting.getCount(), TimeUnit.NANOSECONDS.toMillis(nanos),
+                        String.format("%.1f", counting.getCount() / 1_048_576.0 / Math.max(nanos, 1) * 1_000_000_000.0));
+        }
+    }
+
+    // Sync flush makes every chunk flush emit the compressed bytes instead of keeping them in the deflater
+    private GZIPOutputStream gzipStream(OutputStream outputStream) throws IOException {
+        return new GZIPOutputStream(outputStream, bufferSize, true) {
+            {
+                def.setLevel(gzipLevel);
+            }
+        };
+    }
+
+    // Counts the bytes actually handed to the response, i.e. after compression
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
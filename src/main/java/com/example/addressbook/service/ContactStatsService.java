@@ -0,0 +1,303 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.dto.ContactStatsDTO;
+import com.example.addressbook.repository.UserAuthenticationRepository;
+import com.example.addressbook.util.AuthenticatedUser;
+import com.example.addressbook.util.RedisCircuitBreaker;
+import com.example.addressbook.util.SecurityUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * ContactStatsService keeps the statistics of the admin dashboard as counters in Redis, so reading them
+ * costs a single pipelined round trip however many contacts there are:
+ * total contacts and users, contacts per user and per email domain (sorted sets, for top-N reads),
+ * and the net contacts and the users added per day (hashes keyed by UTC date).
+ * <p>
+ * AddressBookService and UserAuthenticationService update the counters after each change is committed.
+ * An update lost to a Redis outage, or made between the reconciliation's queries and its write, leaves the
+ * counters off until the next reconciliation, which recounts the totals, users and domains from the database.
+ * Daily growth is not reconciled, as contacts carry no creation date.
+ */
+@Slf4j
+@Service
+public class ContactStatsService {
+
+    static final String CONTACTS_KEY = "stats:contacts";
+    static final String USERS_KEY = "stats:users";
+    static final String CONTACTS_PER_USER_KEY = "stats:contacts:per-user";
+    static final String CONTACTS_PER_DOMAIN_KEY = "stats:contacts:per-domain";
+    static final String CONTACT_GROWTH_KEY = "stats:growth:contacts";
+    static final String USER_GROWTH_KEY = "stats:growth:users";
+    static final String RECONCILED_AT_KEY = "stats:reconciled-at";
+    static final String RECONCILE_LOCK_KEY = "stats:reconcile-lock";
+
+    static final String UNKNOWN_DOMAIN = "unknown";
+
+    private static final int MAX_TOP = 1000;
+    private static final int MAX_DAYS = 366;
+
+    // Summed across shards by the caller; the domain is cut at the first '@', as domainOf does
+    private static final String COUNT_PER_USER_SQL = "SELECT user_id, COUNT(*) FROM ADDRESS_BOOK GROUP BY user_id";
+    private static final String COUNT_PER_DOMAIN_SQL = "SELECT CASE WHEN LOCATE('@', email) > 0 "
+            + "THEN LOWER(SUBSTRING(email, LOCATE('@', email) + 1)) ELSE '" + UNKNOWN_DOMAIN + "' END AS domain, COUNT(*) "
+            + "FROM ADDRESS_BOOK GROUP BY domain";
+
+    @Autowired
+    StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    RedisCircuitBreaker redisCircuitBreaker;
+
+    @Autowired
+    ShardRouter shardRouter;
+
+    @Autowired
+    UserAuthenticationRepository userAuthenticationRepository;
+
+    @Value("${addressbook.stats.reconcile-lock-ttl:10m}")
+    private Duration reconcileLockTtl;
+
+    /**
+     * This method counts a new contact.
+     *
+     * @param userId - The owner of the contact
+     * @param email  - The contact's email address
+     */
+    public void contactCreated(Long userId, String email) {
+        String today = today();
+        afterCommit(() -> update(connection -> {
+            connection.incr(CONTACTS_KEY);
+            connection.zIncrBy(CONTACTS_PER_USER_KEY, 1, String.valueOf(userId));
+            connection.zIncrBy(CONTACTS_PER_DOMAIN_KEY, 1, domainOf(email));
+            connection.hIncrBy(CONTACT_GROWTH_KEY, today, 1);
+        }));
+    }
+
+    /**
+     * This method moves an updated contact to its new email domain, if the domain changed.
+     *
+     * @param previousEmail - The contact's email address before the update
+     * @param email         - The contact's email address after the update
+     */
+    public void contactUpdated(String previousEmail, String email) {
+        String previousDomain = domainOf(previousEmail);
+        String domain = domainOf(email);
+        if (previousDomain.equals(domain))
+            return;
+        afterCommit(() -> update(connection -> {
+            connection.zIncrBy(CONTACTS_PER_DOMAIN_KEY, -1, previousDomain);
+            connection.zIncrBy(CONTACTS_PER_DOMAIN_KEY, 1, domain);
+            connection.zRemRangeByScore(CONTACTS_PER_DOMAIN_KEY, Double.NEGATIVE_INFINITY, 0);
+        }));
+    }
+
+    /**
+     * This method uncounts a deleted contact.
+     *
+     * @param userId - The owner of the contact
+     * @param email  - The contact's email address
+     */
+    public void contactDeleted(Long userId, String email) {
+        String today = today();
+        afterCommit(() -> update(connection -> {
+            connection.decr(CONTACTS_KEY);
+            connection.zIncrBy(CONTACTS_PER_USER_KEY, -1, String.valueOf(userId));
+            connection.zIncrBy(CONTACTS_PER_DOMAIN_KEY, -1, domainOf(email));
+            // Users and domains without contacts left are dropped, so top-N reads never see them
+            connection.zRemRangeByScore(CONTACTS_PER_USER_KEY, Double.NEGATIVE_INFINITY, 0);
+            connection.zRemRangeByScore(CONTACTS_PER_DOMAIN_KEY, Double.NEGATIVE_INFINITY, 0);
+            connection.hIncrBy(CONTACT_GROWTH_KEY, today, -1);
+        }));
+    }
+
+    /**
+     * This method counts a newly registered user.
+     */
+    public void userRegistered() {
+        String today = today();
+        afterCommit(() -> update(connection -> {
+            connection.incr(USERS_KEY);
+            connection.hIncrBy(USER_GROWTH_KEY, today, 1);
+        }));
+    }
+
+    /**
+     * This method reads the dashboard statistics from the counters, in one pipelined round trip.
+     *
+     * @param top  - The number of users and email domains to return
+     * @param days - The number of days of growth to return, ending today
+     * @return ContactStatsDTO - The statistics
+     */
+    @SuppressWarnings("unchecked")
+    public ContactStatsDTO getStats(int top, int days) {
+        checkAdmin();
+        if (top < 1 || top > MAX_TOP || days < 1 || days > MAX_DAYS)
+            throw new RuntimeException("top must be between 1 and " + MAX_TOP + ", days between 1 and " + MAX_DAYS);
+        List<String> dates = new ArrayList<>(days);
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        for (int i = days - 1; i >= 0; i--) {
+            dates.add(today.minusDays(i).toString());
+        }
+        List<Object> results = redisCircuitBreaker.call(() -> stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> redis = (RedisOperations<String, String>) operations;
+                redis.opsForValue().get(CONTACTS_KEY);
+                redis.opsForValue().get(USERS_KEY);
+                redis.opsForZSet().reverseRangeWithScores(CONTACTS_PER_USER_KEY, 0, top - 1);
+                redis.opsForZSet().reverseRangeWithScores(CONTACTS_PER_DOMAIN_KEY, 0, top - 1);
+                redis.<String, String>opsForHash().multiGet(CONTACT_GROWTH_KEY, dates);
+                redis.<String, String>opsForHash().multiGet(USER_GROWTH_KEY, dates);
+                redis.opsForValue().get(RECONCILED_AT_KEY);
+                return null;
+            }
+        }), null);
+        if (results == null)
+            throw new RuntimeException("Contact statistics are unavailable while Redis is unavailable");
+
+        long contacts = parse((String) results.get(0));
+        long users = parse((String) results.get(1));
+        Map<Long, Long> topUsers = new LinkedHashMap<>();
+        for (ZSetOperations.TypedTuple<String> entry : (Set<ZSetOperations.TypedTuple<String>>) results.get(2)) {
+            topUsers.put(Long.valueOf(entry.getValue()), Math.round(entry.getScore()));
+        }
+        Map<String, Long> topDomains = new LinkedHashMap<>();
+        for (ZSetOperations.TypedTuple<String> entry : (Set<ZSetOperations.TypedTuple<String>>) results.get(3)) {
+            topDomains.put(entry.getValue(), Math.round(entry.getScore()));
+        }
+        return new ContactStatsDTO(contacts, users, users == 0 ? 0 : (double) contacts / users, topUsers, topDomains,
+                perDay(dates, (List<String>) results.get(4)), perDay(dates, (List<String>) results.get(5)),
+                (String) results.get(6));
+    }
+
+    /**
+     * This method recounts the contacts, users and email domains from the database and replaces the counters.
+     * One node at a time runs it, through a lock in Redis; the counters are rebuilt under temporary keys
+     * and renamed over the live ones, so readers never see a half-written set.
+     */
+    @Scheduled(fixedDelayString = "${addressbook.stats.reconcile-interval-ms:3600000}",
+            initialDelayString = "${addressbook.stats.reconcile-initial-delay-ms:60000}")
+    public void reconcile() {
+        Boolean locked = redisCircuitBreaker.call(() -> stringRedisTemplate.opsForValue()
+                .setIfAbsent(RECONCILE_LOCK_KEY, Instant.now().toString(), reconcileLockTtl), false);
+        if (!Boolean.TRUE.equals(locked))
+            return;
+        try {
+            Map<String, Long> perUser = new HashMap<>();
+            shardRouter.queryAllShards(COUNT_PER_USER_SQL, row -> perUser.merge(row.getString(1), row.getLong(2), Long::sum));
+            Map<String, Long> perDomain = new HashMap<>();
+            shardRouter.queryAllShards(COUNT_PER_DOMAIN_SQL, row -> perDomain.merge(row.getString(1), row.getLong(2), Long::sum));
+            long contacts = perUser.values().stream().mapToLong(Long::longValue).sum();
+            long users = userAuthenticationRepository.count();
+
+            long previousContacts = parse(redisCircuitBreaker.call(() -> stringRedisTemplate.opsForValue().get(CONTACTS_KEY), null));
+            List<Object> written = redisCircuitBreaker.call(() -> stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                replaceSortedSet(redis, CONTACTS_PER_USER_KEY, perUser);
+                replaceSortedSet(redis, CONTACTS_PER_DOMAIN_KEY, perDomain);
+                redis.set(CONTACTS_KEY, Long.toString(contacts));
+                redis.set(USERS_KEY, Long.toString(users));
+                redis.set(RECONCILED_AT_KEY, Instant.now().toString());
+                return null;
+            }), null);
+            if (written == null) {
+                log.warn("Redis unavailable, contact statistics not reconciled");
+                return;
+            }
+            log.info("Reconciled contact statistics: {} contacts (counter was off by {}), {} users, {} domains",
+                    contacts, contacts - previousContacts, users, perDomain.size());
+        } catch (Exception e) {
+            log.warn("Could not reconcile contact statistics: {}", e.getMessage());
+        } finally {
+            redisCircuitBreaker.call(() -> stringRedisTemplate.delete(RECONCILE_LOCK_KEY), false);
+        }
+    }
+
+    /**
+     * This method extracts the domain counted for an email address: the part after the first '@', in lower case.
+     *
+     * @param email - The email address
+     * @return String - The domain, or "unknown" if the address has none
+     */
+    static String domainOf(String email) {
+        int at = email == null ? -1 : email.indexOf('@');
+        if (at < 0 || at == email.length() - 1)
+            return UNKNOWN_DOMAIN;
+        return email.substring(at + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static void replaceSortedSet(StringRedisConnection redis, String key, Map<String, Long> counts) {
+        String staging = key + ":reconcile";
+        redis.del(staging);
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            redis.zAdd(staging, count.getValue(), count.getKey());
+        }
+        if (counts.isEmpty())
+            redis.del(key);
+        else
+            redis.rename(staging, key);
+    }
+
+    // Counters change only once the change is committed; outside a transaction, at once
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    // One pipelined round trip; a failed update is left to the next reconciliation
+    private void update(Consumer<StringRedisConnection> commands) {
+        redisCircuitBreaker.call(() -> stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            commands.accept((StringRedisConnection) connection);
+            return null;
+        }), null);
+    }
+
+    private static Map<String, Long> perDay(List<String> dates, List<String> values) {
+        Map<String, Long> perDay = new LinkedHashMap<>();
+        for (int i = 0; i < dates.size(); i++) {
+            perDay.put(dates.get(i), values == null ? 0 : parse(values.get(i)));
+        }
+        return perDay;
+    }
+
+    private static long parse(String value) {
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    private static String today() {
+        return LocalDate.now(ZoneOffset.UTC).toString();
+    }
+
+    private static void checkAdmin() {
+        AuthenticatedUser user = SecurityUtil.getAuthenticatedUser();
+        if (user == null || !user.isAdmin())
+            throw new RuntimeException("You are not authorized to access this data");
+    }
+}
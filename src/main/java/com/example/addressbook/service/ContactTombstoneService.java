@@ -0,0 +1,77 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.model.ContactTombstone;
+import com.example.addressbook.repository.ContactTombstoneRepository;
+import com.example.addressbook.util.ChangeSequenceGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * ContactTombstoneService class is responsible for recording deleted contacts
+ * and compacting tombstones once they are older than the retention period.
+ * Tombstones are kept on the shard of their owner, so that a delete and its tombstone commit together;
+ * callers record and read them from within ShardRouter.onShardOf.
+ */
+@Slf4j
+@Service
+public class ContactTombstoneService {
+
+    @Autowired
+    ContactTombstoneRepository contactTombstoneRepository;
+
+    @Autowired
+    ShardRouter shardRouter;
+
+    // Number of days a tombstone is kept. Clients with an older cursor must do a full resync.
+    @Value("${addressbook.sync.tombstone-retention-days:30}")
+    long retentionDays;
+
+    /**
+     * This method records a tombstone for a deleted contact, in the caller's transaction.
+     *
+     * @param contactId - The ID of the deleted address book entry
+     * @param userId    - The ID of the owner of the deleted entry
+     */
+    public void recordDeletion(long contactId, long userId) {
+        contactTombstoneRepository.save(new ContactTombstone(null, contactId, userId, ChangeSequenceGenerator.next()));
+    }
+
+    /**
+     * This method retrieves the tombstones of a user recorded after the given cursor.
+     *
+     * @param userId - The ID of the user
+     * @param since  - The change sequence the client has already seen
+     * @return List<ContactTombstone> - Tombstones ordered by change sequence
+     */
+    public List<ContactTombstone> findDeletedSince(long userId, long since) {
+        return contactTombstoneRepository.findDeletedSince(userId, since);
+    }
+
+    /**
+     * This method returns the oldest change sequence for which tombstones are still retained.
+     *
+     * @return long - The retention horizon
+     */
+    public long getRetentionHorizon() {
+        return ChangeSequenceGenerator.sequenceAt(Instant.now().minus(Duration.ofDays(retentionDays)));
+    }
+
+    /**
+     * This method removes tombstones older than the retention period from every shard.
+     * It runs once a day by default.
+     */
+    @Scheduled(cron = "${addressbook.sync.tombstone-compaction-cron:0 30 3 * * *}")
+    public void compactTombstones() {
+        long horizon = getRetentionHorizon();
+        int removed = shardRouter.onEveryShard(() -> contactTombstoneRepository.deleteOlderThan(horizon))
+                .stream().mapToInt(Integer::intValue).sum();
+        log.info("Compacted {} contact tombstones", removed);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.config.EmailLaneProperties;
+import com.example.addressbook.util.EmailLane;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.addressbook.config.RabbitMQConfig.DEAD_LETTER_QUEUE_NAME;
+
+/**
+ * EmailLaneMonitor publishes the health of the email lanes:
+ * addressbook.email.queue.depth{lane} with the messages waiting on each lane and in the dead-letter queue,
+ * and addressbook.email.delivery.latency{lane}, the time from publishing a message to its mail being sent,
+ * retries included, with a bucket at the lane's SLO. Deliveries slower than the SLO are also counted
+ * in addressbook.email.delivery.slo_missed{lane}.
+ * Queue depths are polled on a schedule rather than on every scrape, so a slow broker never stalls scrapes.
+ */
+@Slf4j
+@Service
+public class EmailLaneMonitor {
+
+    @Autowired
+    AmqpAdmin amqpAdmin;
+
+    @Autowired
+    EmailLaneProperties properties;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private final Map<EmailLane, AtomicLong> queueDepths = new EnumMap<>(EmailLane.class);
+    private final Map<EmailLane, Timer> latencies = new EnumMap<>(EmailLane.class);
+    private final Map<EmailLane, Counter> sloMisses = new EnumMap<>(EmailLane.class);
+    private final AtomicLong deadLetterDepth = new AtomicLong();
+
+    @PostConstruct
+    public void registerMetrics() {
+        for (EmailLane lane : EmailLane.values()) {
+            queueDepths.put(lane, meterRegistry.gauge("addressbook.email.queue.depth",
+                    Tags.of("lane", lane.tag()), new AtomicLong()));
+            latencies.put(lane, Timer.builder("addressbook.email.delivery.latency")
+                    .tag("lane", lane.tag())
+                    .serviceLevelObjectives(properties.lane(lane).getLatencySlo())
+                    .register(meterRegistry));
+            sloMisses.put(lane, meterRegistry.counter("addressbook.email.delivery.slo_missed", "lane", lane.tag()));
+        }
+        Gauge.builder("addressbook.email.queue.depth", deadLetterDepth, AtomicLong::get)
+                .tag("lane", "dead_letter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * This method records the delivery latency of a message whose mail was just sent.
+     * Messages published without a timestamp, before the lanes existed, are not recorded.
+     *
+     * @param lane    - The lane the message was consumed from
+     * @param message - The delivered message
+     */
+    public void delivered(EmailLane lane, Message message) {
+        Date published = message.getMessageProperties().getTimestamp();
+        if (published == null)
+            return;
+        Duration latency = Duration.ofMillis(Math.max(0, System.currentTimeMillis() - published.getTime()));
+        latencies.get(lane).record(latency);
+        if (latency.compareTo(properties.lane(lane).getLatencySlo()) > 0)
+            sloMisses.get(lane).increment();
+    }
+
+    /**
+     * This method refreshes the queue depth gauges from the broker.
+     */
+    @Scheduled(fixedDelayString = "${addressbook.email.queue-depth-interval-ms:10000}")
+    public void refreshQueueDepths() {
+        try {
+            for (EmailLane lane : EmailLane.values()) {
+                queueDepths.get(lane).set(depth(lane.getQueueName()));
+            }
+            deadLetterDepth.set(depth(DEAD_LETTER_QUEUE_NAME));
+        } catch (RuntimeException e) {
+            log.warn("Could not read email queue depths: {}", e.getMessage());
+        }
+    }
+
+    private long depth(String queueName) {
+        QueueInformation information = amqpAdmin.getQueueInfo(queueName);
+        return information == null ? 0 : information.getMessageCount();
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.config.EmailLaneProperties;
+import com.example.addressbook.config.RabbitMQConfig;
+import com.example.addressbook.util.AuthenticatedUser;
+import com.example.addressbook.util.EmailLane;
+import com.example.addressbook.util.SecurityUtil;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.GetResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.SendFailedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.addressbook.config.RabbitMQConfig.*;
+
+/**
+ * EmailRetryService takes email messages whose delivery failed off the consumer thread.
+ * A failed message is republished to the delay queue of its lane and attempt (see RabbitMQConfig) and the
+ * original is acknowledged, so the consumer moves on to the next message at once and the retry comes back
+ * to its lane after the delay. Messages that can never be delivered, e.g. to an invalid address, and
+ * messages that failed on every attempt go to the dead-letter queue, from where admins can replay them.
+ */
+@Slf4j
+@Service
+public class EmailRetryService {
+
+    public static final String RETRY_COUNT_HEADER = "x-retry-count";
+    public static final String LAST_ERROR_HEADER = "x-last-error";
+    public static final String LANE_HEADER = "x-email-lane";
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    RabbitTemplate rabbitTemplate;
+
+    @Autowired
+    EmailLaneProperties properties;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    /**
+     * This method schedules the next attempt of a failed message, or dead-letters it.
+     * It is called on the consumer thread and returns once the message is republished.
+     *
+     * @param lane    - The lane the message was consumed from
+     * @param message - The message whose delivery failed
+     * @param failure - The failure
+     */
+    public void retryOrDeadLetter(EmailLane lane, Message message, Exception failure) {
+        int failures = retryCount(message) + 1;
+        List<Duration> delays = properties.lane(lane).getRetryDelays();
+        boolean permanent = isPermanent(failure);
+        String queue = !permanent && failures <= delays.size()
+                ? RabbitMQConfig.retryQueueName(lane, delays.get(failures - 1))
+                : DEAD_LETTER_QUEUE_NAME;
+
+        message.getMessageProperties().setHeader(RETRY_COUNT_HEADER, failures);
+        message.getMessageProperties().setHeader(LAST_ERROR_HEADER, describe(failure));
+        // Replays go back to the lane the message came from
+        message.getMessageProperties().setHeader(LANE_HEADER, lane.name());
+        rabbitTemplate.send(RETRY_EXCHANGE_NAME, queue, message);
+
+        if (DEAD_LETTER_QUEUE_NAME.equals(queue)) {
+            count("dead_lettered");
+            log.error("Email delivery on the {} lane failed {} after {} attempts, moved to {}: {}", lane.tag(),
+                    permanent ? "permanently" : "on every retry", failures, DEAD_LETTER_QUEUE_NAME, failure.getMessage());
+        } else {
+            count("retried");
+            log.warn("Email delivery on the {} lane failed (attempt {}), retrying through {}: {}", lane.tag(), failures, queue, failure.getMessage());
+        }
+    }
+
+    /**
+     * This method records a successful delivery.
+     */
+    public void delivered() {
+        count("sent");
+    }
+
+    /**
+     * This method returns the number of messages in the dead-letter queue.
+     *
+     * @return long - The number of dead-lettered messages
+     */
+    public long deadLetterCount() {
+        checkAdmin();
+        Long count = rabbitTemplate.execute(channel -> channel.messageCount(DEAD_LETTER_QUEUE_NAME));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * This method moves dead-lettered messages back to the queue of their lane, oldest first, with their attempts reset.
+     * Each message is acknowledged on the dead-letter queue only after it has been republished.
+     *
+     * @param max - The maximum number of messages to replay
+     * @return int - The number of messages replayed
+     */
+    public int replayDeadLetters(int max) {
+        checkAdmin();
+        int replayed = 0;
+        while (replayed < max) {
+            Boolean moved = rabbitTemplate.execute(channel -> {
+                GetResponse response = channel.basicGet(DEAD_LETTER_QUEUE_NAME, false);
+                if (response == null)
+                    return false;
+                Map<String, Object> headers = response.getProps().getHeaders() == null
+                        ? new HashMap<>() : new HashMap<>(response.getProps().getHeaders());
+                headers.remove(RETRY_COUNT_HEADER);
+                headers.remove(LAST_ERROR_HEADER);
+                headers.remove("x-death");
+                // Header values arrive as AMQP LongStrings
+                EmailLane lane = EmailLane.fromName(String.valueOf(headers.get(LANE_HEADER)));
+                AMQP.BasicProperties props = response.getProps().builder().headers(headers).build();
+                channel.basicPublish(EXCHANGE_NAME, lane.getRoutingKey(), props, response.getBody());
+                channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+                return true;
+            });
+            if (!Boolean.TRUE.equals(moved))
+                break;
+            replayed++;
+        }
+        count("replayed", replayed);
+        log.info("Replayed {} dead-lettered email messages", replayed);
+        return replayed;
+    }
+
+    private static int retryCount(Message message) {
+        Object count = message.getMessageProperties().getHeader(RETRY_COUNT_HEADER);
+        return count instanceof Number number ? number.intValue() : 0;
+    }
+
+    // Malformed messages and rejected recipient addresses fail the same way on every attempt
+    private static boolean isPermanent(Exception failure) {
+        if (failure instanceof MailParseException || failure instanceof MailPreparationException)
+            return true;
+        if (failure instanceof MailSendException sendException) {
+            for (Exception messageFailure : sendException.getFailedMessages().values()) {
+                if (messageFailure instanceof SendFailedException sendFailed
+                        && sendFailed.getInvalidAddresses() != null && sendFailed.getInvalidAddresses().length > 0)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static String describe(Exception failure) {
+        String description = failure.getClass().getSimpleName() + ": " + failure.getMessage();
+        return description.length() > MAX_ERROR_LENGTH ? description.substring(0, MAX_ERROR_LENGTH) : description;
+    }
+
+    private static void checkAdmin() {
+        AuthenticatedUser user = SecurityUtil.getAuthenticatedUser();
+        if (user == null || !user.isAdmin())
+            throw new RuntimeException("You are not authorized to access this data");
+    }
+
+    private void count(String outcome) {
+        count(outcome, 1);
+    }
+
+    private void count(String outcome, int amount) {
+        meterRegistry.counter("addressbook.email.deliveries", "outcome", outcome).increment(amount);
+    }
+}
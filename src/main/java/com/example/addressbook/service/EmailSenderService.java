@@ -1,5 +1,6 @@
 package com.example.addressbook.service;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
@@ -9,6 +10,7 @@ import org.springframework.stereotype.Service;
  * EmailSenderService class is responsible for sending emails.
  * It uses JavaMailSender to send emails.
  */
+@Slf4j
 @Service
 public class EmailSenderService {
 
@@ -30,6 +32,6 @@ public class EmailSenderService {
         simpleMailMessage.setText(body);
         simpleMailMessage.setSubject(subject);
         mailSender.send(simpleMailMessage);
-        System.out.println("Mail send to the user!!");
+        log.debug("Mail sent: {}", subject);
     }
 }
\ No newline at end of file
@@ -1,27 +1,71 @@
 package com.example.addressbook.service;
 
+import com.example.addressbook.util.EmailLane;
+import com.example.addressbook.util.LogRedactor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.example.addressbook.config.RabbitMQConfig.CRITICAL_QUEUE_NAME;
 import static com.example.addressbook.config.RabbitMQConfig.QUEUE_NAME;
 
+
+@Slf4j
 @Component
 public class MessageConsumer {
 
     private final EmailSenderService emailService;
+    private final EmailRetryService emailRetryService;
+    private final EmailLaneMonitor emailLaneMonitor;
 
     // ✅ Constructor Injection (Better than Field Injection)
-    public MessageConsumer(EmailSenderService emailService) {
+    public MessageConsumer(EmailSenderService emailService, EmailRetryService emailRetryService, EmailLaneMonitor emailLaneMonitor) {
         this.emailService = emailService;
+        this.emailRetryService = emailRetryService;
+        this.emailLaneMonitor = emailLaneMonitor;
     }
 
-    @RabbitListener(queues = QUEUE_NAME)
-    public void receiveMessage(String message) {
-        System.out.println("📩 Received message from RabbitMQ: " + message);
+    /**
+     * This method consumes the critical lane: registration and password mails, which users wait for.
+     *
+     * @param amqpMessage - The message, "TYPE|email|firstName"
+     */
+    @RabbitListener(queues = CRITICAL_QUEUE_NAME,
+            containerFactory = "criticalListenerContainerFactory")
+    public void receiveCriticalMessage(Message amqpMessage) {
+        receiveMessage(EmailLane.CRITICAL, amqpMessage);
+    }
+
+    /**
+     * This method consumes the bulk lane: login alerts, and messages published before the lanes existed.
+     *
+     * @param amqpMessage - The message, "TYPE|email|firstName"
+     */
+    @RabbitListener(queues = QUEUE_NAME,
+            containerFactory = "bulkListenerContainerFactory")
+    public void receiveBulkMessage(Message amqpMessage) {
+        receiveMessage(EmailLane.BULK, amqpMessage);
+    }
+
+    /**
+     * This method sends the email described by a message.
+     * A failed delivery is handed to EmailRetryService and the message is acknowledged,
+     * so one failing address or an SMTP outage never holds up the messages behind it.
+     *
+     * @param lane        - The lane the message was consumed from
+     * @param amqpMessage - The message, "TYPE|email|firstName"
+     */
+    private void receiveMessage(EmailLane lane, Message amqpMessage) {
+        String message = new String(amqpMessage.getBody(), StandardCharsets.UTF_8);
+        log.debug("📩 Received message from RabbitMQ: {}", message);
 
         // ✅ Ensure valid message format
         String[] data = message.split("\\|");
         if (data.length < 3) {
-            System.err.println("❌ Invalid message format: " + message);
+            log.error("❌ Invalid message format: {}", message);
             return;
         }
 
@@ -33,40 +77,45 @@ public class MessageConsumer {
         String subject;
         String body = "Hi " + firstName + ",\n";
 
-        switch (messageType) {
-            case "REGISTER":
-                subject = "🎉 Registration Successful";
-                body += "You have been successfully registered.";
-                sendEmailAndLog(email, subject, body);
-                break;
-
-            case "FORGOT":
-                subject = "🔑 Forgot Password";
-                body += "Your password has been changed.";
-                sendEmailAndLog(email, subject, body);
-                break;
-
-            case "RESET":
-                subject = "🔄 Reset Password";
-                body += "Your password has been reset.";
-                sendEmailAndLog(email, subject, body);
-                break;
-
-            case "LOGIN":
-                subject = "🔓 Login Alert";
-                body += "You have successfully logged into your account.";
-                sendEmailAndLog(email, subject, body);
-                System.out.println("✅ User Logged In: " + firstName + " (" + email + ")");
-                break;
-
-            default:
-                System.err.println("⚠ Unknown message type: " + messageType);
+        try {
+            switch (messageType) {
+                case "REGISTER":
+                    subject = "🎉 Registration Successful";
+                    body += "You have been successfully registered.";
+                    sendEmailAndLog(lane, amqpMessage, email, subject, body);
+                    break;
+
+                case "FORGOT":
+                    subject = "🔑 Forgot Password";
+                    body += "Your password has been changed.";
+                    sendEmailAndLog(lane, amqpMessage, email, subject, body);
+                    break;
+
+                case "RESET":
+                    subject = "🔄 Reset Password";
+                    body += "Your password has been reset.";
+                    sendEmailAndLog(lane, amqpMessage, email, subject, body);
+                    break;
+
+                case "LOGIN":
+                    subject = "🔓 Login Alert";
+                    body += "You have successfully logged into your account.";
+                    sendEmailAndLog(lane, amqpMessage, email, subject, body);
+                    break;
+
+                default:
+                    log.warn("⚠ Unknown message type: {}", messageType);
+            }
+        } catch (RuntimeException e) {
+            emailRetryService.retryOrDeadLetter(lane, amqpMessage, e);
         }
     }
 
     // ✅ Utility method to send emails and log
-    private void sendEmailAndLog(String email, String subject, String body) {
+    private void sendEmailAndLog(EmailLane lane, Message amqpMessage, String email, String subject, String body) {
         emailService.sendEmail(email, subject, body);
-        System.out.println("✅ Email sent to: " + email + " | Subject: " + subject);
+        emailRetryService.delivered();
+        emailLaneMonitor.delivered(lane, amqpMessage);
+        log.info("✅ Email sent to: {} | Subject: {}", LogRedactor.email(email), subject);
     }
 }
\ No newline at end of file
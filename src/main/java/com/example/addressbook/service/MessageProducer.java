@@ -1,21 +1,35 @@
 package com.example.addressbook.service;
 
+import com.example.addressbook.util.EmailLane;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Date;
+
 import static com.example.addressbook.config.RabbitMQConfig.EXCHANGE_NAME;
-import static com.example.addressbook.config.RabbitMQConfig.ROUTING_KEY;
 
 
+@Slf4j
 @Service
 public class MessageProducer {
 
     @Autowired
     private RabbitTemplate rabbitTemplate;
 
+    /**
+     * This method publishes an email message on the lane of its type (see EmailLane).
+     * The publish time is stamped on the message, so delivery latency can be measured against the lane's SLO.
+     *
+     * @param message - The message, "TYPE|email|firstName"
+     */
     public void sendMessage(String message) {
-        rabbitTemplate.convertAndSend(EXCHANGE_NAME, ROUTING_KEY, message);
-        System.out.println("Sent message to RabbitMQ: " + message);
+        EmailLane lane = EmailLane.forMessage(message);
+        rabbitTemplate.convertAndSend(EXCHANGE_NAME, lane.getRoutingKey(), message, amqpMessage -> {
+            amqpMessage.getMessageProperties().setTimestamp(new Date());
+            return amqpMessage;
+        });
+        log.debug("Sent message to RabbitMQ on the {} lane: {}", lane.tag(), message);
     }
 }
\ No newline at end of file
@@ -0,0 +1,211 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.repository.UserAuthenticationRepository;
+import com.example.addressbook.util.RedisBloomFilter;
+import com.example.addressbook.util.RedisCircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * NegativeLookupCache answers lookups for emails and contact ids that are known not to exist
+ * without querying the database.
+ * Emails are checked against a Redis Bloom filter of registered accounts, built from ACCOUNTS at startup
+ * and updated on register; misses it cannot rule out are remembered for a short TTL.
+ * Contact ids use the short-TTL negative entries only, which are removed when the id is created.
+ * They are kept per user, as a lookup only searches the shard of the user making it.
+ * Redis is called through the circuit breaker; while it is unavailable every lookup goes to the database.
+ */
+@Slf4j
+@Service
+public class NegativeLookupCache {
+
+    private static final String MISSING_EMAIL_PREFIX = "negative:email:";
+    private static final String MISSING_CONTACT_PREFIX = "negative:contact:";
+    private static final int BUILD_BATCH_SIZE = 10_000;
+
+    @Autowired
+    StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    UserAuthenticationRepository userAuthenticationRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    RedisCircuitBreaker redisCircuitBreaker;
+
+    @Value("${addressbook.negative-cache.ttl:60s}")
+    private Duration negativeTtl;
+
+    @Value("${addressbook.negative-cache.email-bloom.enabled:true}")
+    private boolean bloomEnabled;
+
+    @Value("${addressbook.negative-cache.email-bloom.expected-accounts:1000000}")
+    private long expectedAccounts;
+
+    @Value("${addressbook.negative-cache.email-bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    // Registrations are added from startup on, including while the filter is being built
+    private RedisBloomFilter emailBloomFilter;
+
+    // Lookups only trust the filter once it holds every account
+    private volatile boolean emailBloomFilterReady;
+
+    @PostConstruct
+    public void createEmailBloomFilter() {
+        if (bloomEnabled)
+            emailBloomFilter = new RedisBloomFilter(stringRedisTemplate, "emails", expectedAccounts, falsePositiveRate);
+    }
+
+    /**
+     * This method builds the email Bloom filter from ACCOUNTS unless another node already has.
+     * The filter is only consulted once the build has completed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildEmailBloomFilter() {
+        if (emailBloomFilter == null)
+            return;
+        String readyKey = emailBloomFilter.getKey() + ":ready";
+        Boolean ready = redisCircuitBreaker.call(() -> stringRedisTemplate.hasKey(readyKey), null);
+        if (ready == null) {
+            log.warn("Email Bloom filter unavailable, unknown emails will be checked in the database");
+            return;
+        }
+        if (!ready && Boolean.TRUE.equals(redisCircuitBreaker.call(() -> stringRedisTemplate.opsForValue()
+                .setIfAbsent(emailBloomFilter.getKey() + ":building", "1", Duration.ofMinutes(10)), false))) {
+            List<String> emails = userAuthenticationRepository.findAllEmails();
+            for (int from = 0; from < emails.size(); from += BUILD_BATCH_SIZE) {
+                List<String> batch = emails.subList(from, Math.min(emails.size(), from + BUILD_BATCH_SIZE))
+                        .stream().map(NegativeLookupCache::normalize).toList();
+                if (!addToEmailBloomFilter(batch)) {
+                    log.warn("Email Bloom filter build interrupted, unknown emails will be checked in the database");
+                    return;
+                }
+            }
+            ready = redisCircuitBreaker.call(() -> {
+                stringRedisTemplate.opsForValue().set(readyKey, "1");
+                return true;
+            }, false);
+            if (ready)
+                log.info("Built email Bloom filter {} from {} accounts", emailBloomFilter.getKey(), emails.size());
+        }
+        emailBloomFilterReady = ready;
+    }
+
+    /**
+     * This method checks whether an email is known not to belong to any account.
+     *
+     * @param email - The email to check
+     * @return boolean - true if the email is definitely not registered
+     */
+    public boolean isKnownMissingEmail(String email) {
+        if (email == null)
+            return false;
+        String normalized = normalize(email);
+        // The fallbacks fall through to the database
+        if (emailBloomFilterReady && !redisCircuitBreaker.call(() -> emailBloomFilter.mightContain(normalized), true)) {
+            count("email", "bloom");
+            return true;
+        }
+        if (Boolean.TRUE.equals(redisCircuitBreaker.call(() -> stringRedisTemplate.hasKey(MISSING_EMAIL_PREFIX + normalized), false))) {
+            count("email", "negative_entry");
+            return true;
+        }
+        return false;
+    }
+
+    public void recordMissingEmail(String email) {
+        if (email != null)
+            setQuietly(MISSING_EMAIL_PREFIX + normalize(email));
+    }
+
+    /**
+     * This method marks an email as registered: it is added to the Bloom filter and its negative entry is removed,
+     * again after commit so that a lookup racing the registering transaction cannot leave a stale entry behind.
+     * The email is added even before the filter is ready, as a build running elsewhere may not have read it.
+     *
+     * @param email - The registered email
+     */
+    public void recordRegisteredEmail(String email) {
+        String normalized = normalize(email);
+        if (emailBloomFilter != null && !addToEmailBloomFilter(List.of(normalized)))
+            log.warn("Could not add {} to the email Bloom filter", normalized);
+        deleteNowAndAfterCommit(MISSING_EMAIL_PREFIX + normalized);
+    }
+
+    private boolean addToEmailBloomFilter(List<String> emails) {
+        return redisCircuitBreaker.call(() -> {
+            emailBloomFilter.addAll(emails);
+            return true;
+        }, false);
+    }
+
+    public boolean isKnownMissingContact(long userId, long id) {
+        if (Boolean.TRUE.equals(redisCircuitBreaker.call(() -> stringRedisTemplate.hasKey(missingContactKey(userId, id)), false))) {
+            count("contact", "negative_entry");
+            return true;
+        }
+        return false;
+    }
+
+    public void recordMissingContact(long userId, long id) {
+        setQuietly(missingContactKey(userId, id));
+    }
+
+    public void recordCreatedContact(long userId, long id) {
+        deleteNowAndAfterCommit(missingContactKey(userId, id));
+    }
+
+    private static String missingContactKey(long userId, long id) {
+        return MISSING_CONTACT_PREFIX + userId + ":" + id;
+    }
+
+    private void setQuietly(String key) {
+        // A lost entry only costs a database lookup next time
+        redisCircuitBreaker.call(() -> {
+            stringRedisTemplate.opsForValue().set(key, "1", negativeTtl);
+            return true;
+        }, false);
+    }
+
+    private void deleteNowAndAfterCommit(String key) {
+        deleteQuietly(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteQuietly(key);
+                }
+            });
+        }
+    }
+
+    private void deleteQuietly(String key) {
+        if (redisCircuitBreaker.call(() -> stringRedisTemplate.delete(key), null) == null)
+            log.warn("Could not remove negative cache entry {}", key);
+    }
+
+    private void count(String type, String source) {
+        meterRegistry.counter("addressbook.negative_cache.hit", "type", type, "source", source).increment();
+    }
+
+    // ACCOUNTS.EMAIL compares case-insensitively, so the filter and the negative entries must too.
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
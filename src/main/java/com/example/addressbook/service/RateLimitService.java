@@ -0,0 +1,157 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.config.RateLimitProperties;
+import com.example.addressbook.util.RateLimitGroup;
+import com.example.addressbook.util.RateLimiter;
+import com.example.addressbook.util.RedisCircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RateLimitService decides whether a request may proceed, using the limits of the first endpoint group
+ * whose path prefix matches it (see RateLimitProperties). The decision is made in-process from the
+ * node's own token buckets and never waits on Redis.
+ * <p>
+ * Global quotas are enforced by counting, per node, the requests let through for each key and adding
+ * them to a per-window counter in Redis once per sync interval. A key whose counter has reached its quota
+ * is blocked on this node until the window ends, so the nodes together may overshoot a quota by about
+ * one sync interval of traffic. While Redis is unavailable only the local limits apply.
+ */
+@Slf4j
+@Service
+public class RateLimitService {
+
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    @Autowired
+    RateLimitProperties properties;
+
+    @Autowired
+    StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    RedisCircuitBreaker redisCircuitBreaker;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private volatile List<RateLimitGroup> groups = List.of();
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isEnabled()) {
+            log.info("Request rate limiting is disabled");
+            return;
+        }
+        List<RateLimitGroup> created = new ArrayList<>();
+        for (RateLimitProperties.Group group : properties.getGroups()) {
+            RateLimitProperties.Limit user = group.getUser();
+            RateLimitProperties.Limit ip = group.getIp();
+            created.add(new RateLimitGroup(group.getName(), group.getPathPrefix(),
+                    limiter(user), user.getGlobalQuota(), limiter(ip), ip.getGlobalQuota(),
+                    meterRegistry));
+            log.info("Rate limiting {}** as group {}: per user {}/{} per second (global quota {}), per address {}/{} per second (global quota {})",
+                    group.getPathPrefix(), group.getName(), user.getCapacity(), user.getRefillPerSecond(), user.getGlobalQuota(),
+                    ip.getCapacity(), ip.getRefillPerSecond(), ip.getGlobalQuota());
+        }
+        groups = List.copyOf(created);
+    }
+
+    /**
+     * This method takes a token for a request from the limits of its endpoint group.
+     *
+     * @param path          - The request path
+     * @param userId        - The authenticated user's id, or null for anonymous requests
+     * @param clientAddress - The client's address
+     * @return long - 0 if the request may proceed, otherwise the nanoseconds until it may be retried
+     */
+    public long tryAcquire(String path, Long userId, String clientAddress) {
+        for (RateLimitGroup group : groups) {
+            if (group.matches(path))
+                return group.tryAcquire(userId, clientAddress);
+        }
+        return 0;
+    }
+
+    /**
+     * This method adds the requests let through since the last sync to the global counters in Redis,
+     * and blocks the keys whose counter has reached the quota until the end of the window.
+     */
+    @Scheduled(fixedDelayString = "${addressbook.ratelimit.global-sync-interval-ms:1000}")
+    public void syncGlobalQuotas() {
+        long windowMillis = properties.getGlobalWindow().toMillis();
+        long nowMillis = System.currentTimeMillis();
+        long window = nowMillis / windowMillis;
+        long blockedUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos((window + 1) * windowMillis - nowMillis);
+        for (RateLimitGroup group : groups) {
+            sync(group.getName() + ":user:" + window + ":", group.getUserLimiter(), group.getUserQuota(), windowMillis, blockedUntil);
+            sync(group.getName() + ":ip:" + window + ":", group.getIpLimiter(), group.getIpQuota(), windowMillis, blockedUntil);
+        }
+    }
+
+    /**
+     * This method drops the token buckets that have refilled completely, as they hold no state.
+     */
+    @Scheduled(fixedDelayString = "${addressbook.ratelimit.eviction-interval-ms:60000}")
+    public void evictFullBuckets() {
+        int evicted = 0;
+        for (RateLimitGroup group : groups) {
+            if (group.getUserLimiter() != null)
+                evicted += group.getUserLimiter().evictFull();
+            if (group.getIpLimiter() != null)
+                evicted += group.getIpLimiter().evictFull();
+        }
+        log.debug("Evicted {} full rate limit buckets", evicted);
+    }
+
+    private <K> RateLimiter<K> limiter(RateLimitProperties.Limit limit) {
+        if (limit.getCapacity() <= 0)
+            return null;
+        return new RateLimiter<>(limit.getCapacity(), limit.getRefillPerSecond(), limit.getGlobalQuota() > 0);
+    }
+
+    private <K> void sync(String windowPrefix, RateLimiter<K> limiter, long quota, long windowMillis, long blockedUntil) {
+        if (limiter == null || quota <= 0)
+            return;
+        List<K> keys = new ArrayList<>();
+        List<Long> counts = new ArrayList<>();
+        limiter.drainCounts((key, count) -> {
+            keys.add(key);
+            counts.add(count);
+        });
+        if (keys.isEmpty())
+            return;
+
+        // One INCRBY and one PEXPIRE per key, in a single round trip; the counter outlives its window briefly
+        List<Object> results = redisCircuitBreaker.call(() -> stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (int i = 0; i < keys.size(); i++) {
+                String key = KEY_PREFIX + windowPrefix + keys.get(i);
+                stringConnection.incrBy(key, counts.get(i));
+                stringConnection.pExpire(key, 2 * windowMillis);
+            }
+            return null;
+        }), null);
+        if (results == null) {
+            log.debug("Redis unavailable, {} rate limit counts of {} not synced", keys.size(), windowPrefix);
+            return;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            if (results.get(2 * i) instanceof Long total && total >= quota) {
+                limiter.blockUntil(keys.get(i), blockedUntil);
+                meterRegistry.counter("addressbook.ratelimit.global.blocked").increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.exception.UserException;
+import com.example.addressbook.model.UserAuthentication;
+import com.example.addressbook.util.AuthenticatedUser;
+import com.example.addressbook.util.RedisCircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RefreshTokenService issues and rotates the long-lived refresh tokens that let clients obtain
+ * new access tokens without logging in again, i.e. without a BCrypt verification.
+ * Only the SHA-256 hash of a refresh token is stored in Redis, together with the user it was issued to.
+ * Every refresh replaces the token with a new one of the same family (one family per login);
+ * presenting an already rotated token means it was copied, so the whole family is revoked.
+ * A family expires at a fixed time after login, and its tokens stop working once the user's token version changes.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final String TOKEN_PREFIX = "refresh:";
+    private static final String FAMILY_PREFIX = "refresh-family:";
+    private static final String USED = "used";
+
+    // Returns the stored value and marks the token used, atomically, so a token can be rotated only once
+    private static final RedisScript<String> CLAIM = new DefaultRedisScript<>(
+            "local v = redis.call('get', KEYS[1]) "
+                    + "if v and v ~= '" + USED + "' then redis.call('set', KEYS[1], '" + USED + "', 'KEEPTTL') end "
+                    + "return v",
+            String.class);
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * The user the token was issued to, with their current token version, and the token that replaces it.
+     */
+    public record Rotation(AuthenticatedUser user, String refreshToken) {
+    }
+
+    @Autowired
+    StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    TokenVersionService tokenVersionService;
+
+    @Autowired
+    RedisCircuitBreaker redisCircuitBreaker;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${addressbook.auth.refresh-token.ttl:14d}")
+    private Duration refreshTtl;
+
+    /**
+     * This method starts a new refresh token family for a user who just logged in.
+     *
+     * @param user - The user who logged in
+     * @return String - The refresh token, or null if Redis is unavailable
+     */
+    public String issue(UserAuthentication user) {
+        String familyId = UUID.randomUUID().toString();
+        String refreshToken = newToken(familyId);
+        AuthenticatedUser owner = new AuthenticatedUser(user.getUserId(), user.getEmail(), user.getRole(), user.getTokenVersion());
+        boolean stored = redisCircuitBreaker.call(() -> {
+            store(refreshToken, familyId, owner, refreshTtl.toSeconds());
+            return true;
+        }, false);
+        count(stored ? "issued" : "unavailable");
+        return stored ? refreshToken : null;
+    }
+
+    /**
+     * This method exchanges a refresh token for a new one of the same family.
+     *
+     * @param refreshToken - The refresh token presented by the client
+     * @return Rotation - The token's user and the new refresh token
+     * @throws UserException - If the token is unknown, expired, reused or revoked
+     */
+    public Rotation rotate(String refreshToken) throws UserException {
+        int separator = refreshToken == null ? -1 : refreshToken.indexOf('.');
+        if (separator <= 0) {
+            count("invalid");
+            throw new UserException("Refresh token is invalid or expired");
+        }
+        String familyId = refreshToken.substring(0, separator);
+
+        try {
+            String stored = stringRedisTemplate.execute(CLAIM, List.of(TOKEN_PREFIX + hash(refreshToken)));
+            if (stored == null) {
+                count("invalid");
+                throw new UserException("Refresh token is invalid or expired");
+            }
+            if (USED.equals(stored)) {
+                revokeFamily(familyId);
+                count("reuse");
+                throw new UserException("Refresh token was already used, please log in again");
+            }
+
+            String[] fields = stored.split("\\|", 4);
+            Long userId = Long.valueOf(fields[0]);
+            int currentVersion = tokenVersionService.currentVersion(userId);
+            if (Integer.parseInt(fields[1]) != currentVersion) {
+                revokeFamily(familyId);
+                count("revoked");
+                throw new UserException("Refresh token was revoked by a password change, please log in again");
+            }
+
+            // The family keeps the expiry of the login it started with
+            Long remainingSeconds = stringRedisTemplate.getExpire(FAMILY_PREFIX + familyId, TimeUnit.SECONDS);
+            if (remainingSeconds == null || remainingSeconds <= 0) {
+                count("invalid");
+                throw new UserException("Refresh token is invalid or expired");
+            }
+
+            AuthenticatedUser user = new AuthenticatedUser(userId, fields[3], fields[2], currentVersion);
+            String next = newToken(familyId);
+            store(next, familyId, user, remainingSeconds);
+            count("rotated");
+            return new Rotation(user, next);
+        } catch (UserException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            count("unavailable");
+            throw new UserException("Refresh is temporarily unavailable, please log in again");
+        }
+    }
+
+    /**
+     * This method revokes the family of a refresh token, e.g. on logout.
+     *
+     * @param refreshToken - Any refresh token of the family
+     */
+    public void revoke(String refreshToken) {
+        int separator = refreshToken == null ? -1 : refreshToken.indexOf('.');
+        // Only a token that was actually issued, current or already rotated, can revoke its family
+        if (separator > 0 && Boolean.TRUE.equals(stringRedisTemplate.hasKey(TOKEN_PREFIX + hash(refreshToken)))) {
+            revokeFamily(refreshToken.substring(0, separator));
+            count("logout");
+        }
+    }
+
+    private void store(String refreshToken, String familyId, AuthenticatedUser user, long ttlSeconds) {
+        String tokenHash = hash(refreshToken);
+        String value = user.getUserId() + "|" + user.getTokenVersion() + "|" + user.getRole() + "|" + user.getEmail();
+        stringRedisTemplate.opsForValue().set(TOKEN_PREFIX + tokenHash, value, ttlSeconds, TimeUnit.SECONDS);
+        stringRedisTemplate.opsForValue().set(FAMILY_PREFIX + familyId, tokenHash, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    private void revokeFamily(String familyId) {
+        String currentHash = stringRedisTemplate.opsForValue().getAndDelete(FAMILY_PREFIX + familyId);
+        if (currentHash != null)
+            stringRedisTemplate.delete(TOKEN_PREFIX + currentHash);
+    }
+
+    private String newToken(String familyId) {
+        byte[] secret = new byte[32];
+        secureRandom.nextBytes(secret);
+        return familyId + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+    }
+
+    private static String hash(String refreshToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(refreshToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("addressbook.auth.refresh", "outcome", outcome).increment();
+    }
+}
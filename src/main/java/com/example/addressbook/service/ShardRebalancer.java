@@ -0,0 +1,214 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.model.UserAuthentication;
+import com.example.addressbook.repository.UserAuthenticationRepository;
+import com.example.addressbook.util.ConsistentHashRing;
+import com.example.addressbook.util.AuthenticatedUser;
+import com.example.addressbook.util.SecurityUtil;
+import com.example.addressbook.util.ShardRoutingDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.example.addressbook.service.ShardRouter.*;
+
+/**
+ * ShardRebalancer adds a joining shard to the ring while the application keeps serving requests.
+ * It moves, one user at a time, the contacts of every user the new ring assigns to the joining
+ * shard, together with their contact tombstones. Reads follow each user as soon as they are moved, and writes for the user being moved
+ * are refused for the few milliseconds the copy takes. The copy starts once the user's writes already
+ * in flight have ended, and the source rows are only deleted if both shards hold the same number of rows.
+ */
+@Slf4j
+@Service
+public class ShardRebalancer {
+
+    private static final String COLUMNS = "id, first_name, last_name, email, address, phone_number, user_id, change_sequence";
+    private static final String TOMBSTONE_COLUMNS = "id, contact_id, user_id, change_sequence";
+    private static final String COUNT_BY_USER = "SELECT COUNT(*) FROM ADDRESS_BOOK WHERE user_id = ?";
+    private static final long WRITER_POLL_MS = 10;
+
+    @Autowired
+    ShardRouter shardRouter;
+
+    @Autowired(required = false)
+    ShardRoutingDataSource shardRoutingDataSource;
+
+    @Autowired
+    StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    UserAuthenticationRepository userAuthenticationRepository;
+
+    @Value("${addressbook.sharding.ring-refresh-interval-ms:5000}")
+    long ringRefreshIntervalMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("shard-rebalancer").daemon().factory());
+
+    /**
+     * This method starts moving users onto a joining shard in the background.
+     *
+     * @param shard - The key of the joining shard, e.g. "shard-3"
+     * @return String - A status message
+     */
+    public String startRebalance(String shard) {
+        checkAdmin();
+        if (!shardRouter.isSharded())
+            throw new RuntimeException("Sharding is not enabled");
+        if (!shardRoutingDataSource.getShards().containsKey(shard))
+            throw new RuntimeException("Unknown shard: " + shard);
+        if (shardRouter.getRing().getShards().contains(shard))
+            throw new RuntimeException("Shard " + shard + " is already part of the ring");
+        if (!running.compareAndSet(false, true))
+            throw new RuntimeException("A rebalance is already running");
+
+        stringRedisTemplate.opsForValue().set(JOINING_KEY, shard);
+        executor.submit(() -> {
+            try {
+                rebalance(shard);
+            } catch (Exception e) {
+                log.error("Rebalancing onto {} failed, it can be restarted safely: {}", shard, e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        });
+        return "Rebalancing onto " + shard + " started";
+    }
+
+    /**
+     * This method returns the current ring membership and rebalance state.
+     *
+     * @return Map<String, Object> - The ring members, the joining shard and whether a rebalance is running
+     */
+    public Map<String, Object> getStatus() {
+        checkAdmin();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("sharded", shardRouter.isSharded());
+        if (shardRouter.isSharded()) {
+            status.put("members", shardRouter.getRing().getShards());
+            status.put("joining", stringRedisTemplate.opsForValue().get(JOINING_KEY));
+            status.put("configured", shardRoutingDataSource.getShards().keySet());
+        }
+        status.put("running", running.get());
+        return status;
+    }
+
+    private void rebalance(String shard) throws InterruptedException {
+        shardRouter.refreshRing();
+        // Give every node time to see the joining shard before the first user moves.
+        Thread.sleep(2 * ringRefreshIntervalMs);
+
+        ConsistentHashRing ring = shardRouter.getRing();
+        ConsistentHashRing target = ring.withShard(shard);
+        JdbcTemplate targetJdbc = new JdbcTemplate(shardRoutingDataSource.getShards().get(shard));
+        long movedUsers = 0;
+        for (String source : ring.getShards()) {
+            JdbcTemplate sourceJdbc = new JdbcTemplate(shardRoutingDataSource.getShards().get(source));
+            List<Long> userIds = sourceJdbc.queryForList(
+                    "SELECT user_id FROM ADDRESS_BOOK UNION SELECT user_id FROM CONTACT_TOMBSTONE", Long.class);
+            for (Long userId : userIds) {
+                if (shard.equals(target.shardFor(userId))) {
+                    moveUser(userId, sourceJdbc, targetJdbc);
+                    movedUsers++;
+                }
+            }
+        }
+
+        stringRedisTemplate.opsForSet().add(MEMBERS_KEY, shard);
+        stringRedisTemplate.delete(JOINING_KEY);
+        // Nodes that have not refreshed their ring yet still look moved users up here.
+        stringRedisTemplate.expire(MOVED_KEY, Duration.ofMillis(12 * ringRefreshIntervalMs));
+        shardRouter.refreshRing();
+        log.info("Shard {} joined the ring, moved {} users", shard, movedUsers);
+    }
+
+    private void moveUser(Long userId, JdbcTemplate sourceJdbc, JdbcTemplate targetJdbc) {
+        String member = String.valueOf(userId);
+        stringRedisTemplate.opsForSet().add(MOVING_KEY, member);
+        try {
+            awaitWriters(userId);
+            List<Object[]> rows = sourceJdbc.query("SELECT " + COLUMNS + " FROM ADDRESS_BOOK WHERE user_id = ?",
+                    (resultSet, rowNum) -> new Object[]{
+                            resultSet.getLong("id"),
+                            resultSet.getString("first_name"),
+                            resultSet.getString("last_name"),
+                            resultSet.getString("email"),
+                            resultSet.getString("address"),
+                            resultSet.getString("phone_number"),
+                            resultSet.getLong("user_id"),
+                            resultSet.getObject("change_sequence")
+                    }, userId);
+            // Clearing the target first makes a restarted rebalance idempotent.
+            targetJdbc.update("DELETE FROM ADDRESS_BOOK WHERE user_id = ?", userId);
+            targetJdbc.batchUpdate("INSERT INTO ADDRESS_BOOK (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+            List<Object[]> tombstones = sourceJdbc.query("SELECT " + TOMBSTONE_COLUMNS + " FROM CONTACT_TOMBSTONE WHERE user_id = ?",
+                    (resultSet, rowNum) -> new Object[]{
+                            resultSet.getLong("id"),
+                            resultSet.getLong("contact_id"),
+                            resultSet.getLong("user_id"),
+                            resultSet.getLong("change_sequence")
+                    }, userId);
+            targetJdbc.update("DELETE FROM CONTACT_TOMBSTONE WHERE user_id = ?", userId);
+            targetJdbc.batchUpdate("INSERT INTO CONTACT_TOMBSTONE (" + TOMBSTONE_COLUMNS + ") VALUES (?, ?, ?, ?)", tombstones);
+            Integer copied = targetJdbc.queryForObject(COUNT_BY_USER, Integer.class, userId);
+            Integer remaining = sourceJdbc.queryForObject(COUNT_BY_USER, Integer.class, userId);
+            if (copied == null || remaining == null || copied != rows.size() || remaining != rows.size()) {
+                targetJdbc.update("DELETE FROM ADDRESS_BOOK WHERE user_id = ?", userId);
+                targetJdbc.update("DELETE FROM CONTACT_TOMBSTONE WHERE user_id = ?", userId);
+                throw new RuntimeException("User " + userId + " has " + remaining + " contacts on the source and "
+                        + copied + " on the target after copying " + rows.size() + ", not moved");
+            }
+            stringRedisTemplate.opsForSet().add(MOVED_KEY, member);
+            sourceJdbc.update("DELETE FROM ADDRESS_BOOK WHERE user_id = ?", userId);
+            sourceJdbc.update("DELETE FROM CONTACT_TOMBSTONE WHERE user_id = ?", userId);
+        } finally {
+            stringRedisTemplate.opsForSet().remove(MOVING_KEY, member);
+        }
+    }
+
+    // Waits for writes that passed the moving check before it was set; a stale count expires with its lease
+    private void awaitWriters(Long userId) {
+        long deadline = System.currentTimeMillis() + WRITER_LEASE.toMillis();
+        while (true) {
+            String writers = stringRedisTemplate.opsForValue().get(WRITERS_KEY_PREFIX + userId);
+            if (writers == null || Long.parseLong(writers) <= 0)
+                return;
+            if (System.currentTimeMillis() > deadline)
+                throw new RuntimeException("Writes of user " + userId + " did not finish, not moved");
+            try {
+                Thread.sleep(WRITER_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for writes of user " + userId);
+            }
+        }
+    }
+
+    private void checkAdmin() {
+        AuthenticatedUser authenticatedUser = SecurityUtil.getAuthenticatedUser();
+        if (authenticatedUser != null) {
+            if (!authenticatedUser.isAdmin())
+                throw new RuntimeException("You are not authorized to access this data");
+            return;
+        }
+        String email = SecurityUtil.getAuthenticatedUserEmail();
+        UserAuthentication user = userAuthenticationRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
+        if (!user.getRole().equals("ADMIN")) {
+            throw new RuntimeException("You are not authorized to access this data");
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.util.ConsistentHashRing;
+import com.example.addressbook.util.MergingShardScan;
+import com.example.addressbook.util.PartitionedTableScan;
+import com.example.addressbook.util.ShardContext;
+import com.example.addressbook.util.ShardRoutingDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * ShardRouter decides which shard holds a user's contacts and runs repository work there.
+ * The ring membership is shared through Redis so that every node routes the same way,
+ * including while ShardRebalancer moves users onto a joining shard.
+ * When sharding is disabled all work runs directly on the application DataSource.
+ */
+@Slf4j
+@Service
+public class ShardRouter {
+
+    static final String MEMBERS_KEY = "sharding:members";
+    static final String JOINING_KEY = "sharding:joining";
+    static final String MOVED_KEY = "sharding:moved";
+    static final String MOVING_KEY = "sharding:moving";
+    // Writes in flight per user while a rebalance runs; expires if a node dies mid-write
+    static final String WRITERS_KEY_PREFIX = "sharding:writers:";
+    static final Duration WRITER_LEASE = Duration.ofSeconds(30);
+
+    // The ring in use, plus the ring including the joining shard while a rebalance runs.
+    private record RingState(ConsistentHashRing ring, ConsistentHashRing joiningRing) {
+    }
+
+    @Autowired(required = false)
+    DataSource dataSource;                              // Absent with the embedded store of the edge profile
+
+    @Autowired(required = false)
+    ShardRoutingDataSource shardRoutingDataSource;     // Only present when sharding is enabled
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    StringRedisTemplate stringRedisTemplate;
+
+    @Value("${addressbook.sharding.virtual-nodes:128}")
+    int virtualNodes;
+
+    @Value("${addressbook.sharding.scan-fetch-size:1000}")
+    int scanFetchSize;
+
+    // Connections a partitioned scan uses at once, and threads mapping its rows
+    @Value("${addressbook.admin-scan.parallelism:4}")
+    int partitionedScanParallelism;
+
+    // Id ranges per partitioned scan; more ranges than connections keeps them busy when ids are uneven
+    @Value("${addressbook.admin-scan.partitions:16}")
+    int partitionedScanPartitions;
+
+    @Value("${addressbook.admin-scan.map-parallelism:0}")
+    int partitionedScanMapParallelism;
+
+    private volatile RingState ringState;
+
+    private volatile ExecutorService partitionFetchExecutor;
+    private volatile ForkJoinPool partitionMapPool;
+
+    private final ExecutorService scanExecutor = Executors.newCachedThreadPool(
+            Thread.ofPlatform().name("shard-scan-", 0).daemon().factory());
+
+    /**
+     * This method publishes the configured ring in Redis if no node has done so yet, and loads it.
+     */
+    @PostConstruct
+    public void init() {
+        if (!isSharded())
+            return;
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(MEMBERS_KEY)))
+                stringRedisTemplate.opsForSet().add(MEMBERS_KEY, shardRoutingDataSource.getInitialMembers().toArray(new String[0]));
+        } catch (Exception e) {
+            log.warn("Could not publish the shard ring: {}", e.getMessage());
+        }
+        refreshRing();
+    }
+
+    /**
+     * This method reloads the ring membership and the joining shard from Redis.
+     */
+    @Scheduled(fixedDelayString = "${addressbook.sharding.ring-refresh-interval-ms:5000}")
+    public void refreshRing() {
+        if (!isSharded())
+            return;
+        try {
+            Set<String> members = stringRedisTemplate.opsForSet().members(MEMBERS_KEY);
+            String joining = stringRedisTemplate.opsForValue().get(JOINING_KEY);
+            ConsistentHashRing ring = new ConsistentHashRing(members == null || members.isEmpty()
+                    ? shardRoutingDataSource.getInitialMembers() : members, virtualNodes);
+            ringState = new RingState(ring, joining == null ? null : ring.withShard(joining));
+        } catch (Exception e) {
+            log.warn("Could not refresh the shard ring, keeping the current one: {}", e.getMessage());
+            if (ringState == null)
+                ringState = new RingState(new ConsistentHashRing(shardRoutingDataSource.getInitialMembers(), virtualNodes), null);
+        }
+    }
+
+    public boolean isSharded() {
+        return shardRoutingDataSource != null;
+    }
+
+    public ConsistentHashRing getRing() {
+        return ringState.ring();
+    }
+
+    /**
+     * This method finds the shard currently holding the given user's contacts.
+     * Users already moved to a joining shard are found there, all others on their old shard.
+     *
+     * @param userId - The ID of the owner, or null for the home shard
+     * @return String - The shard key
+     */
+    public String shardFor(Long userId) {
+        if (!isSharded() || userId == null)
+            return ShardRoutingDataSource.HOME_SHARD;
+        RingState state = ringState;
+        String owner = state.ring().shardFor(userId);
+        if (state.joiningRing() != null) {
+            String newOwner = state.joiningRing().shardFor(userId);
+            if (!newOwner.equals(owner) && Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(MOVED_KEY, String.valueOf(userId))))
+                return newOwner;
+        }
+        return owner;
+    }
+
+    /**
+     * This method runs repository work on the shard of the given user, in its own transaction.
+     * Writes are refused while the user's contacts are being copied to another shard. While a rebalance
+     * runs, each write is counted until its transaction has ended, so that the copy can wait for writes
+     * that passed the check just before the move started.
+     *
+     * @param userId   - The ID of the owner
+     * @param readOnly - true if the work only reads
+     * @param work     - The repository work
+     * @return T - The result of the work
+     */
+    public <T> T onShardOf(Long userId, boolean readOnly, Supplier<T> work) {
+        if (!isSharded())
+            return work.get();
+        if (readOnly || ringState.joiningRing() == null)
+            return runOnShardOf(userId, readOnly, work);
+
+        // Counted before the check, so either this write sees the move or the move sees this write
+        String writers = WRITERS_KEY_PREFIX + userId;
+        stringRedisTemplate.opsForValue().increment(writers);
+        try {
+            stringRedisTemplate.expire(writers, WRITER_LEASE);
+            if (Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(MOVING_KEY, String.valueOf(userId))))
+                throw new RuntimeException("Contacts are being moved to another shard, please retry shortly");
+            return runOnShardOf(userId, false, work);
+        } finally {
+            stringRedisTemplate.opsForValue().decrement(writers);
+        }
+    }
+
+    private <T> T runOnShardOf(Long userId, boolean readOnly, Supplier<T> work) {
+        return runOn(shardFor(userId), readOnly, work);
+    }
+
+    /**
+     * This method runs repository work on every shard in turn, each time in its own transaction,
+     * for maintenance such as compacting the tombstones kept next to each user's contacts.
+     *
+     * @param work - The repository work
+     * @return List<T> - The result of the work on each shard
+     */
+    public <T> List<T> onEveryShard(Supplier<T> work) {
+        if (!isSharded())
+            return List.of(work.get());
+        List<T> results = new ArrayList<>();
+        for (String shard : shardRoutingDataSource.getShards().keySet()) {
+            results.add(runOn(shard, false, work));
+        }
+        return results;
+    }
+
+    private <T> T runOn(String shard, boolean readOnly, Supplier<T> work) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setReadOnly(readOnly);
+        return ShardContext.callOn(shard, () -> transactionTemplate.execute(status -> work.get()));
+    }
+
+    /**
+     * This method reads a whole table from every shard into memory, in id order, fetching id-range
+     * partitions concurrently over separate connections and mapping the rows in a fork-join pool.
+     *
+     * @param table   - The table to read
+     * @param columns - The columns to read, id first
+     * @param mapper  - Maps the column values of a row
+     * @return List<T> - The mapped rows, in id order
+     */
+    public <T> List<T> readAllShardsPartitioned(String table, String columns, Function<Object[], T> mapper) {
+        requireDataSource();
+        Collection<DataSource> sources = isSharded() ? shardRoutingDataSource.getShards().values() : List.of(dataSource);
+        return new PartitionedTableScan<>(sources, table, columns, mapper, partitionedScanPartitions, scanFetchSize,
+                partitionFetchExecutor(), partitionMapPool()).read();
+    }
+
+    @PreDestroy
+    public void shutdownPartitionedScans() {
+        if (partitionFetchExecutor != null)
+            partitionFetchExecutor.shutdownNow();
+        if (partitionMapPool != null)
+            partitionMapPool.shutdownNow();
+    }
+
+    // Created on first use, as most nodes never run an admin scan
+    private synchronized ExecutorService partitionFetchExecutor() {
+        if (partitionFetchExecutor == null)
+            partitionFetchExecutor = Executors.newFixedThreadPool(Math.max(1, partitionedScanParallelism),
+                    Thread.ofPlatform().name("partition-scan-", 0).daemon().factory());
+        return partitionFetchExecutor;
+    }
+
+    private synchronized ForkJoinPool partitionMapPool() {
+        if (partitionMapPool == null)
+            partitionMapPool = new ForkJoinPool(partitionedScanMapParallelism > 0
+                    ? partitionedScanMapParallelism : Runtime.getRuntime().availableProcessors());
+        return partitionMapPool;
+    }
+
+    /**
+     * This method scans every shard in parallel and merges the rows in id order.
+     * The query must order its rows by id. The returned stream must be closed.
+     *
+     * @param sql       - The id-ordered query to run on each shard
+     * @param rowMapper - Maps a row to the result type
+     * @param idOf      - Extracts the id used for merging
+     * @return Stream<T> - The merged rows
+     */
+    public <T> Stream<T> scanAllShards(String sql, RowMapper<T> rowMapper, ToLongFunction<T> idOf) {
+        requireDataSource();
+        Collection<DataSource> sources = isSharded() ? shardRoutingDataSource.getShards().values() : List.of(dataSource);
+        MergingShardScan<T> scan = new MergingShardScan<>(sources, sql, rowMapper, idOf, scanFetchSize, scanExecutor);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(scan, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(scan::close);
+    }
+
+    /**
+     * This method streams the rows of a query on the shard of the given user to a callback.
+     * Rows are fetched in batches of the scan fetch size through a server-side cursor (every pool sets
+     * useCursorFetch=true, without which the driver ignores the fetch size), so memory does not grow with the result;
+     * an exception thrown by the callback stops the query and releases the connection.
+     *
+     * @param userId  - The ID of the owner
+     * @param sql     - The query to run on the user's shard
+     * @param handler - Processes each row as it arrives
+     * @param args    - The query arguments
+     */
+    public void scanShardOf(Long userId, String sql, RowCallbackHandler handler, Object... args) {
+        requireDataSource();
+        DataSource source = isSharded() ? shardRoutingDataSource.getShards().get(shardFor(userId)) : dataSource;
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(source);
+        jdbcTemplate.setFetchSize(scanFetchSize);
+        jdbcTemplate.query(sql, handler, args);
+    }
+
+    /**
+     * This method runs a query on every shard in turn and passes all rows to one callback,
+     * for aggregates that the caller sums across shards, such as GROUP BY counts.
+     *
+     * @param sql     - The query to run on each shard
+     * @param handler - Processes each row as it arrives
+     */
+    public void queryAllShards(String sql, RowCallbackHandler handler) {
+        requireDataSource();
+        Collection<DataSource> sources = isSharded() ? shardRoutingDataSource.getShards().values() : List.of(dataSource);
+        for (DataSource source : sources) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(source);
+            jdbcTemplate.setFetchSize(scanFetchSize);
+            jdbcTemplate.query(sql, handler);
+        }
+    }
+
+    private void requireDataSource() {
+        if (dataSource == null)
+            throw new RuntimeException("This operation needs the relational database and is not available with the embedded store");
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.addressbook.service;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.addressbook.util.LocalBloomFilter;
+import com.example.addressbook.util.RedisCircuitBreaker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * TokenRevocationService keeps the list of access tokens revoked before their expiry, e.g. on logout.
+ * The list lives in Redis as a sorted set of token ids scored by expiry, so expired entries can be dropped.
+ * Every node mirrors it into a LocalBloomFilter, rebuilt whenever the list changed, and only asks Redis
+ * to confirm when the filter reports a possible match; a token that was never revoked is accepted
+ * without leaving the JVM. Revocations made on another node are seen after at most one rebuild interval.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private static final String REVOKED_KEY = "revoked-tokens";
+    private static final String SEQUENCE_KEY = "revoked-tokens:seq";
+
+    @Autowired
+    StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    RedisCircuitBreaker redisCircuitBreaker;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${addressbook.auth.revocation.expected-tokens:100000}")
+    private long expectedTokens;
+
+    @Value("${addressbook.auth.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    // Null until the first build, when every check is confirmed in Redis
+    private volatile LocalBloomFilter filter;
+    private volatile String builtSequence;
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("addressbook.auth.revocation.filter_bits", this, service -> service.filter == null ? 0 : service.filter.getBits())
+                .register(meterRegistry);
+    }
+
+    /**
+     * This method returns the id a token is revoked by: its jti claim, or its signature for tokens issued without one.
+     *
+     * @param decodedJWT - The verified token
+     * @return String - The revocation id
+     */
+    public static String revocationId(DecodedJWT decodedJWT) {
+        return decodedJWT.getId() != null ? decodedJWT.getId() : decodedJWT.getSignature();
+    }
+
+    /**
+     * This method revokes a token until it expires.
+     *
+     * @param decodedJWT - The verified token to revoke
+     */
+    public void revoke(DecodedJWT decodedJWT) {
+        String id = revocationId(decodedJWT);
+        stringRedisTemplate.opsForZSet().add(REVOKED_KEY, id, decodedJWT.getExpiresAt().getTime());
+        stringRedisTemplate.opsForValue().increment(SEQUENCE_KEY);
+        LocalBloomFilter current = filter;
+        if (current != null)
+            current.add(id);
+        meterRegistry.counter("addressbook.auth.revocation.revoked").increment();
+    }
+
+    /**
+     * This method checks whether a token was revoked.
+     * If Redis can not confirm a filter match, the token is treated as revoked;
+     * before the first filter build, tokens are accepted while Redis is unavailable.
+     *
+     * @param decodedJWT - The verified token
+     * @return boolean - true if the token was revoked
+     */
+    public boolean isRevoked(DecodedJWT decodedJWT) {
+        String id = revocationId(decodedJWT);
+        LocalBloomFilter current = filter;
+        if (current != null && !current.mightContain(id)) {
+            count("filter_negative");
+            return false;
+        }
+        boolean revoked = redisCircuitBreaker.call(() -> stringRedisTemplate.opsForZSet().score(REVOKED_KEY, id) != null,
+                current != null);
+        count(revoked ? "confirmed" : "false_positive");
+        return revoked;
+    }
+
+    /**
+     * This method rebuilds the local filter from Redis when the revocation list changed since the last build,
+     * dropping revoked tokens that have expired in the process.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${addressbook.auth.revocation.rebuild-interval-ms:10000}")
+    public void rebuild() {
+        try {
+            String sequence = stringRedisTemplate.opsForValue().get(SEQUENCE_KEY);
+            if (filter != null && Objects.equals(sequence, builtSequence))
+                return;
+
+            long now = System.currentTimeMillis();
+            stringRedisTemplate.opsForZSet().removeRangeByScore(REVOKED_KEY, Double.NEGATIVE_INFINITY, now);
+            Set<String> revoked = stringRedisTemplate.opsForZSet().rangeByScore(REVOKED_KEY, now, Double.POSITIVE_INFINITY);
+            int size = revoked == null ? 0 : revoked.size();
+
+            LocalBloomFilter rebuilt = new LocalBloomFilter(Math.max(expectedTokens, 2L * size), falsePositiveRate);
+            if (revoked != null)
+                revoked.forEach(rebuilt::add);
+            filter = rebuilt;
+            builtSequence = sequence;
+            log.debug("Rebuilt token revocation filter from {} revoked tokens", size);
+        } catch (RuntimeException e) {
+            // Keep the previous filter; a revocation it misses is caught by the next rebuild
+            log.warn("Could not rebuild token revocation filter: {}", e.getMessage());
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("addressbook.auth.revocation.checks", "result", result).increment();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.model.UserAuthentication;
+import com.example.addressbook.repository.UserAuthenticationRepository;
+import com.example.addressbook.util.RedisCircuitBreaker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TokenVersionService knows the current token version of every user, which access tokens must carry to be accepted.
+ * Versions are read from a short-lived local cache, then Redis, and only then ACCOUNTS,
+ * so validating a token normally costs no database query.
+ * A password change bumps the version, invalidating all tokens issued before it within the local cache TTL on every node.
+ */
+@Service
+public class TokenVersionService {
+
+    private static final String KEY_PREFIX = "token-version:";
+    private static final int MAX_LOCAL_ENTRIES = 100_000;
+
+    private record CachedVersion(int version, long expiresAt) {
+    }
+
+    @Autowired
+    StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    UserAuthenticationRepository userAuthenticationRepository;
+
+    @Autowired
+    RedisCircuitBreaker redisCircuitBreaker;
+
+    @Value("${addressbook.auth.token-version.local-ttl:5s}")
+    private Duration localTtl;
+
+    @Value("${addressbook.auth.token-version.redis-ttl:1d}")
+    private Duration redisTtl;
+
+    private final Map<Long, CachedVersion> local = new ConcurrentHashMap<>();
+
+    /**
+     * This method returns the user's current token version.
+     *
+     * @param userId - The ID of the user
+     * @return int - The current version, or -1 if the user no longer exists
+     */
+    public int currentVersion(Long userId) {
+        long now = System.currentTimeMillis();
+        CachedVersion cached = local.get(userId);
+        if (cached != null && cached.expiresAt() > now)
+            return cached.version();
+
+        String stored = redisCircuitBreaker.call(() -> stringRedisTemplate.opsForValue().get(KEY_PREFIX + userId), null);
+        int version;
+        if (stored != null) {
+            version = Integer.parseInt(stored);
+        } else {
+            version = userAuthenticationRepository.findTokenVersion(userId).orElse(-1);
+            // SET NX, so a version read before a concurrent bump never overwrites the bumped one
+            redisCircuitBreaker.call(() -> stringRedisTemplate.opsForValue()
+                    .setIfAbsent(KEY_PREFIX + userId, Integer.toString(version), redisTtl), false);
+        }
+
+        if (local.size() >= MAX_LOCAL_ENTRIES)
+            local.clear();
+        local.put(userId, new CachedVersion(version, now + localTtl.toMillis()));
+        return version;
+    }
+
+    /**
+     * This method increments the user's token version. The caller saves the user;
+     * the new version is published to Redis once that transaction commits.
+     *
+     * @param user - The user whose existing tokens must stop working
+     */
+    public void bumpVersion(UserAuthentication user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        Long userId = user.getUserId();
+        String version = Integer.toString(user.getTokenVersion());
+        Runnable publish = () -> {
+            local.remove(userId);
+            redisCircuitBreaker.call(() -> {
+                stringRedisTemplate.opsForValue().set(KEY_PREFIX + userId, version, redisTtl);
+                return true;
+            }, false);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish.run();
+                }
+            });
+        } else {
+            publish.run();
+        }
+    }
+}
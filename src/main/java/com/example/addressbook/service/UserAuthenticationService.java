@@ -5,6 +5,7 @@ import com.example.addressbook.exception.UserException;
 import com.example.addressbook.interfaces.IUserAuthenticationService;
 import com.example.addressbook.model.UserAuthentication;
 import com.example.addressbook.repository.UserAuthenticationRepository;
+import com.example.addressbook.util.AuthenticatedUser;
 import com.example.addressbook.util.JwtToken;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,6 +47,24 @@ public class UserAuthenticationService implements IUserAuthenticationService {
     @Autowired
     MessageProducer messageProducer;        // EventPublisherService is used to publish events.
 
+    @Autowired
+    AddressBookCacheWarmer addressBookCacheWarmer;  // Prefetches the user's address book into the cache after login.
+
+    @Autowired
+    NegativeLookupCache negativeLookupCache;    // Answers lookups of unregistered emails without a query.
+
+    @Autowired
+    TokenVersionService tokenVersionService;    // Invalidates issued access tokens when the password changes.
+
+    @Autowired
+    RefreshTokenService refreshTokenService;    // Issues and rotates refresh tokens.
+
+    @Autowired
+    TokenRevocationService tokenRevocationService;  // Revokes access tokens before they expire.
+
+    @Autowired
+    ContactStatsService contactStatsService;    // Counts registrations for the admin dashboard.
+
 
     /**
      * This method registers a new user.
@@ -70,6 +89,8 @@ public class UserAuthenticationService implements IUserAuthenticationService {
         user.setPassword(encodedPassword);
 
         UserAuthentication savedUser = userAuthenticationRepository.save(user);
+        negativeLookupCache.recordRegisteredEmail(savedUser.getEmail());
+        contactStatsService.userRegistered();
 
         String customMessage = "REGISTER|" + savedUser.getEmail() + "|" + savedUser.getFirstName() + " " + savedUser.getLastName();
         messageProducer.sendMessage(customMessage);
@@ -88,18 +109,24 @@ public class UserAuthenticationService implements IUserAuthenticationService {
 
     /**
      * This method checks if a user with the given email exists in the database.
+     * Emails known not to be registered are answered from the negative lookup cache without a query.
      *
      * @param email - The email address of the user.
      * @return UserAuthentication - The UserAuthentication object if the user exists, null otherwise.
      */
     public Optional<UserAuthentication> existsByEmail(String email) {
-        return userAuthenticationRepository.findByEmail(email);
+        if (negativeLookupCache.isKnownMissingEmail(email))
+            return Optional.empty();
+        Optional<UserAuthentication> user = userAuthenticationRepository.findByEmail(email);
+        if (user.isEmpty())
+            negativeLookupCache.recordMissingEmail(email);
+        return user;
     }
 
     /**
      * This method logs in a user.
      * It takes a LoginDTO object as input, checks if the user exists and if the password is correct,
-     * generates a JWT token, and sends a success email to the user.
+     * generates a JWT token and a refresh token, and sends a success email to the user.
      *
      * @param loginDTO - The LoginDTO object containing login details.
      * @return String - A success message.
@@ -109,7 +136,9 @@ public class UserAuthenticationService implements IUserAuthenticationService {
     public String login(LoginDTO loginDTO) throws UserException {
         Optional<UserAuthentication> user = existsByEmail(loginDTO.getEmail());
         if (user.isPresent() && passwordEncoder.matches(loginDTO.getPassword(), user.get().getPassword())) {
-            String sessionToken = tokenUtil.createToken(user.get().getEmail(), user.get().getRole());
+            String sessionToken = tokenUtil.createToken(user.get());
+            String refreshToken = refreshTokenService.issue(user.get());
+            addressBookCacheWarmer.warmUp(user.get());
 //            user.setSessionToken(sessionToken);
 //            redisTemplate.opsForValue().set("session:" + sessionToken, user, 10, TimeUnit.MINUTES);
             emailSenderService.sendEmail(user.get().getEmail(),"Logged in Successfully!", "Hii...."+user.get().getFirstName()+"\n\n You have successfully logged in into MyAddressBook App!");
@@ -117,7 +146,8 @@ public class UserAuthenticationService implements IUserAuthenticationService {
             String customMessage = "LOGIN|" + user.get().getEmail() + "|" + user.get().getFirstName() + " " + user.get().getLastName();
             messageProducer.sendMessage(customMessage);
 
-            return "Congratulations!! You have logged in successfully!\n\n Your JWT token is: " + sessionToken;
+            String result = "Congratulations!! You have logged in successfully!\n\n Your JWT token is: " + sessionToken;
+            return refreshToken == null ? result : result + "\n\n Your refresh token is: " + refreshToken;
         } else if (user.isEmpty()) {
             throw new UserException("Sorry! User not Found!");
         } else if (!passwordEncoder.matches(loginDTO.getPassword(), user.get().getPassword())) {
@@ -128,6 +158,42 @@ public class UserAuthenticationService implements IUserAuthenticationService {
     }
 
 
+    /**
+     * This method issues a new access token for a refresh token, without checking the password.
+     * The refresh token is rotated; the one presented can not be used again.
+     *
+     * @param refreshTokenDTO - The RefreshTokenDTO object containing the refresh token.
+     * @return String - The new access token and refresh token.
+     * @throws UserException - If the refresh token is invalid, expired, reused or revoked.
+     */
+    @Override
+    public String refresh(RefreshTokenDTO refreshTokenDTO) throws UserException {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshTokenDTO.getRefreshToken());
+        String sessionToken = tokenUtil.createToken(rotation.user());
+        return "Your JWT token is: " + sessionToken + "\n\n Your refresh token is: " + rotation.refreshToken();
+    }
+
+    /**
+     * This method logs out a user.
+     * The access token is revoked until it expires, and so is the refresh token family if one is given.
+     *
+     * @param sessionToken - The JWT token to revoke.
+     * @param refreshToken - The refresh token issued with it, or null.
+     * @return String - A success message.
+     * @throws UserException - If the token is invalid or could not be revoked.
+     */
+    @Override
+    public String logout(String sessionToken, String refreshToken) throws UserException {
+        try {
+            tokenRevocationService.revoke(tokenUtil.verify(sessionToken));
+            if (refreshToken != null && !refreshToken.isBlank())
+                refreshTokenService.revoke(refreshToken);
+        } catch (RuntimeException e) {
+            throw new UserException("Logout failed: " + e.getMessage());
+        }
+        return "Logged out successfully!!";
+    }
+
     /**
      * This method resets the password for a user.
      * It takes a JWT token and a ResetPasswordDTO object as input,
@@ -139,17 +205,23 @@ public class UserAuthenticationService implements IUserAuthenticationService {
      * @throws UserException - If any error occurs during password reset.
      */
     @Override
+    @Transactional
     public String resetPassword(String resetToken, ResetPasswordDTO resetPasswordDTO) throws UserException {
         if (tokenUtil.isTokenExpired(resetToken))
             throw new UserException("Token is expired");
 
-        String email = tokenUtil.decodeToken(resetToken);
+        AuthenticatedUser tokenUser = tokenUtil.verifyResetToken(resetToken);
+        String email = tokenUser.getEmail();
         Optional<UserAuthentication> user = existsByEmail(email);
         if (user.isPresent()) {
+            // Bumped by every reset, password change and logout-all, so a reset token works once
+            if (user.get().getTokenVersion() != tokenUser.getTokenVersion())
+                throw new UserException("Token is no longer valid");
             String password = resetPasswordDTO.getNewPassword();
             String encodedPassword = passwordEncoder.encode(password);
             user.get().setPassword(encodedPassword);
             user.get().setResetToken(null);
+            tokenVersionService.bumpVersion(user.get());
             userAuthenticationRepository.save(user.get());
             emailSenderService.sendEmail(user.get().getEmail(),"Password Reset Successfully!", "Hii...."+user.get().getFirstName()+"\n\n Your password has been reset successfully!");
             return "Password reset successfully!!";
@@ -174,7 +246,7 @@ public class UserAuthenticationService implements IUserAuthenticationService {
         String email = forgotPasswordDTO.getEmail();
         Optional<UserAuthentication> user = existsByEmail(email);
         if (user.isPresent()) {
-            String resetToken = tokenUtil.createToken(email, user.get().getRole());
+            String resetToken = tokenUtil.createResetToken(user.get());
             user.get().setResetToken(resetToken);
             userAuthenticationRepository.save(user.get());
             String resetLink = "http://localhost:8080/reset-password";
@@ -201,6 +273,7 @@ public class UserAuthenticationService implements IUserAuthenticationService {
      * @throws UserException - If any error occurs during password change.
      */
     @Override
+    @Transactional
     public String changePassword(String sessionToken, ChangePasswordDTO changePasswordDTO) throws UserException {
         if (tokenUtil.isTokenExpired(sessionToken))
             throw new UserException("Session expired!");
@@ -212,6 +285,7 @@ public class UserAuthenticationService implements IUserAuthenticationService {
             String encodedPassword = passwordEncoder.encode(password);
             user.get().setPassword(encodedPassword);
             user.get().setResetToken(null);
+            tokenVersionService.bumpVersion(user.get());
             userAuthenticationRepository.save(user.get());
             emailSenderService.sendEmail(user.get().getEmail(),"Password Changed Successfully!", "Hii...."+user.get().getFirstName()+"\n\n Your password has been changed successfully!");
             return "Password changed successfully!!";
@@ -0,0 +1,35 @@
+package com.example.addressbook.util;
+
+import lombok.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * The authenticated user as described by the verified claims of the access token.
+ * JwtRequestFilter sets it as the principal, so services can read the user's id and role
+ * through SecurityUtil without loading the ACCOUNTS row.
+ */
+@Value
+public class AuthenticatedUser implements Principal {
+
+    Long userId;
+    String email;
+    String role;
+    int tokenVersion;
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public boolean isAdmin() {
+        return "ADMIN".equals(role);
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
+    }
+}
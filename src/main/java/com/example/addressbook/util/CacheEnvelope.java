@@ -0,0 +1,39 @@
+package com.example.addressbook.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A cached value stored together with how long it took to load and when it expires,
+ * which is what probabilistic early expiration (XFetch) needs to decide on a refresh.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheEnvelope implements Serializable {
+
+    private Object value;
+
+    // Time the loader took, in milliseconds
+    private long loadMillis;
+
+    // Epoch millis at which the Redis entry expires
+    private long expiresAt;
+
+    /**
+     * This method decides whether this read should refresh the entry ahead of its expiry.
+     * The probability rises as expiry approaches, and earlier for entries that are slow to load.
+     *
+     * @param now  - The current epoch millis
+     * @param beta - Values above 1 favour earlier refreshes, below 1 later ones
+     * @return boolean - true if the caller should refresh the entry now
+     */
+    public boolean shouldRefreshEarly(long now, double beta) {
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble(); // (0, 1]
+        return now - loadMillis * beta * Math.log(random) >= expiresAt;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.addressbook.util;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Utility class to generate change sequence numbers for address book entries.
+ * A sequence is the current time in microseconds, bumped by one whenever two changes
+ * land in the same microsecond, so it is strictly increasing within a node and
+ * roughly time ordered across nodes. Clients use it as an opaque delta-sync cursor.
+ */
+public class ChangeSequenceGenerator {
+
+    private static final AtomicLong LAST_SEQUENCE = new AtomicLong();
+
+    private ChangeSequenceGenerator() {
+    }
+
+    /**
+     * This method returns the next change sequence number.
+     *
+     * @return long - A sequence number greater than any previously returned by this node
+     */
+    public static long next() {
+        long now = sequenceAt(Instant.now());
+        return LAST_SEQUENCE.updateAndGet(last -> Math.max(last + 1, now));
+    }
+
+    /**
+     * This method converts a point in time to the lowest sequence number generated at that time.
+     *
+     * @param instant - The point in time
+     * @return long - The sequence number for the given time
+     */
+    public static long sequenceAt(Instant instant) {
+        return instant.toEpochMilli() * 1000;
+    }
+}
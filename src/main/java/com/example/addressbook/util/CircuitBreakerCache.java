@@ -0,0 +1,189 @@
+package com.example.addressbook.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cache decorator that keeps the API responsive while Redis is failing.
+ * Calls to the Redis-backed delegate go through a RedisCircuitBreaker; while it is open, or when a call fails,
+ * reads and writes use a small bounded local cache with a short TTL, and misses load from the database.
+ * Evictions that could not reach Redis are remembered, and the Redis cache is cleared once the breaker closes,
+ * so no entry invalidated during the outage is served afterwards.
+ */
+public class CircuitBreakerCache implements Cache {
+
+    private record LocalEntry(Object value, long expiresAt) {
+    }
+
+    private final Cache delegate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final long localTtlMillis;
+    private final Map<Object, LocalEntry> local;
+    private final AtomicBoolean missedEvictions = new AtomicBoolean();
+
+    public CircuitBreakerCache(Cache delegate, RedisCircuitBreaker circuitBreaker, MeterRegistry meterRegistry,
+                               int localMaxEntries, Duration localTtl) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.localTtlMillis = localTtl.toMillis();
+        this.local = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, LocalEntry> eldest) {
+                return size() > localMaxEntries;
+            }
+        };
+        circuitBreaker.addRecoveryListener(this::onRecovery);
+        Gauge.builder("addressbook.cache.local.size", this, cache -> cache.localSize())
+                .tag("cache", delegate.getName())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        if (circuitBreaker.allowRequest()) {
+            long start = System.nanoTime();
+            try {
+                ValueWrapper wrapper = delegate.get(key);
+                circuitBreaker.onSuccess(System.nanoTime() - start);
+                return wrapper;
+            } catch (RuntimeException e) {
+                circuitBreaker.onFailure();
+            }
+        }
+        return getLocal(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value))
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (circuitBreaker.allowRequest()) {
+            // Database time spent in the loader is not Redis latency, and loader failures are not Redis failures.
+            long[] loaderNanos = new long[1];
+            AtomicBoolean loaderFailed = new AtomicBoolean();
+            Callable<T> timedLoader = () -> {
+                long loadStart = System.nanoTime();
+                try {
+                    return valueLoader.call();
+                } catch (Exception e) {
+                    loaderFailed.set(true);
+                    throw e;
+                } finally {
+                    loaderNanos[0] += System.nanoTime() - loadStart;
+                }
+            };
+            long start = System.nanoTime();
+            try {
+                T value = delegate.get(key, timedLoader);
+                circuitBreaker.onSuccess(System.nanoTime() - start - loaderNanos[0]);
+                return value;
+            } catch (RuntimeException e) {
+                if (loaderFailed.get())
+                    throw e;
+                circuitBreaker.onFailure();
+            }
+        }
+
+        ValueWrapper wrapper = getLocal(key);
+        if (wrapper != null)
+            return (T) wrapper.get();
+        try {
+            T value = valueLoader.call();
+            putLocal(key, value);
+            return value;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (!runOnRedis(() -> delegate.put(key, value)))
+            putLocal(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        synchronized (local) {
+            local.remove(key);
+        }
+        if (!runOnRedis(() -> delegate.evict(key)))
+            missedEvictions.set(true);
+    }
+
+    @Override
+    public void clear() {
+        synchronized (local) {
+            local.clear();
+        }
+        if (!runOnRedis(delegate::clear))
+            missedEvictions.set(true);
+    }
+
+    private boolean runOnRedis(Runnable action) {
+        return circuitBreaker.call(() -> {
+            action.run();
+            return true;
+        }, false);
+    }
+
+    private void onRecovery() {
+        if (missedEvictions.getAndSet(false) && !runOnRedis(delegate::clear))
+            missedEvictions.set(true);
+        synchronized (local) {
+            local.clear();
+        }
+    }
+
+    private ValueWrapper getLocal(Object key) {
+        synchronized (local) {
+            LocalEntry entry = local.get(key);
+            if (entry == null)
+                return null;
+            if (entry.expiresAt() < System.currentTimeMillis()) {
+                local.remove(key);
+                return null;
+            }
+            return new SimpleValueWrapper(entry.value());
+        }
+    }
+
+    private void putLocal(Object key, Object value) {
+        synchronized (local) {
+            local.put(key, new LocalEntry(value, System.currentTimeMillis() + localTtlMillis));
+        }
+    }
+
+    private int localSize() {
+        synchronized (local) {
+            return local.size();
+        }
+    }
+}
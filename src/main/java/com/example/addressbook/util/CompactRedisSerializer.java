@@ -0,0 +1,253 @@
+package com.example.addressbook.util;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact Redis value serializer for cached contacts.
+ * AddressBookDTO and List<AddressBookDTO> are written field by field in a fixed order,
+ * without the per-element type metadata GenericJackson2JsonRedisSerializer embeds;
+ * any other value falls back to that JSON serializer.
+ * <p>
+ * Layout: [format version][codec][body], where codec 1 means the body is deflated
+ * (prefixed with its raw length) because it was larger than the compression threshold.
+ * Values written by an unknown newer format version read as null, i.e. a cache miss,
+ * so old and new nodes can share Redis during a rolling upgrade.
+ * A CacheEnvelope is written as its load time and expiry followed by the wrapped value.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    public static final byte FORMAT_VERSION = 1;
+
+    private static final byte CODEC_RAW = 0;
+    private static final byte CODEC_DEFLATE = 1;
+
+    private static final byte TYPE_CONTACT = 1;
+    private static final byte TYPE_CONTACT_LIST = 2;
+    private static final byte TYPE_JSON = 3;
+    private static final byte TYPE_ENVELOPE = 4;
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+    private final JdkSerializationRedisSerializer jdkSerializer = new JdkSerializationRedisSerializer();
+    private final int compressionThreshold;
+
+    /**
+     * @param compressionThreshold - Bodies larger than this many bytes are deflated; a negative value disables compression
+     */
+    public CompactRedisSerializer(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null)
+            return new byte[0];
+
+        Writer body = new Writer();
+        writeBody(body, value);
+
+        byte[] raw = body.toByteArray();
+        if (compressionThreshold >= 0 && raw.length > compressionThreshold) {
+            byte[] compressed = deflate(raw);
+            if (compressed.length < raw.length) {
+                Writer out = new Writer();
+                out.write(FORMAT_VERSION);
+                out.write(CODEC_DEFLATE);
+                out.writeVarLong(raw.length);
+                out.write(compressed, 0, compressed.length);
+                return out.toByteArray();
+            }
+        }
+
+        byte[] out = new byte[raw.length + 2];
+        out[0] = FORMAT_VERSION;
+        out[1] = CODEC_RAW;
+        System.arraycopy(raw, 0, out, 2, raw.length);
+        return out;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0)
+            return null;
+
+        // Values cached before this serializer was introduced
+        if (bytes[0] == '{' || bytes[0] == '[' || bytes[0] == '"')
+            return jsonSerializer.deserialize(bytes);
+        if (bytes.length > 1 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED)
+            return jdkSerializer.deserialize(bytes);
+
+        if (bytes[0] != FORMAT_VERSION || bytes.length < 3)
+            return null;
+
+        ByteBuffer body = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+        if (bytes[1] == CODEC_DEFLATE) {
+            int rawLength = (int) readVarLong(body);
+            body = ByteBuffer.wrap(inflate(bytes, body.position(), rawLength));
+        } else if (bytes[1] != CODEC_RAW) {
+            return null;
+        }
+
+        return readBody(body);
+    }
+
+    private void writeBody(Writer body, Object value) {
+        if (value instanceof AddressBookDTO contact) {
+            body.write(TYPE_CONTACT);
+            writeContact(body, contact);
+        } else if (value instanceof List<?> list && list.stream().allMatch(AddressBookDTO.class::isInstance)) {
+            body.write(TYPE_CONTACT_LIST);
+            body.writeVarLong(list.size());
+            for (Object contact : list) {
+                writeContact(body, (AddressBookDTO) contact);
+            }
+        } else if (value instanceof CacheEnvelope envelope && envelope.getValue() != null) {
+            body.write(TYPE_ENVELOPE);
+            body.writeVarLong(envelope.getLoadMillis());
+            body.writeVarLong(envelope.getExpiresAt());
+            writeBody(body, envelope.getValue());
+        } else {
+            byte[] json = jsonSerializer.serialize(value);
+            body.write(TYPE_JSON);
+            body.write(json, 0, json.length);
+        }
+    }
+
+    private Object readBody(ByteBuffer body) {
+        byte type = body.get();
+        switch (type) {
+            case TYPE_CONTACT:
+                return readContact(body);
+            case TYPE_CONTACT_LIST:
+                int size = (int) readVarLong(body);
+                List<AddressBookDTO> contacts = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    contacts.add(readContact(body));
+                }
+                return contacts;
+            case TYPE_ENVELOPE:
+                long loadMillis = readVarLong(body);
+                long expiresAt = readVarLong(body);
+                Object value = readBody(body);
+                return value == null ? null : new CacheEnvelope(value, loadMillis, expiresAt);
+            case TYPE_JSON:
+                byte[] json = new byte[body.remaining()];
+                body.get(json);
+                return jsonSerializer.deserialize(json);
+            default:
+                return null;
+        }
+    }
+
+    private static void writeContact(Writer out, AddressBookDTO contact) {
+        // id + 1 so that a null id costs a single zero byte
+        out.writeVarLong(contact.getId() == null ? 0 : contact.getId() + 1);
+        out.writeString(contact.getFirstName());
+        out.writeString(contact.getLastName());
+        out.writeString(contact.getAddress());
+        out.writeString(contact.getEmail());
+        out.writeString(contact.getPhoneNumber());
+    }
+
+    private static AddressBookDTO readContact(ByteBuffer in) {
+        long id = readVarLong(in);
+        return new AddressBookDTO(id == 0 ? null : id - 1,
+                readString(in), readString(in), readString(in), readString(in), readString(in));
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new SerializationException("Malformed varint in cached value");
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        if (length == 0)
+            return null;
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length - 1, StandardCharsets.UTF_8);
+        in.position(in.position() + length - 1);
+        return value;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes, int offset, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, rawLength - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                read += n;
+            }
+            if (read != rawLength)
+                throw new SerializationException("Truncated compressed cache value");
+            return raw;
+        } catch (DataFormatException e) {
+            throw new SerializationException("Corrupt compressed cache value", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static final class Writer extends ByteArrayOutputStream {
+
+        Writer() {
+            super(256);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        // Length + 1 prefix, so null and "" stay distinguishable
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            write(utf8, 0, utf8.length);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.addressbook.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Immutable consistent-hash ring mapping owner user ids to shard keys.
+ * Every shard is placed on the ring at several virtual nodes, so adding a shard
+ * only moves the users that now hash to the new shard's nodes.
+ */
+public class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final Set<String> shards;
+    private final int virtualNodes;
+
+    public ConsistentHashRing(Collection<String> shards, int virtualNodes) {
+        this.shards = Collections.unmodifiableSet(new TreeSet<>(shards));
+        this.virtualNodes = virtualNodes;
+        for (String shard : this.shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(shard + "#" + i), shard);
+            }
+        }
+    }
+
+    /**
+     * This method finds the shard that owns the given user's contacts.
+     *
+     * @param userId - The ID of the owner
+     * @return String - The shard key
+     */
+    public String shardFor(long userId) {
+        if (ring.isEmpty())
+            throw new IllegalStateException("The shard ring is empty");
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash("user:" + userId));
+        return (entry != null ? entry : ring.firstEntry()).getValue();
+    }
+
+    /**
+     * This method returns a new ring with one more shard.
+     *
+     * @param shard - The shard key to add
+     * @return ConsistentHashRing - The ring including the shard
+     */
+    public ConsistentHashRing withShard(String shard) {
+        Set<String> extended = new TreeSet<>(shards);
+        extended.add(shard);
+        return new ConsistentHashRing(extended, virtualNodes);
+    }
+
+    public Set<String> getShards() {
+        return shards;
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+}
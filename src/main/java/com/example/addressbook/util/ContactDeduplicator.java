@@ -0,0 +1,414 @@
+package com.example.addressbook.util;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import com.example.addressbook.dto.DuplicateSuggestionDTO;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ContactDeduplicator finds groups of contacts in one address book that are likely the same person.
+ * Instead of comparing all pairs, contacts are blocked by normalized phone number, lower-cased email
+ * and the Soundex codes of first and last name; only contacts sharing a block are scored.
+ * Blocks larger than maxBlockSize (a placeholder email, a very common name) are compared within a
+ * sliding window after sorting by name. Blocks are scored in parallel on a ForkJoinPool, and every
+ * pair is scored once, in the first block type the two contacts share.
+ * Pairs scoring at least the threshold are joined into groups with union-find.
+ */
+public class ContactDeduplicator {
+
+    private static final int PHONE = 0;
+    private static final int EMAIL = 1;
+    private static final int NAME = 2;
+    private static final int BLOCKS_PER_TASK = 64;
+
+    private record Normalized(String firstName, String lastName, String email, String phone, String address, String nameKey) {
+    }
+
+    private record Block(int type, int[] members) {
+    }
+
+    private record Match(int first, int second, double score) {
+    }
+
+    /**
+     * The duplicate groups, highest score first, and the number of contact pairs that were scored.
+     */
+    public record Result(List<DuplicateSuggestionDTO> suggestions, long comparisons) {
+    }
+
+    private final ForkJoinPool pool;
+    private final double threshold;
+    private final int maxBlockSize;
+    private final int window;
+
+    public ContactDeduplicator(ForkJoinPool pool, double threshold, int maxBlockSize, int window) {
+        this.pool = pool;
+        this.threshold = threshold;
+        this.maxBlockSize = maxBlockSize;
+        this.window = window;
+    }
+
+    /**
+     * This method finds the duplicate groups among the contacts of one address book.
+     *
+     * @param contacts - The contacts to check
+     * @return Result - The duplicate groups and the number of comparisons made
+     */
+    public Result findDuplicates(List<AddressBookDTO> contacts) {
+        Normalized[] normalized = new Normalized[contacts.size()];
+        for (int i = 0; i < normalized.length; i++) {
+            normalized[i] = normalize(contacts.get(i));
+        }
+
+        List<Block> blocks = buildBlocks(normalized);
+        // Largest blocks first, so they are not the last tasks left running
+        blocks.sort(Comparator.comparingInt((Block block) -> block.members().length).reversed());
+
+        ConcurrentLinkedQueue<Match> matches = new ConcurrentLinkedQueue<>();
+        LongAdder comparisons = new LongAdder();
+        pool.invoke(new ScoreBlocks(blocks, 0, blocks.size(), normalized, matches, comparisons));
+
+        return new Result(group(contacts, matches), comparisons.sum());
+    }
+
+    private List<Block> buildBlocks(Normalized[] normalized) {
+        List<Map<String, List<Integer>>> byType = List.of(new HashMap<>(), new HashMap<>(), new HashMap<>());
+        for (int i = 0; i < normalized.length; i++) {
+            Normalized contact = normalized[i];
+            if (contact.phone() != null)
+                byType.get(PHONE).computeIfAbsent(contact.phone(), key -> new ArrayList<>(2)).add(i);
+            if (contact.email() != null)
+                byType.get(EMAIL).computeIfAbsent(contact.email(), key -> new ArrayList<>(2)).add(i);
+            if (contact.nameKey() != null)
+                byType.get(NAME).computeIfAbsent(contact.nameKey(), key -> new ArrayList<>(2)).add(i);
+        }
+
+        List<Block> blocks = new ArrayList<>();
+        for (int type = PHONE; type <= NAME; type++) {
+            for (List<Integer> members : byType.get(type).values()) {
+                if (members.size() > 1)
+                    blocks.add(new Block(type, members.stream().mapToInt(Integer::intValue).toArray()));
+            }
+        }
+        return blocks;
+    }
+
+    private final class ScoreBlocks extends RecursiveAction {
+
+        private final List<Block> blocks;
+        private final int from;
+        private final int to;
+        private final Normalized[] normalized;
+        private final ConcurrentLinkedQueue<Match> matches;
+        private final LongAdder comparisons;
+
+        ScoreBlocks(List<Block> blocks, int from, int to, Normalized[] normalized,
+                    ConcurrentLinkedQueue<Match> matches, LongAdder comparisons) {
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+            this.normalized = normalized;
+            this.matches = matches;
+            this.comparisons = comparisons;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > BLOCKS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ScoreBlocks(blocks, from, middle, normalized, matches, comparisons),
+                        new ScoreBlocks(blocks, middle, to, normalized, matches, comparisons));
+                return;
+            }
+            long compared = 0;
+            for (int b = from; b < to; b++) {
+                compared += scoreBlock(blocks.get(b));
+            }
+            comparisons.add(compared);
+        }
+
+        private long scoreBlock(Block block) {
+            int[] members = block.members();
+            long compared = 0;
+            if (members.length <= maxBlockSize) {
+                for (int i = 0; i < members.length; i++) {
+                    for (int j = i + 1; j < members.length; j++) {
+                        compared += scorePair(block.type(), members[i], members[j]);
+                    }
+                }
+                return compared;
+            }
+
+            // Sorted neighbourhood: only contacts close to each other by name are compared
+            Integer[] sorted = Arrays.stream(members).boxed().toArray(Integer[]::new);
+            Arrays.sort(sorted, Comparator.comparing((Integer i) -> sortKey(normalized[i])));
+            for (int i = 0; i < sorted.length; i++) {
+                for (int j = i + 1; j <= i + window && j < sorted.length; j++) {
+                    compared += scorePair(block.type(), sorted[i], sorted[j]);
+                }
+            }
+            return compared;
+        }
+
+        private int scorePair(int blockType, int a, int b) {
+            Normalized first = normalized[a];
+            Normalized second = normalized[b];
+            // The pair belongs to the first block type both contacts share
+            if (blockType > PHONE && first.phone() != null && first.phone().equals(second.phone()))
+                return 0;
+            if (blockType > EMAIL && first.email() != null && first.email().equals(second.email()))
+                return 0;
+
+            double score = score(first, second);
+            if (score >= threshold)
+                matches.add(new Match(Math.min(a, b), Math.max(a, b), score));
+            return 1;
+        }
+    }
+
+    // Weighted average of field similarities, over the fields both contacts have.
+    // Exact and short fields are compared first; once even perfect email and address similarity
+    // could not reach the threshold, the remaining Jaro-Winkler calls are skipped and that upper bound returned.
+    private double score(Normalized a, Normalized b) {
+        double total = 0;
+        double weights = 0;
+        if (a.phone() != null && b.phone() != null) {
+            boolean same = a.phone().equals(b.phone());
+            total += same ? 3 : 0;
+            weights += same ? 3 : 1;
+        }
+        boolean compareEmails = false;
+        if (a.email() != null && b.email() != null) {
+            if (a.email().equals(b.email())) {
+                total += 3;
+                weights += 3;
+            } else {
+                compareEmails = true;
+            }
+        }
+        if (a.firstName() != null && b.firstName() != null) {
+            total += 2 * jaroWinkler(a.firstName(), b.firstName());
+            weights += 2;
+        }
+        if (a.lastName() != null && b.lastName() != null) {
+            total += 2 * jaroWinkler(a.lastName(), b.lastName());
+            weights += 2;
+        }
+        boolean compareAddresses = a.address() != null && b.address() != null;
+
+        double pending = (compareEmails ? 1 : 0) + (compareAddresses ? 1 : 0);
+        if (weights + pending == 0)
+            return 0;
+        if ((total + pending) / (weights + pending) < threshold)
+            return (total + pending) / (weights + pending);
+        if (compareEmails) {
+            total += jaroWinkler(a.email(), b.email());
+            weights += 1;
+            pending -= 1;
+            if ((total + pending) / (weights + pending) < threshold)
+                return (total + pending) / (weights + pending);
+        }
+        if (compareAddresses) {
+            total += jaroWinkler(a.address(), b.address());
+            weights += 1;
+        }
+        return total / weights;
+    }
+
+    private List<DuplicateSuggestionDTO> group(List<AddressBookDTO> contacts, Collection<Match> matches) {
+        int[] parent = new int[contacts.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        Map<Integer, Double> bestScore = new HashMap<>();
+        for (Match match : matches) {
+            int rootA = find(parent, match.first());
+            int rootB = find(parent, match.second());
+            double best = Math.max(match.score(), Math.max(bestScore.getOrDefault(rootA, 0.0), bestScore.getOrDefault(rootB, 0.0)));
+            if (rootA != rootB)
+                parent[rootB] = rootA;
+            bestScore.remove(rootB);
+            bestScore.put(rootA, best);
+        }
+
+        Map<Integer, List<AddressBookDTO>> groups = new HashMap<>();
+        for (Match match : matches) {
+            groups.putIfAbsent(find(parent, match.first()), new ArrayList<>());
+        }
+        for (int i = 0; i < parent.length; i++) {
+            List<AddressBookDTO> members = groups.get(find(parent, i));
+            if (members != null)
+                members.add(contacts.get(i));
+        }
+
+        List<DuplicateSuggestionDTO> suggestions = new ArrayList<>(groups.size());
+        for (Map.Entry<Integer, List<AddressBookDTO>> entry : groups.entrySet()) {
+            List<AddressBookDTO> members = entry.getValue();
+            members.sort(Comparator.comparingInt(ContactDeduplicator::completeness).reversed()
+                    .thenComparing(AddressBookDTO::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+            List<Long> duplicateIds = members.subList(1, members.size()).stream().map(AddressBookDTO::getId).toList();
+            suggestions.add(new DuplicateSuggestionDTO(members.get(0).getId(), duplicateIds,
+                    Math.round(bestScore.get(entry.getKey()) * 1000) / 1000.0, members));
+        }
+        suggestions.sort(Comparator.comparingDouble(DuplicateSuggestionDTO::getScore).reversed());
+        return suggestions;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static int completeness(AddressBookDTO contact) {
+        int fields = 0;
+        for (String value : new String[]{contact.getFirstName(), contact.getLastName(), contact.getEmail(),
+                contact.getPhoneNumber(), contact.getAddress()}) {
+            if (value != null && !value.isBlank())
+                fields++;
+        }
+        return fields;
+    }
+
+    private static Normalized normalize(AddressBookDTO contact) {
+        String firstName = lettersLowerCase(contact.getFirstName());
+        String lastName = lettersLowerCase(contact.getLastName());
+        String email = contact.getEmail() == null || contact.getEmail().isBlank() ? null : contact.getEmail().trim().toLowerCase(Locale.ROOT);
+        String address = contact.getAddress() == null || contact.getAddress().isBlank() ? null : contact.getAddress().trim().toLowerCase(Locale.ROOT);
+        String firstKey = soundex(firstName);
+        String lastKey = soundex(lastName);
+        return new Normalized(firstName, lastName, email, normalizePhone(contact.getPhoneNumber()), address,
+                firstKey == null || lastKey == null ? null : firstKey + lastKey);
+    }
+
+    private static String sortKey(Normalized contact) {
+        return (contact.lastName() == null ? "" : contact.lastName()) + " " + (contact.firstName() == null ? "" : contact.firstName());
+    }
+
+    // The last 10 digits, so "+91 98765-43210" and "9876543210" block together
+    static String normalizePhone(String phone) {
+        if (phone == null)
+            return null;
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9')
+                digits.append(c);
+        }
+        if (digits.length() < 7)
+            return null;
+        return digits.length() > 10 ? digits.substring(digits.length() - 10) : digits.toString();
+    }
+
+    private static String lettersLowerCase(String value) {
+        if (value == null)
+            return null;
+        StringBuilder letters = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isLetter(c))
+                letters.append(Character.toLowerCase(c));
+        }
+        return letters.isEmpty() ? null : letters.toString();
+    }
+
+    /**
+     * This method computes the American Soundex code of a lower-case name, e.g. "robert" and "rupert" give R163.
+     *
+     * @param name - The name, lower-case letters only
+     * @return String - The four character code, or null for names without an ASCII letter
+     */
+    static String soundex(String name) {
+        if (name == null)
+            return null;
+        char[] code = new char[4];
+        int length = 0;
+        char previous = 0;
+        for (int i = 0; i < name.length() && length < 4; i++) {
+            char c = name.charAt(i);
+            if (c < 'a' || c > 'z')
+                continue;
+            char digit = soundexDigit(c);
+            if (length == 0) {
+                code[length++] = Character.toUpperCase(c);
+            } else if (digit != '0' && digit != previous) {
+                code[length++] = digit;
+            }
+            // h and w do not separate letters with the same code, vowels do
+            if (c != 'h' && c != 'w')
+                previous = digit;
+        }
+        if (length == 0)
+            return null;
+        while (length < 4) {
+            code[length++] = '0';
+        }
+        return new String(code);
+    }
+
+    private static char soundexDigit(char c) {
+        return switch (c) {
+            case 'b', 'f', 'p', 'v' -> '1';
+            case 'c', 'g', 'j', 'k', 'q', 's', 'x', 'z' -> '2';
+            case 'd', 't' -> '3';
+            case 'l' -> '4';
+            case 'm', 'n' -> '5';
+            case 'r' -> '6';
+            default -> '0';
+        };
+    }
+
+    /**
+     * This method computes the Jaro-Winkler similarity of two strings.
+     *
+     * @return double - 1 for equal strings, 0 for strings with nothing in common
+     */
+    static double jaroWinkler(String a, String b) {
+        if (a.equals(b))
+            return 1.0;
+        int range = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] matchedA = new boolean[a.length()];
+        boolean[] matchedB = new boolean[b.length()];
+        int matches = 0;
+        for (int i = 0; i < a.length(); i++) {
+            int start = Math.max(0, i - range);
+            int end = Math.min(b.length(), i + range + 1);
+            for (int j = start; j < end; j++) {
+                if (!matchedB[j] && a.charAt(i) == b.charAt(j)) {
+                    matchedA[i] = true;
+                    matchedB[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0)
+            return 0.0;
+
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < a.length(); i++) {
+            if (!matchedA[i])
+                continue;
+            while (!matchedB[j]) {
+                j++;
+            }
+            if (a.charAt(i) != b.charAt(j))
+                transpositions++;
+            j++;
+        }
+        double m = matches;
+        double jaro = (m / a.length() + m / b.length() + (m - transpositions / 2.0) / m) / 3.0;
+
+        int prefix = 0;
+        while (prefix < 4 && prefix < a.length() && prefix < b.length() && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+}
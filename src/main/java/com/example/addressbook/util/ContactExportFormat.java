@@ -0,0 +1,157 @@
+package com.example.addressbook.util;
+
+import com.example.addressbook.dto.AddressBookDTO;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * ContactExportFormat writes contacts one at a time to a Writer, so an export never holds more
+ * than the current row. CSV follows RFC 4180 and vCard follows RFC 2426 (version 3.0),
+ * both with CRLF line endings.
+ */
+public enum ContactExportFormat {
+
+    CSV("text/csv", "csv") {
+        @Override
+        public void writeHeader(Writer writer) throws IOException {
+            writer.write("id,firstName,lastName,address,email,phoneNumber\r\n");
+        }
+
+        @Override
+        public void writeContact(Writer writer, AddressBookDTO contact) throws IOException {
+            writer.write(String.valueOf(contact.getId()));
+            writeCsvField(writer, contact.getFirstName());
+            writeCsvField(writer, contact.getLastName());
+            writeCsvField(writer, contact.getAddress());
+            writeCsvField(writer, contact.getEmail());
+            writeCsvField(writer, contact.getPhoneNumber());
+            writer.write("\r\n");
+        }
+    },
+
+    VCARD("text/vcard", "vcf") {
+        @Override
+        public void writeContact(Writer writer, AddressBookDTO contact) throws IOException {
+            writer.write("BEGIN:VCARD\r\nVERSION:3.0\r\n");
+            writeVCardLine(writer, "UID:", String.valueOf(contact.getId()));
+            writeVCardLine(writer, "N:", vCardText(contact.getLastName()) + ";" + vCardText(contact.getFirstName()) + ";;;");
+            writeVCardLine(writer, "FN:", vCardText(fullName(contact)));
+            if (contact.getAddress() != null)
+                writeVCardLine(writer, "ADR;TYPE=HOME:", ";;" + vCardText(contact.getAddress()) + ";;;;");
+            if (contact.getEmail() != null)
+                writeVCardLine(writer, "EMAIL;TYPE=INTERNET:", vCardText(contact.getEmail()));
+            if (contact.getPhoneNumber() != null)
+                writeVCardLine(writer, "TEL;TYPE=CELL:", vCardText(contact.getPhoneNumber()));
+            writer.write("END:VCARD\r\n");
+        }
+    };
+
+    // vCard lines longer than this many characters are folded onto continuation lines
+    private static final int VCARD_LINE_LENGTH = 75;
+
+    private final String mediaType;
+    private final String extension;
+
+    ContactExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * This method finds the format for a request parameter such as "csv" or "vcard".
+     *
+     * @param name - The format name, case-insensitive
+     * @return ContactExportFormat - The matching format
+     */
+    public static ContactExportFormat fromName(String name) {
+        for (ContactExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name))
+                return format;
+        }
+        throw new RuntimeException("Unsupported export format: " + name + ", use csv or vcard");
+    }
+
+    /**
+     * This method writes what comes before the first contact, if anything.
+     *
+     * @param writer - The export writer
+     */
+    public void writeHeader(Writer writer) throws IOException {
+    }
+
+    /**
+     * This method writes one contact.
+     *
+     * @param writer  - The export writer
+     * @param contact - The contact to write
+     */
+    public abstract void writeContact(Writer writer, AddressBookDTO contact) throws IOException;
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        writer.write(',');
+        if (value == null)
+            return;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static String fullName(AddressBookDTO contact) {
+        if (contact.getFirstName() == null)
+            return contact.getLastName() == null ? "" : contact.getLastName();
+        return contact.getLastName() == null ? contact.getFirstName() : contact.getFirstName() + " " + contact.getLastName();
+    }
+
+    private static String vCardText(String value) {
+        if (value == null)
+            return "";
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\', ',', ';' -> escaped.append('\\').append(c);
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> {
+                }
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static void writeVCardLine(Writer writer, String name, String value) throws IOException {
+        String line = name + value;
+        int start = 0;
+        int limit = VCARD_LINE_LENGTH;
+        while (line.length() - start > limit) {
+            int end = start + limit;
+            // Folds are removed before parsing, but a surrogate pair must stay on one line
+            if (Character.isHighSurrogate(line.charAt(end - 1)))
+                end--;
+            writer.write(line, start, end - start);
+            writer.write("\r\n ");
+            start = end;
+            limit = VCARD_LINE_LENGTH - 1;
+        }
+        writer.write(line, start, line.length() - start);
+        writer.write("\r\n");
+    }
+}
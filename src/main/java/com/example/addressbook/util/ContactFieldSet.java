@@ -0,0 +1,75 @@
+package com.example.addressbook.util;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class describing the subset of contact fields requested through the fields= parameter.
+ * It validates the requested names against the ADDRESS_BOOK columns, always includes the id,
+ * and provides a canonical key so that equal field sets share a cache entry.
+ */
+public class ContactFieldSet {
+
+    // DTO field name to ADDRESS_BOOK column, in response order.
+    private static final Map<String, String> COLUMNS = new LinkedHashMap<>();
+
+    static {
+        COLUMNS.put("id", "id");
+        COLUMNS.put("firstName", "first_name");
+        COLUMNS.put("lastName", "last_name");
+        COLUMNS.put("email", "email");
+        COLUMNS.put("address", "address");
+        COLUMNS.put("phoneNumber", "phone_number");
+    }
+
+    private final List<String> fields;
+
+    private ContactFieldSet(List<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * This method parses a comma separated list of field names.
+     *
+     * @param fields - The value of the fields= parameter, e.g. "firstName,phoneNumber"
+     * @return ContactFieldSet - The requested fields plus the id, in canonical order
+     * @throws IllegalArgumentException if a field name is unknown
+     */
+    public static ContactFieldSet parse(String fields) {
+        Set<String> requested = new HashSet<>();
+        requested.add("id");
+        if (fields != null) {
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (name.isEmpty())
+                    continue;
+                if (!COLUMNS.containsKey(name))
+                    throw new IllegalArgumentException("Unknown field: " + name + ". Allowed fields are " + COLUMNS.keySet());
+                requested.add(name);
+            }
+        }
+        return new ContactFieldSet(COLUMNS.keySet().stream().filter(requested::contains).toList());
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * This method builds the SELECT column list for the requested fields.
+     *
+     * @return String - Comma separated column names
+     */
+    public String toSelectList() {
+        return fields.stream().map(COLUMNS::get).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * This method returns a canonical representation of the field set, used in cache keys.
+     *
+     * @return String - The field names in canonical order
+     */
+    public String cacheKey() {
+        return String.join(",", fields);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.addressbook.util;
+
+import static com.example.addressbook.config.RabbitMQConfig.*;
+
+/**
+ * EmailLane is the queue an email message travels on. Registration and password mails are critical:
+ * the user is waiting for them. Login alerts are bulk and may wait behind a backlog.
+ * The bulk lane keeps the original emailQueue, so messages published before the lanes existed are still delivered.
+ */
+public enum EmailLane {
+
+    CRITICAL(CRITICAL_QUEUE_NAME, CRITICAL_ROUTING_KEY),
+    BULK(QUEUE_NAME, ROUTING_KEY);
+
+    private final String queueName;
+    private final String routingKey;
+
+    EmailLane(String queueName, String routingKey) {
+        this.queueName = queueName;
+        this.routingKey = routingKey;
+    }
+
+    public String getQueueName() {
+        return queueName;
+    }
+
+    public String getRoutingKey() {
+        return routingKey;
+    }
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+
+    /**
+     * This method picks the lane of a message by its type, the part before the first "|".
+     *
+     * @param message - The message, "TYPE|email|firstName"
+     * @return EmailLane - CRITICAL for REGISTER, FORGOT and RESET, BULK otherwise
+     */
+    public static EmailLane forMessage(String message) {
+        int end = message.indexOf('|');
+        String type = end < 0 ? message : message.substring(0, end);
+        return switch (type) {
+            case "REGISTER", "FORGOT", "RESET" -> CRITICAL;
+            default -> BULK;
+        };
+    }
+
+    /**
+     * This method finds a lane by the name stored in a message header.
+     *
+     * @param name - The lane name
+     * @return EmailLane - The lane, BULK if the name is unknown
+     */
+    public static EmailLane fromName(String name) {
+        for (EmailLane lane : values()) {
+            if (lane.name().equals(name))
+                return lane;
+        }
+        return BULK;
+    }
+}
@@ -1,14 +1,16 @@
 package com.example.addressbook.util;
 
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.addressbook.service.TokenRevocationService;
+import com.example.addressbook.service.TokenVersionService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -16,6 +18,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
+@Slf4j
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
@@ -23,11 +26,15 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     JwtToken jwtToken;
 
     @Autowired
-    UserDetailsService userDetailsService;
+    TokenVersionService tokenVersionService;
+
+    @Autowired
+    TokenRevocationService tokenRevocationService;
 
     private static final List<String> EXCLUDED_URLS = Arrays.asList(
             "/api/auth/register",
             "/api/auth/login",
+            "/api/auth/refresh",
             "/api/auth/forgot-password",
             "/api/auth/reset-password",
             "/swagger-ui/",
@@ -37,6 +44,18 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
 
 
+    /**
+     * This method skips the refresh endpoint, which clients call once their access token has expired
+     * and often with that expired token still in the Authorization header.
+     *
+     * @param request - The HTTP request
+     * @return boolean - true if the request must not be authenticated by this filter
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return "/api/auth/refresh".equals(request.getRequestURI());
+    }
+
     /**
      * This method is called for every request to check if the JWT token is valid.
      * If valid, it sets the authentication in the security context.
@@ -51,44 +70,46 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
             throws ServletException, IOException {
 
-        String requestURI = request.getRequestURI();
-        logger.info("Request URI: " + requestURI);
+        // Sampled in logback-spring.xml; the query string is left out, it may carry personal data
+        log.info("Request {} {}", request.getMethod(), request.getRequestURI());
 
 //        for (String excludedUrl : EXCLUDED_URLS) {
 //            if (requestURI.startsWith(excludedUrl)) {
-//                logger.info("Request URI is excluded from authentication: " + requestURI);
+//                log.info("Request URI is excluded from authentication: {}", requestURI);
 //                chain.doFilter(request, response);
 //                return;
 //            }
 //        }
 
         final String authorizationHeader = request.getHeader("Authorization");
-        logger.info("Authorization Header: " + authorizationHeader);
+        log.debug("Authorization header: {}", LogRedactor.token(authorizationHeader));
 
-        String email = null;
         String jwt = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer "))
             jwt = authorizationHeader.substring(7);
 
-        if (jwt != null) {
-            email = jwtToken.decodeToken(jwt);
-        }
-
         try {
-            if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-                if (!jwtToken.isTokenExpired(jwt)) {
-                    UsernamePasswordAuthenticationToken authenticationToken =
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-
-                    authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-                }
-
+            if (jwt != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                DecodedJWT decodedJWT = jwtToken.verify(jwt);   // Checks signature and expiry
+                if (tokenRevocationService.isRevoked(decodedJWT))   // Local Bloom filter, Redis only on a match
+                    throw new RuntimeException("Token has been revoked");
+                // Reset tokens and tokens without a version can't be invalidated by logout or a password change
+                if (!decodedJWT.getClaim(JwtToken.PURPOSE_CLAIM).isMissing() && !decodedJWT.getClaim(JwtToken.PURPOSE_CLAIM).isNull())
+                    throw new RuntimeException("Not an access token");
+                AuthenticatedUser user = jwtToken.toAuthenticatedUser(decodedJWT);
+                if (user == null)
+                    throw new RuntimeException("Token has no user id or version");
+                // Built from the verified claims; only the token version is checked, normally without a query
+                if (user.getTokenVersion() != tokenVersionService.currentVersion(user.getUserId()))
+                    throw new RuntimeException("Token has been invalidated by a password change");
+                UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+
+                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
             }
         } catch (Exception e) {
-            System.err.println("JWT verification failed: " + e.getMessage());
+            log.warn("JWT verification failed: {}", e.getMessage());
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid or expired token");
             return;
         }
@@ -5,19 +5,24 @@ import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.Claim;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.addressbook.model.UserAuthentication;
 import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
 import java.util.Date;
+import java.util.UUID;
 
 /**
  * Utility class to create and decode JWT tokens.
  * It uses the HMAC256 algorithm for signing the tokens.
  */
+@Slf4j
 @Component
 public class JwtToken {
 
@@ -25,6 +30,10 @@ public class JwtToken {
     Environment env;    // Environment is used to access secret credentials and properties from environment variables.
 
     public static String TOKEN_SECRET;
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+    public static final String PURPOSE_CLAIM = "purpose";     // Set on tokens that are not access tokens
+    public static final String PASSWORD_RESET_PURPOSE = "password-reset";
     private static long EXPIRATION_TIME = 5 * 60 * 1000;
 
     /**
@@ -39,31 +48,100 @@ public class JwtToken {
     }
 
     /**
-     * This method creates a JWT token with the given email and role.
-     * It uses HMAC256 algorithm for signing the token.
+     * This method creates an access token for the given user.
+     * Besides the email subject and role it carries the userId and the token version,
+     * so a request can be authenticated from the verified claims alone.
      *
-     * @param email - The user email
-     * @param role  - The user role
+     * @param user - The authenticated user
      * @return String - The generated JWT token
      */
-    public String createToken(String email, String role)  {
+    public String createToken(UserAuthentication user) {
+        return createToken(new AuthenticatedUser(user.getUserId(), user.getEmail(), user.getRole(), user.getTokenVersion()));
+    }
+
+    /**
+     * This method creates an access token for a user known from a refresh token, without loading the account.
+     *
+     * @param user - The user and their current token version
+     * @return String - The generated JWT token
+     */
+    public String createToken(AuthenticatedUser user) {
+        return sign(user, null);
+    }
+
+    /**
+     * This method creates a password reset token for the given user.
+     * It carries the token version, so it stops working once the password has been changed or reset,
+     * and a purpose claim, so it is never accepted as an access token.
+     *
+     * @param user - The user who forgot their password
+     * @return String - The generated JWT token
+     */
+    public String createResetToken(UserAuthentication user) {
+        return sign(new AuthenticatedUser(user.getUserId(), user.getEmail(), user.getRole(), user.getTokenVersion()), PASSWORD_RESET_PURPOSE);
+    }
+
+    /**
+     * This method verifies a password reset token and returns the user it was issued to.
+     *
+     * @param token - The password reset token
+     * @return AuthenticatedUser - The user and the token version the token was issued for
+     */
+    public AuthenticatedUser verifyResetToken(String token) {
+        DecodedJWT decodedJWT = verify(token);
+        AuthenticatedUser user = toAuthenticatedUser(decodedJWT);
+        if (user == null || !PASSWORD_RESET_PURPOSE.equals(decodedJWT.getClaim(PURPOSE_CLAIM).asString()))
+            throw new RuntimeException("Invalid or expired token.");
+        return user;
+    }
+
+    private String sign(AuthenticatedUser user, String purpose) {
         try {
-            Algorithm algorithm = Algorithm.HMAC256(TOKEN_SECRET);  // HMAC256 algorithm for signing the token
+            Algorithm algorithm = Algorithm.HMAC256(TOKEN_SECRET);
 
-            String token = JWT.create()// Creating a new JWT token
-                    .withSubject(email)             // Setting the subject of the token to user ID
-                    .withClaim("role", role)          // Setting the role claim
+            return JWT.create()
+                    .withSubject(user.getEmail())
+                    .withClaim("role", user.getRole())
+                    .withClaim(USER_ID_CLAIM, user.getUserId())
+                    .withClaim(TOKEN_VERSION_CLAIM, user.getTokenVersion())
+                    .withClaim(PURPOSE_CLAIM, purpose)
+                    .withJWTId(UUID.randomUUID().toString())    // Lets a single token be revoked
                     .withIssuedAt(new Date())
                     .withExpiresAt(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                    .sign(algorithm);                       // Signing the token with the algorithm
-            return token;
+                    .sign(algorithm);
+        } catch (JWTCreationException | IllegalArgumentException e) {
+            log.error("Could not create token for user {}: {}", user.getUserId(), e.getMessage());
+            throw new RuntimeException("Could not create token", e);
+        }
+    }
 
-        } catch (JWTCreationException exception) {
-            exception.printStackTrace();
-        } catch (IllegalArgumentException e) {
-            e.printStackTrace();
+    /**
+     * This method verifies the signature and expiry of the JWT token.
+     *
+     * @param token - The JWT token
+     * @return DecodedJWT - The verified token
+     */
+    public DecodedJWT verify(String token) {
+        try {
+            return JWT.require(Algorithm.HMAC256(TOKEN_SECRET)).build().verify(token);
+        } catch (JWTVerificationException e) {
+            throw new RuntimeException("Invalid or expired token.");
         }
-        return null;
+    }
+
+    /**
+     * This method builds the authenticated user from the claims of a verified token.
+     *
+     * @param decodedJWT - The verified token
+     * @return AuthenticatedUser - The user, or null for tokens issued without the userId or token version claim
+     */
+    public AuthenticatedUser toAuthenticatedUser(DecodedJWT decodedJWT) {
+        Claim userId = decodedJWT.getClaim(USER_ID_CLAIM);
+        Claim tokenVersion = decodedJWT.getClaim(TOKEN_VERSION_CLAIM);
+        if (userId.isMissing() || userId.isNull() || tokenVersion.isMissing() || tokenVersion.isNull())
+            return null;
+        return new AuthenticatedUser(userId.asLong(), decodedJWT.getSubject(),
+                decodedJWT.getClaim("role").asString(), tokenVersion.asInt());
     }
 
 
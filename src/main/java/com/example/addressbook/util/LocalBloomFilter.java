@@ -0,0 +1,73 @@
+package com.example.addressbook.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory Bloom filter for per-request membership checks that must not leave the JVM.
+ * Sized like RedisBloomFilter, but hashed with a cheap 64-bit mix instead of MD5,
+ * so a negative answer costs a few array reads. Members may be added concurrently with reads.
+ */
+public class LocalBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    public LocalBloomFilter(long expectedMembers, double falsePositiveRate) {
+        long members = Math.max(1, expectedMembers);
+        long size = Math.max(64, (long) Math.ceil(-members * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, (size + 63) / 64));
+        this.bits = words.length() * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / members * Math.log(2)));
+    }
+
+    public void add(String member) {
+        long h1 = hash(member, 0x9E3779B97F4A7C15L);
+        long h2 = hash(member, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long position = Math.floorMod(h1 + i * h2, bits);
+            int word = (int) (position >>> 6);
+            long mask = 1L << position;
+            long current;
+            while (((current = words.get(word)) & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                // Another bit of the same word was set concurrently, retry
+            }
+        }
+    }
+
+    /**
+     * This method checks whether a member may have been added.
+     *
+     * @param member - The member to check
+     * @return boolean - false if the member was definitely never added
+     */
+    public boolean mightContain(String member) {
+        long h1 = hash(member, 0x9E3779B97F4A7C15L);
+        long h2 = hash(member, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long position = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (position >>> 6)) & (1L << position)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    public long getBits() {
+        return bits;
+    }
+
+    // FNV-1a over the chars, finished with the MurmurHash3 64-bit mix
+    private static long hash(String member, long seed) {
+        long h = seed ^ 0xCBF29CE484222325L;
+        for (int i = 0; i < member.length(); i++) {
+            h ^= member.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.addressbook.util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * LogRedactor removes credentials and personal data from log output: JWTs (session, refresh and reset tokens
+ * are all JWTs), bearer credentials and email addresses, which keep their first character and domain.
+ * redact is applied to every formatted message by RedactingMessageConverter, on the async logging thread.
+ * The email and token wrappers let call sites mask such values lazily: the masking runs only when the
+ * event's level is enabled and the message is formatted, not on every call.
+ */
+public final class LogRedactor {
+
+    private static final Pattern JWT = Pattern.compile("eyJ[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]+\\.[A-Za-z0-9_-]*");
+    private static final Pattern BEARER = Pattern.compile("(?i)(bearer\\s+)[A-Za-z0-9._~+/=-]+");
+
+    private LogRedactor() {
+    }
+
+    /**
+     * This method redacts tokens and email addresses in a log message.
+     * Each pattern is only run on messages containing the text it starts from, so most messages are not scanned.
+     *
+     * @param message - The formatted message
+     * @return String - The redacted message
+     */
+    public static String redact(String message) {
+        if (message == null)
+            return message;
+        String redacted = message;
+        if (redacted.contains("eyJ"))
+            redacted = replace(JWT, redacted, "[jwt]");
+        // "earer " matches both Bearer and bearer
+        if (redacted.contains("earer "))
+            redacted = replace(BEARER, redacted, "$1[redacted]");
+        if (redacted.indexOf('@') >= 0)
+            redacted = maskEmails(redacted);
+        return redacted;
+    }
+
+    /**
+     * This method wraps an email address for logging, masked as j***@example.com.
+     *
+     * @param email - The email address
+     * @return Object - A value whose toString is the masked address
+     */
+    public static Object email(String email) {
+        return new Lazy(email, false);
+    }
+
+    /**
+     * This method wraps a token or Authorization header for logging; only its length is written.
+     *
+     * @param token - The token
+     * @return Object - A value whose toString is e.g. [token, 183 chars]
+     */
+    public static Object token(String token) {
+        return new Lazy(token, true);
+    }
+
+    // A linear scan around each '@': the local part is cut to its first character if a dotted domain follows
+    private static String maskEmails(String message) {
+        StringBuilder masked = null;
+        int copied = 0;
+        for (int at = message.indexOf('@'); at >= 0; at = message.indexOf('@', at + 1)) {
+            int start = at;
+            while (start > copied && isLocalChar(message.charAt(start - 1)))
+                start--;
+            int end = at + 1;
+            while (end < message.length() && isDomainChar(message.charAt(end)))
+                end++;
+            int dot = message.indexOf('.', at + 2);
+            if (start == at || dot < 0 || dot >= end - 1)
+                continue;
+            if (masked == null)
+                masked = new StringBuilder(message.length());
+            masked.append(message, copied, start + 1).append("***");
+            copied = at;
+        }
+        if (masked == null)
+            return message;
+        return masked.append(message, copied, message.length()).toString();
+    }
+
+    private static boolean isLocalChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '_' || c == '%' || c == '+' || c == '-';
+    }
+
+    private static boolean isDomainChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '-';
+    }
+
+    private static String replace(Pattern pattern, String input, String replacement) {
+        Matcher matcher = pattern.matcher(input);
+        return matcher.find() ? matcher.replaceAll(replacement) : input;
+    }
+
+    private record Lazy(String value, boolean token) {
+
+        @Override
+        public String toString() {
+            if (value == null)
+                return "null";
+            return token ? "[token, " + value.length() + " chars]" : maskEmails(value);
+        }
+    }
+}
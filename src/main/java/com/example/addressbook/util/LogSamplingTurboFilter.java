@@ -0,0 +1,60 @@
+package com.example.addressbook.util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LogSamplingTurboFilter lets through one in every rate events of a hot-path logger, e.g. the per-request
+ * logging of JwtRequestFilter, and denies the rest before their message is formatted or queued.
+ * Only events at or below the sampled level, INFO by default, are sampled; warnings and errors always pass.
+ * Each sampled logger gets its own filter in logback-spring.xml:
+ * <pre>
+ * &lt;turboFilter class="com.example.addressbook.util.LogSamplingTurboFilter"&gt;
+ *     &lt;loggerName&gt;com.example.addressbook.util.JwtRequestFilter&lt;/loggerName&gt;
+ *     &lt;rate&gt;100&lt;/rate&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ */
+public class LogSamplingTurboFilter extends TurboFilter {
+
+    private String loggerName;
+    private long rate = 1;
+    private Level level = Level.INFO;
+    private final AtomicLong events = new AtomicLong();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level eventLevel, String format, Object[] params, Throwable t) {
+        if (rate <= 1 || eventLevel == null || eventLevel.toInt() > level.toInt() || !logger.getName().startsWith(loggerName))
+            return FilterReply.NEUTRAL;
+        // Only events the logger is enabled for are counted; isEnabledFor would run the turbo filters again
+        if (!eventLevel.isGreaterOrEqual(logger.getEffectiveLevel()))
+            return FilterReply.NEUTRAL;
+        return events.getAndIncrement() % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    @Override
+    public void start() {
+        if (loggerName == null || loggerName.isEmpty()) {
+            addError("No loggerName set for the sampling filter " + getName());
+            return;
+        }
+        super.start();
+    }
+
+    public void setLoggerName(String loggerName) {
+        this.loggerName = loggerName;
+    }
+
+    public void setRate(long rate) {
+        this.rate = rate;
+    }
+
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, Level.INFO);
+    }
+}
@@ -0,0 +1,515 @@
+package com.example.addressbook.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * LogStructuredStore is an embedded store for records with a long id, kept in an append-only log.
+ * The log is a directory of numbered segment files. Every put or delete appends a checksummed record
+ * to the active segment, which is memory-mapped at its full size; an in-memory hash index maps each
+ * live id to its latest record, and a second index groups the ids by a secondary key such as the owner.
+ * Reads are a hash lookup and a copy out of the mapped segment, without a system call.
+ * Full segments are sealed and mapped read-only. Compaction rewrites the live records of all sealed
+ * segments into one segment, which replaces them.
+ * On open the indexes are rebuilt by replaying the segments in order; a torn record at the end of a
+ * segment, left by a crash in the middle of a write, is cut off there.
+ * Writes are serialized by a lock, reads never block.
+ */
+@Slf4j
+public class LogStructuredStore<V> implements AutoCloseable {
+
+    private static final int MAGIC = 0x41424C47;                // "ABLG"
+    private static final int SEGMENT_HEADER = 4 + 1 + 8;        // magic, flags, highest id issued when the segment was started
+    private static final int RECORD_HEADER = 4 + 4;             // body length, CRC32 of the body
+    private static final int BODY_HEADER = 1 + 8;               // operation, id
+    private static final byte COMPACTED = 1;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final String SUFFIX = ".log";
+
+    /**
+     * Writes and reads the value of a record.
+     */
+    public interface Codec<V> {
+        void write(DataOutput out, V value) throws IOException;
+
+        V read(DataInput in) throws IOException;
+    }
+
+    // offset and length cover the whole record, header included; the value starts valueStart bytes into it
+    private record Location(Segment segment, int offset, int length, int valueStart, String secondaryKey) {
+    }
+
+    private interface RecordVisitor {
+        void visit(byte operation, long id, String secondaryKey, int offset, int length, int valueStart);
+    }
+
+    private static final class Segment {
+        final long number;
+        final Path path;
+        final boolean compacted;
+        final AtomicLong liveBytes = new AtomicLong();
+        volatile MappedByteBuffer buffer;
+        FileChannel channel;        // Only open while the segment is active
+        int size;
+
+        Segment(long number, Path path, boolean compacted) {
+            this.number = number;
+            this.path = path;
+            this.compacted = compacted;
+        }
+    }
+
+    private final Path directory;
+    private final Codec<V> codec;
+    private final Function<V, String> secondaryKeyOf;
+    private final int segmentCapacity;
+    private final boolean syncWrites;
+
+    private final Map<Long, Location> index = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> secondaryIndex = new ConcurrentHashMap<>();
+    private final AtomicLong lastId = new AtomicLong();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private final List<Segment> segments = new ArrayList<>();      // Sealed segments in order, then the active one
+    private Segment active;
+
+    /**
+     * This method opens the store in the given directory, replaying any existing segments.
+     *
+     * @param directory       - The directory holding the segment files, created if missing
+     * @param codec           - Writes and reads the values
+     * @param secondaryKeyOf  - Extracts the secondary key of a value, or null for none
+     * @param segmentCapacity - The size in bytes at which a segment is sealed
+     * @param syncWrites      - true to force every write to disk before it returns
+     */
+    public LogStructuredStore(Path directory, Codec<V> codec, Function<V, String> secondaryKeyOf, int segmentCapacity, boolean syncWrites) throws IOException {
+        this.directory = directory;
+        this.codec = codec;
+        this.secondaryKeyOf = secondaryKeyOf;
+        this.segmentCapacity = segmentCapacity;
+        this.syncWrites = syncWrites;
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    public V get(long id) {
+        Location location = index.get(id);
+        return location == null ? null : decode(location);
+    }
+
+    public boolean contains(long id) {
+        return index.containsKey(id);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * This method returns the ids of all live records in ascending order.
+     *
+     * @return long[] - The ids
+     */
+    public long[] ids() {
+        return index.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    /**
+     * This method returns the ids of the live records with the given secondary key, in ascending order.
+     *
+     * @param secondaryKey - The secondary key
+     * @return long[] - The ids, empty if there are none
+     */
+    public long[] idsFor(String secondaryKey) {
+        Set<Long> ids = secondaryIndex.get(secondaryKey);
+        return ids == null ? new long[0] : ids.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    /**
+     * This method reserves a new id, higher than any id the store has seen.
+     *
+     * @return long - The id
+     */
+    public long nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    /**
+     * This method stores a value under the given id, replacing the current one.
+     *
+     * @param id    - The id of the record
+     * @param value - The value
+     */
+    public void put(long id, V value) {
+        String secondaryKey = secondaryKeyOf.apply(value);
+        byte[] keyBytes = secondaryKey == null ? null : secondaryKey.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream body = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(body)) {
+            out.writeByte(PUT);
+            out.writeLong(id);
+            out.writeShort(keyBytes == null ? -1 : keyBytes.length);
+            if (keyBytes != null)
+                out.write(keyBytes);
+            codec.write(out, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int valueStart = RECORD_HEADER + BODY_HEADER + 2 + (keyBytes == null ? 0 : keyBytes.length);
+
+        writeLock.lock();
+        try {
+            int offset = append(body.toByteArray());
+            apply(PUT, id, new Location(active, offset, RECORD_HEADER + body.size(), valueStart, secondaryKey));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * This method deletes the record with the given id.
+     *
+     * @param id - The id of the record
+     * @return boolean - true if the record existed
+     */
+    public boolean delete(long id) {
+        byte[] body = ByteBuffer.allocate(BODY_HEADER).put(DELETE).putLong(id).array();
+        writeLock.lock();
+        try {
+            if (!index.containsKey(id))
+                return false;
+            append(body);
+            apply(DELETE, id, null);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * This method returns the number of bytes held by live records and by all segments.
+     *
+     * @return long[] - The live bytes, then the total bytes
+     */
+    public long[] usage() {
+        writeLock.lock();
+        try {
+            long live = 0;
+            long total = 0;
+            for (Segment segment : segments) {
+                live += segment.liveBytes.get();
+                total += segment.size;
+            }
+            return new long[]{live, total};
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * This method compacts the sealed segments if at least the given share of their bytes is garbage.
+     * The live records are copied into a new segment, which replaces the sealed ones on disk in one rename;
+     * a crash at any point leaves either the old segments or the compacted one to replay.
+     *
+     * @param garbageRatio - The share of garbage above which the sealed segments are compacted
+     * @return long - The number of bytes reclaimed, 0 if nothing was compacted
+     */
+    public long compact(double garbageRatio) throws IOException {
+        if (!compactionLock.tryLock())
+            return 0;
+        try {
+            List<Segment> sealed;
+            long live = 0;
+            long total = 0;
+            writeLock.lock();
+            try {
+                sealed = new ArrayList<>(segments.subList(0, segments.size() - 1));
+                for (Segment segment : sealed) {
+                    live += segment.liveBytes.get();
+                    total += segment.size;
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            // Segments are mapped as a whole, so a compacted segment must stay below 2 GB
+            if (sealed.isEmpty() || total == 0 || (total - live) < total * garbageRatio || live > Integer.MAX_VALUE - SEGMENT_HEADER)
+                return 0;
+
+            Segment last = sealed.get(sealed.size() - 1);
+            Path temporary = directory.resolve(segmentName(last.number) + ".tmp");
+            List<long[]> moved = new ArrayList<>();     // id, old offset, new offset, with the old location kept below
+            List<Location> oldLocations = new ArrayList<>();
+            try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+                 BufferedOutputStream out = new BufferedOutputStream(file, 1 << 16)) {
+                out.write(segmentHeader(COMPACTED, lastId.get()));
+                int[] position = {SEGMENT_HEADER};
+                byte[] copy = new byte[4096];
+                for (Segment segment : sealed) {
+                    MappedByteBuffer buffer = segment.buffer;
+                    scan(buffer, segment.size, (operation, id, secondaryKey, offset, length, valueStart) -> {
+                        Location current = index.get(id);
+                        if (operation != PUT || current == null || current.segment() != segment || current.offset() != offset)
+                            return;
+                        byte[] bytes = length <= copy.length ? copy : new byte[length];
+                        buffer.get(offset, bytes, 0, length);
+                        try {
+                            out.write(bytes, 0, length);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        moved.add(new long[]{id, position[0]});
+                        oldLocations.add(current);
+                        position[0] += length;
+                    });
+                }
+                out.flush();
+                file.getFD().sync();
+            } catch (UncheckedIOException e) {
+                Files.deleteIfExists(temporary);
+                throw e.getCause();
+            }
+
+            long reclaimed;
+            writeLock.lock();
+            try {
+                Path path = directory.resolve(segmentName(last.number));
+                Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                Segment compacted = new Segment(last.number, path, true);
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    compacted.size = (int) channel.size();
+                    compacted.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, compacted.size);
+                }
+                // Records written or deleted since they were copied keep their newer location
+                for (int i = 0; i < moved.size(); i++) {
+                    Location old = oldLocations.get(i);
+                    Location relocated = new Location(compacted, (int) moved.get(i)[1], old.length(), old.valueStart(), old.secondaryKey());
+                    if (index.replace(moved.get(i)[0], old, relocated))
+                        compacted.liveBytes.addAndGet(old.length());
+                }
+                segments.subList(0, sealed.size()).clear();
+                segments.add(0, compacted);
+                reclaimed = total - compacted.size;
+            } finally {
+                writeLock.unlock();
+            }
+            // Readers still holding an old location keep its mapping, which outlives the file
+            for (Segment segment : sealed) {
+                if (segment != last)
+                    Files.deleteIfExists(segment.path);
+            }
+            log.info("Compacted {} segments in {}: {} live records, {} bytes reclaimed", sealed.size(), directory, moved.size(), reclaimed);
+            return reclaimed;
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            if (active != null)
+                seal(active);
+            active = null;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private V decode(Location location) {
+        byte[] value = new byte[location.length() - location.valueStart()];
+        location.segment().buffer.get(location.offset() + location.valueStart(), value);
+        try {
+            return codec.read(new DataInputStream(new ByteArrayInputStream(value)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Appends a record to the active segment and returns its offset; the caller holds the write lock
+    private int append(byte[] body) {
+        if (active == null)
+            throw new IllegalStateException("The store in " + directory + " is closed");
+        int length = RECORD_HEADER + body.length;
+        if (length > segmentCapacity - SEGMENT_HEADER)
+            throw new IllegalArgumentException("Record of " + length + " bytes does not fit in a segment");
+        try {
+            if (active.size + length > segmentCapacity)
+                roll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        int offset = active.size;
+        MappedByteBuffer buffer = active.buffer;
+        // A record only partly on disk after a crash fails its checksum and ends the replay of the segment
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        buffer.put(offset + RECORD_HEADER, body);
+        buffer.putInt(offset, body.length);
+        if (syncWrites)
+            buffer.force(offset, length);
+        active.size += length;
+        return offset;
+    }
+
+    // Updates the indexes for a record; the caller holds the write lock, or is replaying the log
+    private void apply(byte operation, long id, Location location) {
+        Location previous = operation == PUT ? index.put(id, location) : index.remove(id);
+        if (previous != null) {
+            previous.segment().liveBytes.addAndGet(-previous.length());
+            if (previous.secondaryKey() != null && (location == null || !previous.secondaryKey().equals(location.secondaryKey()))) {
+                Set<Long> ids = secondaryIndex.get(previous.secondaryKey());
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty())
+                        secondaryIndex.remove(previous.secondaryKey());
+                }
+            }
+        }
+        if (location != null) {
+            location.segment().liveBytes.addAndGet(location.length());
+            if (location.secondaryKey() != null)
+                secondaryIndex.computeIfAbsent(location.secondaryKey(), key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        lastId.accumulateAndGet(id, Math::max);
+    }
+
+    private void roll() throws IOException {
+        seal(active);
+        active = createSegment(active.number + 1);
+        segments.add(active);
+    }
+
+    private Segment createSegment(long number) throws IOException {
+        Path path = directory.resolve(segmentName(number));
+        Segment segment = new Segment(number, path, false);
+        segment.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment.buffer = segment.channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentCapacity);
+        segment.buffer.put(0, segmentHeader((byte) 0, lastId.get()));
+        segment.buffer.force(0, SEGMENT_HEADER);
+        segment.size = SEGMENT_HEADER;
+        return segment;
+    }
+
+    // Cuts the preallocated tail off the active segment and maps what is left read-only
+    private void seal(Segment segment) throws IOException {
+        segment.buffer.force();
+        segment.channel.truncate(segment.size);
+        segment.buffer = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+        segment.channel.close();
+        segment.channel = null;
+    }
+
+    private void recover() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.sorted().toList();
+        }
+        List<Segment> found = new ArrayList<>();
+        for (Path path : paths) {
+            String name = path.getFileName().toString();
+            if (name.endsWith(".tmp")) {
+                Files.delete(path);     // An unfinished compaction; the segments it read are all still there
+            } else if (name.startsWith("segment-") && name.endsWith(SUFFIX)) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER);
+                    channel.read(header, 0);
+                    if (header.getInt(0) != MAGIC)
+                        throw new IOException(path + " is not a segment of this store");
+                    lastId.accumulateAndGet(header.getLong(5), Math::max);
+                    found.add(new Segment(Long.parseLong(name.substring(8, name.length() - SUFFIX.length())), path,
+                            header.get(4) == COMPACTED));
+                }
+            }
+        }
+        // A compacted segment replaces every segment before it; older ones are left over from a crash
+        for (int i = found.size() - 1; i > 0; i--) {
+            if (found.get(i).compacted) {
+                for (Segment stale : found.subList(0, i))
+                    Files.delete(stale.path);
+                found = new ArrayList<>(found.subList(i, found.size()));
+                break;
+            }
+        }
+
+        long records = 0;
+        for (Segment segment : found) {
+            try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                int fileSize = (int) channel.size();
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+                long[] count = new long[1];
+                int end = scan(buffer, fileSize, (operation, id, secondaryKey, offset, length, valueStart) -> {
+                    apply(operation, id, operation == PUT ? new Location(segment, offset, length, valueStart, secondaryKey) : null);
+                    count[0]++;
+                });
+                records += count[0];
+                if (end < fileSize) {
+                    // The preallocated tail of a segment that was active, or a record torn by a crash
+                    channel.truncate(end);
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+                }
+                segment.buffer = buffer;
+                segment.size = end;
+            }
+        }
+        segments.addAll(found);
+        active = createSegment(found.isEmpty() ? 1 : found.get(found.size() - 1).number + 1);
+        segments.add(active);
+        log.info("Opened log-structured store in {}: replayed {} records from {} segments, {} live", directory, records, found.size(), index.size());
+    }
+
+    // Visits the valid records of a segment and returns the offset where they end
+    private static int scan(ByteBuffer buffer, int limit, RecordVisitor visitor) {
+        int position = SEGMENT_HEADER;
+        CRC32 crc = new CRC32();
+        while (position + RECORD_HEADER <= limit) {
+            int bodyLength = buffer.getInt(position);
+            if (bodyLength < BODY_HEADER || bodyLength > limit - position - RECORD_HEADER)
+                break;
+            crc.reset();
+            crc.update(buffer.slice(position + RECORD_HEADER, bodyLength));
+            if ((int) crc.getValue() != buffer.getInt(position + 4))
+                break;
+            int body = position + RECORD_HEADER;
+            byte operation = buffer.get(body);
+            long id = buffer.getLong(body + 1);
+            String secondaryKey = null;
+            int valueStart = RECORD_HEADER + BODY_HEADER;
+            if (operation == PUT) {
+                short keyLength = buffer.getShort(body + BODY_HEADER);
+                valueStart += 2;
+                if (keyLength >= 0) {
+                    byte[] key = new byte[keyLength];
+                    buffer.get(body + BODY_HEADER + 2, key);
+                    secondaryKey = new String(key, StandardCharsets.UTF_8);
+                    valueStart += keyLength;
+                }
+            }
+            visitor.visit(operation, id, secondaryKey, position, RECORD_HEADER + bodyLength, valueStart);
+            position += RECORD_HEADER + bodyLength;
+        }
+        return position;
+    }
+
+    private static byte[] segmentHeader(byte flags, long lastId) {
+        return ByteBuffer.allocate(SEGMENT_HEADER).putInt(MAGIC).put(flags).putLong(lastId).array();
+    }
+
+    private static String segmentName(long number) {
+        return String.format("segment-%012d%s", number, SUFFIX);
+    }
+}
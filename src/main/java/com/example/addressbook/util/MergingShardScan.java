@@ -0,0 +1,133 @@
+package com.example.addressbook.util;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.ToLongFunction;
+
+/**
+ * MergingShardScan runs the same id-ordered query on several shards in parallel and
+ * merges the rows into a single id-ordered iterator.
+ * Each shard streams into a small bounded queue, so memory stays constant no matter how
+ * many rows there are, and a slow consumer simply slows the shard readers down. This relies on the fetch size
+ * being honoured, which MySQL Connector/J only does with useCursorFetch=true on the connection.
+ * Rows with the same id on two shards (a user in the middle of a rebalance) are returned once.
+ */
+public class MergingShardScan<T> implements Iterator<T>, AutoCloseable {
+
+    private static final Object END = new Object();
+    private static final int QUEUE_CAPACITY = 1_000;
+
+    private record Failure(Exception cause) {
+    }
+
+    private record Head<T>(T value, int source) {
+    }
+
+    private final List<BlockingQueue<Object>> queues = new ArrayList<>();
+    private final PriorityQueue<Head<T>> heads;
+    private final ToLongFunction<T> idOf;
+    private volatile boolean cancelled;
+    private boolean started;
+    private Long lastId;
+    private T nextValue;
+
+    public MergingShardScan(Collection<DataSource> sources, String sql, RowMapper<T> rowMapper, ToLongFunction<T> idOf,
+                            int fetchSize, ExecutorService executor) {
+        this.idOf = idOf;
+        this.heads = new PriorityQueue<>(Comparator.comparingLong((Head<T> head) -> idOf.applyAsLong(head.value())));
+        for (DataSource source : sources) {
+            BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            queues.add(queue);
+            executor.submit(() -> readShard(source, sql, rowMapper, fetchSize, queue));
+        }
+    }
+
+    private void readShard(DataSource source, String sql, RowMapper<T> rowMapper, int fetchSize, BlockingQueue<Object> queue) {
+        try {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(source);
+            jdbcTemplate.setFetchSize(fetchSize);
+            jdbcTemplate.query(sql, resultSet -> {
+                if (!offer(queue, rowMapper.mapRow(resultSet, resultSet.getRow())))
+                    throw new CancellationException("Shard scan cancelled");
+            });
+        } catch (CancellationException e) {
+            return;
+        } catch (Exception e) {
+            offer(queue, new Failure(e));
+        }
+        offer(queue, END);
+    }
+
+    // Waits for queue space, giving up once the consumer has closed the scan.
+    private boolean offer(BlockingQueue<Object> queue, Object item) {
+        try {
+            while (!cancelled) {
+                if (queue.offer(item, 100, TimeUnit.MILLISECONDS))
+                    return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextValue == null)
+            nextValue = advance();
+        return nextValue != null;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        T value = nextValue;
+        nextValue = null;
+        return value;
+    }
+
+    private T advance() {
+        if (!started) {
+            for (int i = 0; i < queues.size(); i++) {
+                pullHead(i);
+            }
+            started = true;
+        }
+        while (!heads.isEmpty()) {
+            Head<T> head = heads.poll();
+            pullHead(head.source());
+            long id = idOf.applyAsLong(head.value());
+            if (lastId != null && lastId == id)
+                continue;
+            lastId = id;
+            return head.value();
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void pullHead(int source) {
+        Object item;
+        try {
+            item = queues.get(source).take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Shard scan interrupted");
+        }
+        if (item == END)
+            return;
+        if (item instanceof Failure failure)
+            throw new RuntimeException("Shard scan failed: " + failure.cause().getMessage(), failure.cause());
+        heads.add(new Head<>((T) item, source));
+    }
+
+    @Override
+    public void close() {
+        cancelled = true;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.addressbook.util;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * PartitionedTableScan reads a whole table by splitting its id range into partitions and fetching them
+ * concurrently, each on its own connection, from every source (shard) holding the table.
+ * The JDBC threads only copy column values; mapping the rows to the result type runs in a fork-join pool,
+ * overlapping with the fetches of later partitions. Partitions cover ascending, disjoint id ranges, so the
+ * result is in id order once they are concatenated; within a partition the rows of several shards are
+ * merged by id, and rows with the same id on two shards (a user in the middle of a rebalance) are kept once.
+ * <p>
+ * The whole result is held in memory; for tables that do not fit, use MergingShardScan instead.
+ */
+public class PartitionedTableScan<T> {
+
+    // Below this many rows a mapping task runs directly instead of splitting further
+    private static final int MAP_THRESHOLD = 4_096;
+
+    private final Collection<DataSource> sources;
+    private final String table;
+    private final String columns;
+    private final Function<Object[], T> mapper;
+    private final int partitions;
+    private final int fetchSize;
+    private final ExecutorService fetchExecutor;
+    private final ForkJoinPool mapPool;
+
+    /**
+     * @param sources       - The data sources holding the table, one per shard
+     * @param table         - The table to read, with a numeric id column
+     * @param columns       - The columns to read; the first must be id
+     * @param mapper        - Maps the column values of a row to the result type
+     * @param partitions    - The number of id ranges to split the table into
+     * @param fetchSize     - The JDBC fetch size of each partition query
+     * @param fetchExecutor - Runs the partition queries; its size bounds the connections in use
+     * @param mapPool       - Maps the fetched rows
+     */
+    public PartitionedTableScan(Collection<DataSource> sources, String table, String columns, Function<Object[], T> mapper,
+                                int partitions, int fetchSize, ExecutorService fetchExecutor, ForkJoinPool mapPool) {
+        this.sources = List.copyOf(sources);
+        this.table = table;
+        this.columns = columns;
+        this.mapper = mapper;
+        this.partitions = Math.max(1, partitions);
+        this.fetchSize = fetchSize;
+        this.fetchExecutor = fetchExecutor;
+        this.mapPool = mapPool;
+    }
+
+    /**
+     * This method reads every row of the table.
+     *
+     * @return List<T> - The mapped rows, in id order
+     */
+    public List<T> read() {
+        long[] bounds = idBounds();
+        if (bounds == null)
+            return List.of();
+
+        List<Future<List<Object[]>>> fetches = new ArrayList<>();
+        for (long[] range : ranges(bounds[0], bounds[1], partitions)) {
+            fetches.add(fetchExecutor.submit(() -> fetchPartition(range[0], range[1])));
+        }
+        // Each partition is mapped as soon as it has arrived, while later partitions are still being fetched
+        List<ForkJoinTask<List<T>>> mapped = new ArrayList<>(fetches.size());
+        try {
+            for (Future<List<Object[]>> fetch : fetches) {
+                List<Object[]> rows = fetch.get();
+                mapped.add(mapPool.submit(new MapTask<>(rows, mapper, 0, rows.size(), new Object[rows.size()])));
+            }
+            List<T> all = new ArrayList<>();
+            for (ForkJoinTask<List<T>> result : mapped) {
+                all.addAll(result.join());
+            }
+            return all;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(fetches, mapped);
+            throw new RuntimeException("Partitioned scan of " + table + " was interrupted", e);
+        } catch (ExecutionException | RuntimeException e) {
+            cancel(fetches, mapped);
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Partitioned scan of " + table + " failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    // Partitions not yet started are skipped; running fetches are interrupted and release their connection.
+    // The last partitions are cancelled first, so a fetch thread freed by an interrupt finds nothing left to start.
+    private static void cancel(List<? extends Future<?>> fetches, List<? extends Future<?>> mapped) {
+        for (int i = fetches.size() - 1; i >= 0; i--) {
+            fetches.get(i).cancel(true);
+        }
+        mapped.forEach(result -> result.cancel(true));
+    }
+
+    /**
+     * This method splits an inclusive id range into at most the given number of ascending, disjoint ranges.
+     *
+     * @param minId      - The lowest id
+     * @param maxId      - The highest id
+     * @param partitions - The number of ranges wanted
+     * @return List<long[]> - The ranges as {from, to}, both inclusive
+     */
+    static List<long[]> ranges(long minId, long maxId, int partitions) {
+        long span = maxId - minId + 1;
+        long count = Math.min(partitions, span);
+        List<long[]> ranges = new ArrayList<>((int) count);
+        for (long i = 0; i < count; i++) {
+            long from = minId + span * i / count;
+            long to = minId + span * (i + 1) / count - 1;
+            ranges.add(new long[]{from, to});
+        }
+        return ranges;
+    }
+
+    // The lowest and highest id over all sources, or null if the table is empty everywhere
+    private long[] idBounds() {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (DataSource source : sources) {
+            Map<String, Object> row = new JdbcTemplate(source).queryForMap("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM " + table);
+            if (row.get("min_id") instanceof Number low && row.get("max_id") instanceof Number high) {
+                min = Math.min(min, low.longValue());
+                max = Math.max(max, high.longValue());
+            }
+        }
+        return min > max ? null : new long[]{min, max};
+    }
+
+    private List<Object[]> fetchPartition(long from, long to) {
+        String sql = "SELECT " + columns + " FROM " + table + " WHERE id BETWEEN ? AND ? ORDER BY id";
+        List<List<Object[]>> perSource = new ArrayList<>(sources.size());
+        for (DataSource source : sources) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(source);
+            jdbcTemplate.setFetchSize(fetchSize);
+            List<Object[]> rows = new ArrayList<>();
+            jdbcTemplate.query(sql, resultSet -> {
+                int columnCount = resultSet.getMetaData().getColumnCount();
+                Object[] row = new Object[columnCount];
+                for (int i = 0; i < columnCount; i++) {
+                    row[i] = resultSet.getObject(i + 1);
+                }
+                rows.add(row);
+            }, from, to);
+            perSource.add(rows);
+        }
+        return perSource.size() == 1 ? perSource.get(0) : mergeById(perSource);
+    }
+
+    private static List<Object[]> mergeById(List<List<Object[]>> perSource) {
+        List<Object[]> merged = new ArrayList<>(perSource.stream().mapToInt(List::size).sum());
+        int[] positions = new int[perSource.size()];
+        Long lastId = null;
+        while (true) {
+            int next = -1;
+            long nextId = Long.MAX_VALUE;
+            for (int s = 0; s < perSource.size(); s++) {
+                if (positions[s] < perSource.get(s).size()) {
+                    long id = ((Number) perSource.get(s).get(positions[s])[0]).longValue();
+                    if (next < 0 || id < nextId) {
+                        next = s;
+                        nextId = id;
+                    }
+                }
+            }
+            if (next < 0)
+                return merged;
+            Object[] row = perSource.get(next).get(positions[next]++);
+            if (lastId == null || lastId != nextId)
+                merged.add(row);
+            lastId = nextId;
+        }
+    }
+
+    // Maps a slice of the rows into the same slice of the output array, splitting while the slice is large
+    private static final class MapTask<T> extends RecursiveTask<List<T>> {
+
+        private final List<Object[]> rows;
+        private final Function<Object[], T> mapper;
+        private final int from;
+        private final int to;
+        private final Object[] out;
+
+        MapTask(List<Object[]> rows, Function<Object[], T> mapper, int from, int to, Object[] out) {
+            this.rows = rows;
+            this.mapper = mapper;
+            this.from = from;
+            this.to = to;
+            this.out = out;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected List<T> compute() {
+            if (to - from <= MAP_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    out[i] = mapper.apply(rows.get(i));
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new MapTask<>(rows, mapper, from, middle, out), new MapTask<>(rows, mapper, middle, to, out));
+            }
+            return from == 0 && to == rows.size() ? (List<T>) Arrays.asList(out) : null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.addressbook.util;
+
+import com.example.addressbook.service.RateLimitService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * RateLimitFilter runs in the security filter chain right after JwtRequestFilter, so requests are
+ * limited per user once the token has identified them, and per client address in any case.
+ * A rejected request gets 429 with a Retry-After header and never reaches the controllers.
+ * It is registered only in the security chain (see RateLimitConfig).
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    @Autowired
+    RateLimitService rateLimitService;
+
+    /**
+     * This method lets the request through if its endpoint group's limits allow it.
+     *
+     * @param request  - The HTTP request
+     * @param response - The HTTP response
+     * @param chain    - The filter chain
+     * @throws ServletException
+     * @throws IOException
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long userId = null;
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        // Tokens issued before the userId claim was added are limited by address only
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user)
+            userId = user.getUserId();
+
+        long waitNanos = rateLimitService.tryAcquire(request.getRequestURI(), userId, request.getRemoteAddr());
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.addressbook.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * RateLimitGroup applies the limits of one endpoint group, e.g. /api/auth/ or /api/addressbook/:
+ * a token bucket per user id for authenticated requests and one per client address for all requests.
+ * Either limit may be absent. A request must get a token from every limit that applies to it.
+ */
+public class RateLimitGroup {
+
+    private final String name;
+    private final String pathPrefix;
+    private final RateLimiter<Long> userLimiter;
+    private final RateLimiter<String> ipLimiter;
+    private final long userQuota;
+    private final long ipQuota;
+    private final Counter userRejections;
+    private final Counter ipRejections;
+
+    // A null limiter disables that limit; quotas are requests per global window across all nodes, 0 for none
+    public RateLimitGroup(String name, String pathPrefix, RateLimiter<Long> userLimiter, long userQuota,
+                          RateLimiter<String> ipLimiter, long ipQuota, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.pathPrefix = pathPrefix;
+        this.userLimiter = userLimiter;
+        this.userQuota = userQuota;
+        this.ipLimiter = ipLimiter;
+        this.ipQuota = ipQuota;
+        this.userRejections = meterRegistry.counter("addressbook.ratelimit.rejected", "group", name, "limit", "user");
+        this.ipRejections = meterRegistry.counter("addressbook.ratelimit.rejected", "group", name, "limit", "ip");
+    }
+
+    public boolean matches(String path) {
+        return path.startsWith(pathPrefix);
+    }
+
+    /**
+     * This method takes a token for the request from each limit that applies to it.
+     * The address is checked first, so a rejected flood from one address does not drain the user's bucket.
+     *
+     * @param userId        - The authenticated user's id, or null
+     * @param clientAddress - The client's address
+     * @return long - 0 if the request may proceed, otherwise the nanoseconds until it may be retried
+     */
+    public long tryAcquire(Long userId, String clientAddress) {
+        if (ipLimiter != null) {
+            long wait = ipLimiter.tryAcquire(clientAddress);
+            if (wait > 0) {
+                ipRejections.increment();
+                return wait;
+            }
+        }
+        if (userLimiter != null && userId != null) {
+            long wait = userLimiter.tryAcquire(userId);
+            if (wait > 0) {
+                userRejections.increment();
+                return wait;
+            }
+        }
+        return 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public RateLimiter<Long> getUserLimiter() {
+        return userLimiter;
+    }
+
+    public RateLimiter<String> getIpLimiter() {
+        return ipLimiter;
+    }
+
+    public long getUserQuota() {
+        return userQuota;
+    }
+
+    public long getIpQuota() {
+        return ipQuota;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.addressbook.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * RateLimiter keeps one token bucket per key (a user id or a client address), each holding up to
+ * capacity tokens and refilled at refillPerSecond. A bucket is a single AtomicLong holding the time at
+ * which it will be full again, so taking a token is one compare-and-set and never blocks; contention is
+ * limited to requests of the same key, as the buckets are spread over the bins of a ConcurrentHashMap.
+ * Full buckets hold no information and are dropped by evictFull.
+ * <p>
+ * For quotas shared by several nodes, the limiter also counts the requests it let through per key,
+ * to be drained into a shared counter, and can block a key until a given time once that counter is over quota.
+ */
+public class RateLimiter<K> {
+
+    private final ConcurrentHashMap<K, Bucket> buckets = new ConcurrentHashMap<>();
+    private final LongSupplier nanoClock;
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final boolean counting;
+
+    public RateLimiter(int capacity, double refillPerSecond, boolean counting) {
+        this(capacity, refillPerSecond, counting, System::nanoTime);
+    }
+
+    RateLimiter(int capacity, double refillPerSecond, boolean counting, LongSupplier nanoClock) {
+        if (capacity < 1 || refillPerSecond <= 0)
+            throw new IllegalArgumentException("A rate limit needs a capacity of at least 1 and a positive refill rate");
+        this.nanoClock = nanoClock;
+        this.nanosPerToken = Math.max(1, (long) (1_000_000_000.0 / refillPerSecond));
+        this.burstNanos = nanosPerToken * capacity;
+        this.counting = counting;
+    }
+
+    /**
+     * This method takes one token from the key's bucket if one is available.
+     *
+     * @param key - The key to limit
+     * @return long - 0 if a token was taken, otherwise the nanoseconds until one will be available
+     */
+    public long tryAcquire(K key) {
+        long now = nanoClock.getAsLong();
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            Bucket created = new Bucket(now);
+            bucket = buckets.putIfAbsent(key, created);
+            if (bucket == null)
+                bucket = created;
+        }
+        long blockedFor = bucket.blockedUntil - now;
+        if (blockedFor > 0)
+            return blockedFor;
+        while (true) {
+            long fullAt = bucket.fullAt.get();
+            long next = Math.max(fullAt, now) + nanosPerToken;
+            long excess = next - now - burstNanos;
+            if (excess > 0)
+                return excess;
+            if (bucket.fullAt.compareAndSet(fullAt, next)) {
+                if (counting)
+                    bucket.unsynced.incrementAndGet();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * This method hands over, and resets, the number of requests let through per key since the last call.
+     *
+     * @param consumer - Receives each key with its count; keys without requests are skipped
+     */
+    public void drainCounts(BiConsumer<K, Long> consumer) {
+        for (Map.Entry<K, Bucket> entry : buckets.entrySet()) {
+            long count = entry.getValue().unsynced.getAndSet(0);
+            if (count > 0)
+                consumer.accept(entry.getKey(), count);
+        }
+    }
+
+    /**
+     * This method rejects every request of a key until the given time, whatever its bucket holds.
+     *
+     * @param key      - The key to block
+     * @param nanoTime - The System.nanoTime() at which the key is let through again
+     */
+    public void blockUntil(K key, long nanoTime) {
+        Bucket bucket = buckets.get(key);
+        if (bucket != null)
+            bucket.blockedUntil = nanoTime;
+    }
+
+    /**
+     * This method drops the buckets that are full and neither blocked nor holding uncounted requests.
+     *
+     * @return int - The number of buckets dropped
+     */
+    public int evictFull() {
+        long now = nanoClock.getAsLong();
+        int evicted = 0;
+        for (Map.Entry<K, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            if (bucket.fullAt.get() <= now && bucket.blockedUntil - now <= 0 && bucket.unsynced.get() == 0
+                    && buckets.remove(entry.getKey(), bucket))
+                evicted++;
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private static class Bucket {
+
+        // The time at which the bucket holds capacity tokens again; each token taken moves it by nanosPerToken
+        final AtomicLong fullAt;
+        final AtomicLong unsynced = new AtomicLong();
+        volatile long blockedUntil;
+
+        Bucket(long now) {
+            fullAt = new AtomicLong(now);
+            blockedUntil = now;
+        }
+    }
+}
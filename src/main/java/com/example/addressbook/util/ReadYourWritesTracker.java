@@ -0,0 +1,46 @@
+package com.example.addressbook.util;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ReadYourWritesTracker remembers which users wrote to the primary database recently.
+ * For the stickiness window after a write, ReplicaRoutingDataSource sends that user's
+ * read-only work to the primary too, so users always see their own changes even while
+ * the replicas are catching up.
+ */
+public class ReadYourWritesTracker {
+
+    private final long stickinessMillis;
+    private final ConcurrentHashMap<String, Long> stickyUntil = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(Duration stickiness) {
+        this.stickinessMillis = stickiness.toMillis();
+    }
+
+    /**
+     * This method records a write by the given user.
+     *
+     * @param user - The email of the authenticated user
+     */
+    public void recordWrite(String user) {
+        stickyUntil.put(user, System.currentTimeMillis() + stickinessMillis);
+    }
+
+    /**
+     * This method checks if the given user's reads must still go to the primary.
+     *
+     * @param user - The email of the authenticated user
+     * @return boolean - true if the user wrote within the stickiness window, false otherwise
+     */
+    public boolean isSticky(String user) {
+        Long until = stickyUntil.get(user);
+        if (until == null)
+            return false;
+        if (until < System.currentTimeMillis()) {
+            stickyUntil.remove(user, until);
+            return false;
+        }
+        return true;
+    }
+}
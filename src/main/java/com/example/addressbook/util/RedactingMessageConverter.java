@@ -0,0 +1,17 @@
+package com.example.addressbook.util;
+
+import ch.qos.logback.classic.pattern.MessageConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * RedactingMessageConverter writes the message of a log event with tokens and email addresses redacted
+ * (see LogRedactor). logback-spring.xml registers it for %m, %msg and %message, so every pattern is redacted,
+ * including patterns set through logging.pattern.console.
+ */
+public class RedactingMessageConverter extends MessageConverter {
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        return LogRedactor.redact(event.getFormattedMessage());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.addressbook.util;
+
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Bloom filter stored as a Redis bitmap, so every node sees members added by any other node.
+ * It is sized from the expected number of members and the accepted false positive rate;
+ * the sizing is part of the key so a resized filter never reads bits of an old layout.
+ */
+public class RedisBloomFilter {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final String key;
+    private final long bits;
+    private final int hashes;
+
+    public RedisBloomFilter(StringRedisTemplate stringRedisTemplate, String name, long expectedMembers, double falsePositiveRate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.bits = Math.max(64, (long) Math.ceil(-expectedMembers * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedMembers * Math.log(2)));
+        this.key = "bloom:" + name + ":" + bits + ":" + hashes;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * This method adds members to the filter in one pipelined round trip.
+     *
+     * @param members - The members to add
+     */
+    public void addAll(List<String> members) {
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String member : members) {
+                for (long position : positions(member)) {
+                    stringConnection.setBit(key, position, true);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * This method checks whether a member may have been added.
+     *
+     * @param member - The member to check
+     * @return boolean - false if the member was definitely never added
+     */
+    public boolean mightContain(String member) {
+        long[] positions = positions(member);
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (long position : positions) {
+                stringConnection.getBit(key, position);
+            }
+            return null;
+        });
+        return results.stream().allMatch(Boolean.TRUE::equals);
+    }
+
+    // Double hashing over the two halves of an MD5 digest
+    long[] positions(String member) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("MD5").digest(member.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(digest);
+        long h1 = buffer.getLong();
+        long h2 = buffer.getLong() | 1;
+        long[] positions = new long[hashes];
+        for (int i = 0; i < hashes; i++) {
+            positions[i] = Math.floorMod(h1 + i * h2, bits);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.addressbook.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * RedisCircuitBreaker stops sending cache traffic to Redis once too many recent calls failed or were slow.
+ * Outcomes of the last windowSize calls are kept in a ring buffer; the breaker opens when at least
+ * minimumCalls were recorded and the failure or slow-call rate reaches its threshold.
+ * While open, callers skip Redis entirely and a background probe pings it until it answers again,
+ * at which point the breaker closes and recovery listeners run.
+ */
+@Slf4j
+public class RedisCircuitBreaker {
+
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final BooleanSupplier probe;
+    private final MeterRegistry meterRegistry;
+    private final long slowCallNanos;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+
+    private final byte[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+    private volatile boolean open;
+
+    private final List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+
+    public RedisCircuitBreaker(BooleanSupplier probe, MeterRegistry meterRegistry, int windowSize, int minimumCalls,
+                               double failureRateThreshold, Duration slowCallThreshold, double slowCallRateThreshold) {
+        this.probe = probe;
+        this.meterRegistry = meterRegistry;
+        this.outcomes = new byte[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        Gauge.builder("addressbook.cache.circuit.state", this, breaker -> breaker.isOpen() ? 1 : 0)
+                .description("1 while Redis is bypassed, 0 when closed")
+                .register(meterRegistry);
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * This method checks whether a call may go to Redis, counting the calls it turns away.
+     *
+     * @return boolean - false while the breaker is open
+     */
+    public boolean allowRequest() {
+        if (open) {
+            count("rejected");
+            return false;
+        }
+        return true;
+    }
+
+    public void onSuccess(long nanos) {
+        record(nanos >= slowCallNanos ? SLOW : SUCCESS);
+    }
+
+    public void onFailure() {
+        record(FAILURE);
+    }
+
+    /**
+     * This method runs a Redis action through the breaker.
+     *
+     * @param action   - The Redis action
+     * @param fallback - The result while the breaker is open or when the action fails
+     * @return T - The action's result, or the fallback
+     */
+    public <T> T call(Supplier<T> action, T fallback) {
+        if (!allowRequest())
+            return fallback;
+        long start = System.nanoTime();
+        try {
+            T result = action.get();
+            onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            onFailure();
+            return fallback;
+        }
+    }
+
+    public void addRecoveryListener(Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    /**
+     * This method pings Redis while the breaker is open and closes it once Redis answers.
+     */
+    @Scheduled(fixedDelayString = "${addressbook.cache.circuit.probe-interval-ms:2000}")
+    public void probe() {
+        if (!open)
+            return;
+        boolean healthy;
+        try {
+            healthy = probe.getAsBoolean();
+        } catch (RuntimeException e) {
+            healthy = false;
+        }
+        if (!healthy)
+            return;
+        synchronized (this) {
+            next = recorded = failures = slowCalls = 0;
+            open = false;
+        }
+        log.info("Redis is reachable again, cache circuit closed");
+        meterRegistry.counter("addressbook.cache.circuit.transitions", "to", "closed").increment();
+        for (Runnable listener : recoveryListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                log.warn("Cache recovery listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void record(byte outcome) {
+        count(outcome == SUCCESS ? "success" : outcome == FAILURE ? "failure" : "slow");
+        boolean tripped = false;
+        synchronized (this) {
+            if (open)
+                return;
+            if (recorded == outcomes.length) {
+                if (outcomes[next] == FAILURE) failures--;
+                else if (outcomes[next] == SLOW) slowCalls--;
+            } else {
+                recorded++;
+            }
+            outcomes[next] = outcome;
+            next = (next + 1) % outcomes.length;
+            if (outcome == FAILURE) failures++;
+            else if (outcome == SLOW) slowCalls++;
+
+            if (recorded >= minimumCalls
+                    && ((double) failures / recorded >= failureRateThreshold || (double) slowCalls / recorded >= slowCallRateThreshold)) {
+                open = true;
+                tripped = true;
+            }
+        }
+        if (tripped) {
+            log.warn("Redis failing or slow, cache circuit opened; serving from the local cache and the database");
+            meterRegistry.counter("addressbook.cache.circuit.transitions", "to", "open").increment();
+        }
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("addressbook.cache.circuit.calls", "outcome", outcome).increment();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.addressbook.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ReplicaLagMonitor periodically measures the replication lag of every read replica.
+ * Replicas that are unreachable, not replicating, or further behind than the allowed lag
+ * are taken out of read routing until they catch up again.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final Duration maxLag;
+    private final String lagQuery;
+    private final Map<String, AtomicLong> lagSeconds = new HashMap<>();
+
+    public ReplicaLagMonitor(ReplicaRoutingDataSource routingDataSource, Duration maxLag, String lagQuery, MeterRegistry meterRegistry) {
+        this.routingDataSource = routingDataSource;
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery;
+        for (String key : routingDataSource.getReplicas().keySet()) {
+            AtomicLong lag = new AtomicLong();
+            lagSeconds.put(key, lag);
+            Gauge.builder("addressbook.datasource.replica.lag", lag, AtomicLong::get)
+                    .tag("replica", key)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * This method checks every replica and updates its routing health.
+     */
+    @Scheduled(fixedDelayString = "${addressbook.datasource.routing.lag-check-interval-ms:5000}")
+    public void checkReplicas() {
+        routingDataSource.getReplicas().forEach((key, dataSource) -> {
+            long lag = measureLag(dataSource);
+            lagSeconds.get(key).set(lag);
+            boolean healthy = lag >= 0 && lag <= maxLag.toSeconds();
+            if (!healthy)
+                log.warn("Replica {} excluded from read routing, lag: {}s", key, lag);
+            routingDataSource.setReplicaHealthy(key, healthy);
+        });
+    }
+
+    /**
+     * This method measures the replication lag of a replica in seconds.
+     *
+     * @param dataSource - The replica DataSource
+     * @return long - The lag in seconds, or -1 if the replica is unreachable or not replicating
+     */
+    long measureLag(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        try {
+            if (lagQuery == null || lagQuery.isBlank()) {
+                jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+                return 0;
+            }
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(lagQuery);
+            // No replica status means the server is not replicating, so its data may be arbitrarily stale
+            if (rows.isEmpty())
+                return -1;
+            Object lag = rows.get(0).getOrDefault("Seconds_Behind_Source", rows.get(0).get("Seconds_Behind_Master"));
+            return lag instanceof Number number ? number.longValue() : -1;
+        } catch (DataAccessException e) {
+            log.warn("Could not check replica lag: {}", e.getMessage());
+            return -1;
+        }
+    }
+}
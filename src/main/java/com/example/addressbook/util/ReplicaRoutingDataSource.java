@@ -0,0 +1,100 @@
+package com.example.addressbook.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ReplicaRoutingDataSource sends @Transactional(readOnly = true) work to the read replicas
+ * and everything else to the primary.
+ * Replicas are used round robin, skipping the ones ReplicaLagMonitor marked as lagging,
+ * and users who wrote recently are kept on the primary (read-your-writes).
+ * It must be wrapped in a LazyConnectionDataSourceProxy so that the lookup happens after
+ * the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final Map<String, DataSource> replicas;
+    private final List<String> replicaKeys;
+    private final Set<String> unhealthyReplicas = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final Map<String, Counter> routeCounters = new HashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    ReadYourWritesTracker readYourWritesTracker, MeterRegistry meterRegistry) {
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.replicaKeys = List.copyOf(this.replicas.keySet());
+        this.readYourWritesTracker = readYourWritesTracker;
+
+        Map<Object, Object> targets = new HashMap<>(this.replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        for (Object key : targets.keySet()) {
+            routeCounters.put((String) key, Counter.builder("addressbook.datasource.route")
+                    .tag("target", (String) key)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String key = route();
+        routeCounters.get(key).increment();
+        return key;
+    }
+
+    private String route() {
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && TransactionSynchronizationManager.isActualTransactionActive())
+                readYourWritesTracker.recordWrite(user);
+            return PRIMARY;
+        }
+        if (user != null && readYourWritesTracker.isSticky(user))
+            return PRIMARY;
+        for (int i = 0; i < replicaKeys.size(); i++) {
+            String key = replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+            if (!unhealthyReplicas.contains(key))
+                return key;
+        }
+        return PRIMARY;     // No replica is usable, fall back to the primary.
+    }
+
+    private String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken)
+            return null;
+        return authentication.getName();
+    }
+
+    /**
+     * This method includes or excludes a replica from read routing.
+     *
+     * @param key     - The replica key
+     * @param healthy - false if the replica is unreachable or lagging too far behind
+     */
+    public void setReplicaHealthy(String key, boolean healthy) {
+        if (healthy)
+            unhealthyReplicas.remove(key);
+        else
+            unhealthyReplicas.add(key);
+    }
+
+    public Map<String, DataSource> getReplicas() {
+        return Collections.unmodifiableMap(replicas);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.addressbook.util;
 
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -8,17 +9,36 @@ public class SecurityUtil {
 
     public static String getAuthenticatedUserEmail() {
         Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        if (principal instanceof UserDetails) {
+        if (principal instanceof AuthenticatedUser) {
+            return ((AuthenticatedUser) principal).getEmail();
+        } else if (principal instanceof UserDetails) {
             return ((UserDetails) principal).getUsername();
         } else {
             return principal.toString();
         }
     }
 
+    /**
+     * This method returns the typed principal built from the access token claims.
+     *
+     * @return AuthenticatedUser - The authenticated user, or null if the request was not authenticated with a claims-bearing token
+     */
+    public static AuthenticatedUser getAuthenticatedUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user;
+        }
+        return null;
+    }
+
     public static void setAuthenticatedUserEmail(String email) {
         // This method is a placeholder for setting the authenticated user's email.
         // In a real application, you would typically set this in the SecurityContext.
         // For example:
         SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(email, null));
     }
-}
\ No newline at end of file
+
+    public static void setAuthenticatedUser(AuthenticatedUser user) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
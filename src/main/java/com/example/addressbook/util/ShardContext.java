@@ -0,0 +1,40 @@
+package com.example.addressbook.util;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds the shard the current thread works on.
+ * ShardRoutingDataSource reads it when a connection is requested; without a shard
+ * the home shard is used, which also holds the ACCOUNTS table.
+ */
+public class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT_SHARD = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        return CURRENT_SHARD.get();
+    }
+
+    /**
+     * This method runs the given work with the current thread bound to a shard.
+     *
+     * @param shard - The shard key
+     * @param work  - The work to run
+     * @return T - The result of the work
+     */
+    public static <T> T callOn(String shard, Supplier<T> work) {
+        String previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null)
+                CURRENT_SHARD.remove();
+            else
+                CURRENT_SHARD.set(previous);
+        }
+    }
+}
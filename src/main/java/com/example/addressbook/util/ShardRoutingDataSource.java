@@ -0,0 +1,41 @@
+package com.example.addressbook.util;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.*;
+
+/**
+ * ShardRoutingDataSource picks the shard DataSource bound to the current thread by ShardContext.
+ * The home shard is the regular application database (optionally replica routed) and keeps
+ * every table except ADDRESS_BOOK, which is split across all shards by owner user_id.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String HOME_SHARD = "shard-0";
+
+    private final Map<String, DataSource> shards;
+    private final Set<String> initialMembers;
+
+    public ShardRoutingDataSource(Map<String, DataSource> shards, Set<String> initialMembers) {
+        this.shards = new LinkedHashMap<>(shards);
+        this.initialMembers = Collections.unmodifiableSet(new TreeSet<>(initialMembers));
+        setTargetDataSources(new HashMap<>(this.shards));
+        setDefaultTargetDataSource(this.shards.get(HOME_SHARD));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String shard = ShardContext.current();
+        return shard != null ? shard : HOME_SHARD;
+    }
+
+    public Map<String, DataSource> getShards() {
+        return Collections.unmodifiableMap(shards);
+    }
+
+    // Shards that form the ring when no ring has been published in Redis yet.
+    public Set<String> getInitialMembers() {
+        return initialMembers;
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.addressbook.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Cache decorator that coalesces concurrent misses for the same key into a single load.
+ * Within a node, callers of get(key, loader) for a key that is already loading await the same future.
+ * Across nodes, the loader holds a short Redis lock while others poll the cache for its result.
+ * Loaded values are stored in a CacheEnvelope, so a read close to expiry may refresh the entry
+ * early (XFetch). The refresh runs on a background executor under the same Redis lock, with the
+ * reader's security context, and every reader, including the one that triggered it, is served the current value.
+ * Spring routes @Cacheable(sync = true) through get(key, loader).
+ */
+public class SingleFlightCache implements Cache {
+
+    private static final RedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private static final long LOCK_POLL_MILLIS = 20;
+
+    // Completes the in-flight future of a refresh that did not load, so that callers waiting on it load themselves
+    private static final Object NOT_LOADED = new Object();
+
+    private final Cache delegate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final Duration lockTtl;
+    private final double beta;
+    private final Executor refreshExecutor;
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public SingleFlightCache(Cache delegate, StringRedisTemplate stringRedisTemplate, MeterRegistry meterRegistry,
+                             Duration ttl, Duration lockTtl, double beta, Executor refreshExecutor) {
+        this.delegate = delegate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.lockTtl = lockTtl;
+        this.beta = beta;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper != null && wrapper.get() instanceof CacheEnvelope envelope)
+            return new SimpleValueWrapper(envelope.getValue());
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value))
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper != null) {
+            Object stored = wrapper.get();
+            if (!(stored instanceof CacheEnvelope envelope))
+                return (T) stored;
+            // Only the caller that wins the in-flight slot starts a refresh; it runs in the background.
+            if (envelope.shouldRefreshEarly(System.currentTimeMillis(), beta)) {
+                CompletableFuture<Object> refresh = new CompletableFuture<>();
+                if (inFlight.putIfAbsent(key, refresh) == null) {
+                    Callable<?> loader = new DelegatingSecurityContextCallable<>(valueLoader);
+                    try {
+                        refreshExecutor.execute(() -> refreshEarly(key, loader, refresh));
+                        count("early_refresh");
+                    } catch (RejectedExecutionException e) {
+                        count("early_refresh_rejected");
+                        inFlight.remove(key, refresh);
+                        refresh.complete(NOT_LOADED);
+                    }
+                }
+            }
+            return (T) envelope.getValue();
+        }
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, mine);
+        if (existing == null) {
+            return (T) loadAcrossNodes(key, valueLoader, mine);
+        }
+
+        count("coalesced");
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Object value = existing.get();
+            // An early refresh that was skipped or failed; the entry is gone since, so load it
+            if (value == NOT_LOADED)
+                return get(key, valueLoader);
+            return (T) value;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (ExecutionException e) {
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        } finally {
+            sample.stop(meterRegistry.timer("addressbook.cache.coalesced_wait", "cache", getName()));
+        }
+    }
+
+    // Reloads an entry close to expiry unless another node already is; failures are retried by a later read.
+    private void refreshEarly(Object key, Callable<?> valueLoader, CompletableFuture<Object> refresh) {
+        String lockKey = lockKey(key);
+        String token = UUID.randomUUID().toString();
+        if (!tryLock(lockKey, token)) {
+            count("early_refresh_skipped");
+            inFlight.remove(key, refresh);
+            refresh.complete(NOT_LOADED);
+            return;
+        }
+        try {
+            load(key, valueLoader, refresh);
+        } catch (ValueRetrievalException e) {
+            // The current value is still valid until it expires
+        } finally {
+            releaseLock(lockKey, token);
+        }
+    }
+
+    // Takes the Redis lock for the key, or waits for the node holding it to publish the value.
+    private Object loadAcrossNodes(Object key, Callable<?> valueLoader, CompletableFuture<Object> mine) {
+        String lockKey = lockKey(key);
+        String token = UUID.randomUUID().toString();
+        boolean locked = tryLock(lockKey, token);
+
+        if (!locked) {
+            long deadline = System.nanoTime() + lockTtl.toNanos();
+            while (System.nanoTime() < deadline) {
+                ValueWrapper wrapper = get(key);
+                if (wrapper != null) {
+                    count("lock_wait_hit");
+                    inFlight.remove(key, mine);
+                    mine.complete(wrapper.get());
+                    return wrapper.get();
+                }
+                try {
+                    Thread.sleep(LOCK_POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            count("lock_wait_timeout");
+            return load(key, valueLoader, mine);
+        }
+
+        try {
+            count("loaded");
+            return load(key, valueLoader, mine);
+        } finally {
+            releaseLock(lockKey, token);
+        }
+    }
+
+    private String lockKey(Object key) {
+        return "lock:" + getName() + "::" + key;
+    }
+
+    private boolean tryLock(String lockKey, String token) {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(lockKey, token, lockTtl));
+        } catch (RuntimeException e) {
+            // Without Redis there is nothing to coordinate with, load locally
+            return true;
+        }
+    }
+
+    private void releaseLock(String lockKey, String token) {
+        try {
+            stringRedisTemplate.execute(RELEASE_LOCK, List.of(lockKey), token);
+        } catch (RuntimeException e) {
+            // The lock expires on its own
+        }
+    }
+
+    private Object load(Object key, Callable<?> valueLoader, CompletableFuture<Object> future) {
+        try {
+            long start = System.currentTimeMillis();
+            Object value = valueLoader.call();
+            long now = System.currentTimeMillis();
+            delegate.put(key, value == null ? null : new CacheEnvelope(value, now - start, now + ttl.toMillis()));
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper wrapper = delegate.putIfAbsent(key, value);
+        if (wrapper != null && wrapper.get() instanceof CacheEnvelope envelope)
+            return new SimpleValueWrapper(envelope.getValue());
+        return wrapper;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("addressbook.cache.singleflight", "cache", getName(), "outcome", outcome).increment();
+    }
+}
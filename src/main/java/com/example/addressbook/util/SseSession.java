@@ -0,0 +1,94 @@
+package com.example.addressbook.util;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One open Server-Sent Events connection.
+ * Events are queued in a small bounded buffer and written by a shared executor, at most one task per
+ * connection at a time, so an idle connection holds no thread and publishers never wait on a socket.
+ * A connection whose buffer overflows is a slow consumer and is closed; the client reconnects
+ * and catches up through the delta-sync API.
+ */
+public class SseSession {
+
+    private final Long userId;
+    private final SseEmitter emitter;
+    private final BlockingQueue<SseEmitter.SseEventBuilder> buffer;
+    private final Executor executor;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public SseSession(Long userId, SseEmitter emitter, int bufferSize, Executor executor) {
+        this.userId = userId;
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.executor = executor;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    /**
+     * This method queues an event for the connection without blocking.
+     *
+     * @param event - The event to send
+     * @return boolean - false if the connection is closed, or was closed because its buffer is full
+     */
+    public boolean offer(SseEmitter.SseEventBuilder event) {
+        if (closed.get())
+            return false;
+        if (!buffer.offer(event)) {
+            close();
+            return false;
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            buffer.clear();
+            emitter.complete();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (!draining.compareAndSet(false, true))
+            return;
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            close();
+        }
+    }
+
+    private void drain() {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (!closed.get() && (event = buffer.poll()) != null) {
+                emitter.send(event);
+            }
+        } catch (Exception e) {
+            // The client went away; the emitter's completion callback removes the session
+            closed.set(true);
+            emitter.completeWithError(e);
+        } finally {
+            draining.set(false);
+        }
+        // An event queued after the last poll but before draining was cleared
+        if (!closed.get() && !buffer.isEmpty())
+            scheduleDrain();
+    }
+}
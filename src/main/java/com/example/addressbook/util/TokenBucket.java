@@ -0,0 +1,39 @@
+package com.example.addressbook.util;
+
+/**
+ * Thread-safe token bucket holding up to capacity tokens, refilled continuously
+ * at a fixed rate. Used to cap the rate of background or per-client work.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double capacity, double tokensPerSecond) {
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000.0;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * This method takes one token if one is available.
+     *
+     * @return boolean - true if a token was taken, false if the bucket is empty
+     */
+    public synchronized boolean tryConsume() {
+        refill();
+        if (tokens < 1)
+            return false;
+        tokens -= 1;
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
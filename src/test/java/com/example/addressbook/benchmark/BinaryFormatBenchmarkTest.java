@@ -0,0 +1,56 @@
+package com.example.addressbook.benchmark;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import com.example.addressbook.dto.ResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares bytes on the wire and serialization CPU of JSON, CBOR and Smile
+ * for ResponseDTO<List<AddressBookDTO>> with 1k/10k/100k-contact books.
+ * Run with: mvn test -Dtest=BinaryFormatBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BinaryFormatBenchmarkTest {
+
+    private static final int ITERATIONS = 20;
+
+    private final Map<String, ObjectMapper> mappers = Map.of(
+            "json", new ObjectMapper(),
+            "cbor", new ObjectMapper(new CBORFactory()),
+            "smile", new ObjectMapper(new SmileFactory()));
+
+    @Test
+    void compareFormats() throws Exception {
+        for (int size : new int[]{1_000, 10_000, 100_000}) {
+            List<AddressBookDTO> contacts = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                contacts.add(new AddressBookDTO((long) i, "First" + i, "Last" + i,
+                        i + " Main Street Block-" + (i % 50), "contact" + i + "@example.com", "98765" + String.format("%05d", i)));
+            }
+            ResponseDTO<List<AddressBookDTO>> response = new ResponseDTO<>("Get All Address Book Data", contacts);
+            for (String format : List.of("json", "cbor", "smile")) {
+                report(size, format, mappers.get(format), response);
+            }
+        }
+    }
+
+    private void report(int size, String format, ObjectMapper mapper, Object response) throws Exception {
+        int bytes = mapper.writeValueAsBytes(response).length;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            // Stream into a null sink, as the converters do into the response, to time encoding alone.
+            mapper.writeValue(OutputStream.nullOutputStream(), response);
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+        System.out.printf("contacts=%d format=%s bytes=%d serializeMs=%.2f%n", size, format, bytes, millis);
+    }
+}
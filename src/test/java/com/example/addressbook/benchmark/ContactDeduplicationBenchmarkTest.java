@@ -0,0 +1,61 @@
+package com.example.addressbook.benchmark;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import com.example.addressbook.util.ContactDeduplicator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures duplicate detection over large address books where 5% of the contacts are near copies
+ * (reformatted phone, misspelt first name), with one worker and with every core.
+ * Run with: mvn test -Dtest=ContactDeduplicationBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ContactDeduplicationBenchmarkTest {
+
+    private static final String[] FIRST_NAMES = {"John", "Mary", "Robert", "Linda", "Michael", "Priya", "Rahul", "Anita", "David", "Sara"};
+    private static final String[] LAST_NAMES = {"Smith", "Sharma", "Brown", "Patel", "Jones", "Gupta", "Miller", "Singh", "Wilson", "Khan"};
+
+    @Test
+    void measureDuplicateDetection() {
+        for (int size : new int[]{10_000, 100_000}) {
+            List<AddressBookDTO> contacts = generate(size);
+            for (int parallelism : new int[]{1, Runtime.getRuntime().availableProcessors()}) {
+                ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    ContactDeduplicator deduplicator = new ContactDeduplicator(pool, 0.85, 200, 20);
+                    deduplicator.findDuplicates(contacts);     // warm up
+                    long start = System.nanoTime();
+                    ContactDeduplicator.Result result = deduplicator.findDuplicates(contacts);
+                    double millis = (System.nanoTime() - start) / 1_000_000.0;
+                    System.out.printf("contacts=%d parallelism=%d comparisons=%d groups=%d ms=%.1f (all pairs: %d)%n",
+                            size, parallelism, result.comparisons(), result.suggestions().size(), millis, (long) size * (size - 1) / 2);
+                } finally {
+                    pool.shutdownNow();
+                }
+            }
+        }
+    }
+
+    private static List<AddressBookDTO> generate(int size) {
+        Random random = new Random(42);
+        List<AddressBookDTO> contacts = new ArrayList<>(size);
+        for (int i = 0; contacts.size() < size; i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + (char) ('a' + random.nextInt(26));
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)] + (char) ('a' + random.nextInt(26)) + (char) ('a' + random.nextInt(26));
+            String phone = String.format("9%09d", random.nextInt(1_000_000_000));
+            contacts.add(new AddressBookDTO((long) contacts.size(), first, last, i + " Main Street",
+                    first.toLowerCase() + "." + i + "@example.com", phone));
+            if (random.nextInt(20) == 0 && contacts.size() < size) {
+                contacts.add(new AddressBookDTO((long) contacts.size(), first.substring(0, first.length() - 1) + "e", last, null,
+                        first.toLowerCase() + "." + i + "@example.com", "+91 " + phone.substring(0, 5) + "-" + phone.substring(5)));
+            }
+        }
+        return contacts;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.addressbook.benchmark;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import com.example.addressbook.util.ContactExportFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures the export throughput of the formatters, in MB/s of response bytes, with and without gzip.
+ * Contacts are generated on the fly and written to a discarding stream, as ContactExportService does
+ * with rows coming from the database, so the numbers are an upper bound for the formatting side.
+ * Run with: mvn test -Dtest=ContactExportBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ContactExportBenchmarkTest {
+
+    private static final int CONTACTS = 1_000_000;
+    private static final int FLUSH_ROWS = 500;
+    private static final int BUFFER_SIZE = 65536;
+    private static final int GZIP_LEVEL = 1;
+
+    @Test
+    void measureExportThroughput() throws Exception {
+        for (ContactExportFormat format : ContactExportFormat.values()) {
+            export(format, false);    // warm up
+            for (boolean gzip : new boolean[]{false, true}) {
+                long start = System.nanoTime();
+                long bytes = export(format, gzip);
+                double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+                System.out.printf("format=%s gzip=%s contacts=%d bytes=%d seconds=%.2f MBps=%.1f%n",
+                        format.getExtension(), gzip, CONTACTS, bytes, seconds, bytes / 1_048_576.0 / seconds);
+            }
+        }
+    }
+
+    private long export(ContactExportFormat format, boolean gzip) throws IOException {
+        long[] count = new long[1];
+        OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+                count[0]++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                count[0] += len;
+            }
+        };
+        OutputStream target = gzip ? new GZIPOutputStream(sink, BUFFER_SIZE, true) {
+            {
+                def.setLevel(GZIP_LEVEL);
+            }
+        } : sink;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+        format.writeHeader(writer);
+        for (int i = 0; i < CONTACTS; i++) {
+            format.writeContact(writer, new AddressBookDTO((long) i, "First" + i, "Last" + i,
+                    i + " Main Street, Block-" + (i % 50), "contact" + i + "@example.com", "98765" + String.format("%05d", i % 100_000)));
+            if ((i + 1) % FLUSH_ROWS == 0)
+                writer.flush();
+        }
+        writer.close();
+        return count[0];
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.addressbook.benchmark;
+
+import com.example.addressbook.model.AddressBook;
+import com.example.addressbook.model.UserAuthentication;
+import com.example.addressbook.repository.AddressBookRepository;
+import com.example.addressbook.repository.LogStructuredAddressBookRepository;
+import com.example.addressbook.repository.LogStructuredUserAuthenticationRepository;
+import com.example.addressbook.repository.UserAuthenticationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs the same repository workload against the JPA repositories (on in-memory H2) and against the
+ * log-structured repositories of the edge profile: inserts, reads by id, reads by owner, updates and deletes.
+ * Every repository call runs in its own transaction, as it does when called from the services.
+ * Run with: mvn test -Dtest=EdgeStorageBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:edge-benchmark",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EdgeStorageBenchmarkTest {
+
+    private static final int USERS = 100;
+    private static final int CONTACTS = 20_000;
+    private static final int READS = 50_000;
+
+    @Autowired
+    AddressBookRepository addressBookRepository;
+
+    @Autowired
+    UserAuthenticationRepository userAuthenticationRepository;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compareJpaAndLogStructuredRepositories() throws Exception {
+        run("jpa-h2", addressBookRepository, userAuthenticationRepository);
+        for (boolean syncWrites : new boolean[]{false, true}) {
+            Path storeDirectory = directory.resolve("sync-" + syncWrites);
+            try (LogStructuredAddressBookRepository contacts = new LogStructuredAddressBookRepository(storeDirectory.resolve("contacts"), 64 << 20, syncWrites, 0.5);
+                 LogStructuredUserAuthenticationRepository accounts = new LogStructuredUserAuthenticationRepository(storeDirectory.resolve("accounts"), 64 << 20, syncWrites, 0.5)) {
+                run("log-structured sync=" + syncWrites, contacts, accounts);
+            }
+            // Recovery replays every record written above
+            long start = System.nanoTime();
+            try (LogStructuredAddressBookRepository contacts = new LogStructuredAddressBookRepository(storeDirectory.resolve("contacts"), 64 << 20, syncWrites, 0.5)) {
+                System.out.printf("store=log-structured sync=%s recovery: %d contacts in %.1f ms%n",
+                        syncWrites, contacts.count(), (System.nanoTime() - start) / 1_000_000.0);
+            }
+        }
+    }
+
+    private void run(String store, AddressBookRepository contacts, UserAuthenticationRepository accounts) {
+        List<UserAuthentication> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(accounts.save(new UserAuthentication(null, "First" + i, "Last" + i, "user" + i + "@example.com",
+                    "$2a$10$abcdefghijklmnopqrstuv", null, "USER", null, 0)));
+        }
+
+        long[] ids = new long[CONTACTS];
+        long start = System.nanoTime();
+        for (int i = 0; i < CONTACTS; i++) {
+            AddressBook addressBook = new AddressBook(null, "First" + i, "Last" + i, "contact" + i + "@example.com",
+                    i + " Main Street Block-" + (i % 50), "98765" + String.format("%05d", i), users.get(i % USERS), null);
+            ids[i] = contacts.save(addressBook).getId();
+        }
+        report(store, "insert", CONTACTS, start);
+
+        Random random = new Random(42);
+        start = System.nanoTime();
+        for (int i = 0; i < READS; i++) {
+            contacts.findById(ids[random.nextInt(CONTACTS)]).orElseThrow();
+        }
+        report(store, "findById", READS, start);
+
+        start = System.nanoTime();
+        int found = 0;
+        for (UserAuthentication user : users) {
+            found += contacts.findByUser(user.getUserId()).size();
+        }
+        report(store, "findByUser (" + found / USERS + " contacts)", USERS, start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < CONTACTS / 2; i++) {
+            AddressBook addressBook = contacts.findById(ids[i]).orElseThrow();
+            addressBook.setPhoneNumber("91234" + String.format("%05d", i));
+            contacts.save(addressBook);
+        }
+        report(store, "update", CONTACTS / 2, start);
+
+        start = System.nanoTime();
+        for (int i = CONTACTS / 2; i < CONTACTS; i++) {
+            contacts.deleteById(ids[i]);
+        }
+        report(store, "delete", CONTACTS / 2, start);
+    }
+
+    private void report(String store, String operation, int count, long start) {
+        double millis = (System.nanoTime() - start) / 1_000_000.0;
+        System.out.printf("store=%s operation=%s count=%d ms=%.1f opsPerSecond=%.0f%n", store, operation, count, millis, count / millis * 1000);
+    }
+}
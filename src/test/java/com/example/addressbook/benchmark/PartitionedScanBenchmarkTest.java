@@ -0,0 +1,72 @@
+package com.example.addressbook.benchmark;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import com.example.addressbook.repository.AddressBookRowMapper;
+import com.example.addressbook.util.PartitionedTableScan;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Measures reading the whole ADDRESS_BOOK table into memory, in rows/s: "sequential" is the single
+ * id-ordered query mapped with AddressBookRowMapper that the admin listing ran before, "partitioned"
+ * is PartitionedTableScan with 1 to 8 connections and the same number of mapping threads.
+ * The table lives in an in-memory H2 database with -Dbenchmark.rows rows (2,000,000 by default), so there
+ * is no network round trip and the numbers show the CPU side; against MySQL the fetches also overlap network waits.
+ * Run with: mvn test -Dtest=PartitionedScanBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PartitionedScanBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 2_000_000);
+    private static final int PARTITIONS = 32;
+    private static final int FETCH_SIZE = 1000;
+
+    @Test
+    void measureAdminScanThroughput() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:partitioned-scan-benchmark;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(FETCH_SIZE);
+        jdbcTemplate.execute("CREATE TABLE ADDRESS_BOOK (id BIGINT PRIMARY KEY, first_name VARCHAR(64), last_name VARCHAR(64),"
+                + " address VARCHAR(255), email VARCHAR(255), phone_number VARCHAR(32), user_id BIGINT)");
+        jdbcTemplate.update("INSERT INTO ADDRESS_BOOK SELECT X, CONCAT('First', X), CONCAT('Last', X),"
+                + " CONCAT(X, ' Main Street, Block-', MOD(X, 50)), CONCAT('contact', X, '@example.com'),"
+                + " CONCAT('98765', LPAD(MOD(X, 100000), 5, '0')), MOD(X, 1000) FROM SYSTEM_RANGE(1, ?)", ROWS);
+
+        sequential(jdbcTemplate);    // warm up
+        measure("sequential", 1, () -> sequential(jdbcTemplate));
+        for (int parallelism : new int[]{1, 2, 4, 8}) {
+            ExecutorService fetchExecutor = Executors.newFixedThreadPool(parallelism);
+            ForkJoinPool mapPool = new ForkJoinPool(parallelism);
+            PartitionedTableScan<AddressBookDTO> scan = new PartitionedTableScan<>(List.of(dataSource), AddressBookRowMapper.TABLE,
+                    AddressBookRowMapper.COLUMNS, AddressBookRowMapper::fromColumns, PARTITIONS, FETCH_SIZE, fetchExecutor, mapPool);
+            scan.read();    // warm up
+            measure("partitioned", parallelism, scan::read);
+            fetchExecutor.shutdown();
+            mapPool.shutdown();
+        }
+        jdbcTemplate.execute("DROP TABLE ADDRESS_BOOK");
+    }
+
+    private static List<AddressBookDTO> sequential(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.query(AddressBookRowMapper.SELECT_ALL_ORDERED_BY_ID, new AddressBookRowMapper());
+    }
+
+    private static void measure(String variant, int parallelism, Supplier<List<AddressBookDTO>> read) {
+        long start = System.nanoTime();
+        List<AddressBookDTO> rows = read.get();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        if (rows.size() != ROWS || rows.get(ROWS - 1).getId() != ROWS)
+            throw new IllegalStateException(variant + " read " + rows.size() + " rows out of order");
+        System.out.printf("variant=%s parallelism=%d rows=%d seconds=%.2f rowsPerSecond=%.0f%n",
+                variant, parallelism, rows.size(), seconds, rows.size() / seconds);
+    }
+}
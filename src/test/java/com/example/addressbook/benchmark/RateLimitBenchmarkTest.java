@@ -0,0 +1,96 @@
+package com.example.addressbook.benchmark;
+
+import com.example.addressbook.util.RateLimitGroup;
+import com.example.addressbook.util.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures the per-request cost of the rate limit check made by RateLimitFilter: finding the endpoint group
+ * and taking a token from the address and user buckets, in ns per request, on one thread and on eight.
+ * Requests come from 10,000 users on 10,000 addresses, and the limits are high enough to let them all through
+ * (the "allowed" runs) or low enough to reject most of them (the "rejected" runs).
+ * Run with: mvn test -Dtest=RateLimitBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RateLimitBenchmarkTest {
+
+    private static final int CLIENTS = 10_000;
+    private static final int REQUESTS_PER_THREAD = 5_000_000;
+
+    private final String[] addresses = new String[CLIENTS];
+    private final Long[] userIds = new Long[CLIENTS];
+    private final String[] paths = new String[1024];
+
+    @Test
+    void measureCheckOverhead() throws Exception {
+        for (int i = 0; i < CLIENTS; i++) {
+            addresses[i] = "10.0." + (i / 256) + "." + (i % 256);
+            userIds[i] = (long) i;
+        }
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = "/api/addressbook/" + i;
+        }
+        for (String outcome : new String[]{"allowed", "rejected"}) {
+            double rate = "allowed".equals(outcome) ? 1_000_000_000 : 1;
+            List<RateLimitGroup> groups = List.of(
+                    group("auth", "/api/auth/", rate),
+                    group("addressbook", "/api/addressbook/", rate));
+            run(outcome, groups, 1);    // warm up
+            for (int threads : new int[]{1, 8}) {
+                run(outcome, groups, threads);
+            }
+        }
+    }
+
+    private RateLimitGroup group(String name, String pathPrefix, double rate) {
+        int capacity = rate > 1 ? 1_000_000 : 10;
+        return new RateLimitGroup(name, pathPrefix, new RateLimiter<>(capacity, rate, false), 0,
+                new RateLimiter<>(capacity, rate, false), 0, new SimpleMeterRegistry());
+    }
+
+    private void run(String outcome, List<RateLimitGroup> groups, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        Future<?>[] futures = new Future<?>[threads];
+        for (int t = 0; t < threads; t++) {
+            futures[t] = executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long allowed = 0;
+                for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                    int client = random.nextInt(CLIENTS);
+                    if (check(groups, paths[i & 1023], userIds[client], addresses[client]) == 0)
+                        allowed++;
+                }
+                return allowed;
+            });
+        }
+        long allowed = 0;
+        for (Future<?> future : futures) {
+            allowed += (Long) future.get();
+        }
+        long nanos = System.nanoTime() - start;
+        executor.shutdown();
+        long requests = (long) threads * REQUESTS_PER_THREAD;
+        // CPU time per request, counting only the threads that can run at the same time
+        int cores = Math.min(threads, Runtime.getRuntime().availableProcessors());
+        System.out.printf("outcome=%s threads=%d requests=%d allowed=%d nsPerRequest=%.0f requestsPerSecond=%.0f%n",
+                outcome, threads, requests, allowed, (double) nanos * cores / requests, requests / (nanos / 1_000_000_000.0));
+    }
+
+    // The lookup RateLimitService.tryAcquire makes
+    private static long check(List<RateLimitGroup> groups, String path, Long userId, String address) {
+        for (RateLimitGroup group : groups) {
+            if (group.matches(path))
+                return group.tryAcquire(userId, address);
+        }
+        return 0;
+    }
+}
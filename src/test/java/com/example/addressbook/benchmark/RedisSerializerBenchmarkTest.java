@@ -0,0 +1,67 @@
+package com.example.addressbook.benchmark;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import com.example.addressbook.util.CompactRedisSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares bytes per cache entry and encode/decode time of the JSON and compact
+ * Redis serializers for cached List<AddressBookDTO> values of 10/1k/10k contacts.
+ * Run with: mvn test -Dtest=RedisSerializerBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RedisSerializerBenchmarkTest {
+
+    private static final int ITERATIONS = 200;
+
+    private final Map<String, RedisSerializer<Object>> serializers = new LinkedHashMap<>();
+
+    {
+        serializers.put("json", new GenericJackson2JsonRedisSerializer());
+        serializers.put("compact", new CompactRedisSerializer(-1));
+        serializers.put("compact+deflate", new CompactRedisSerializer(1024));
+    }
+
+    @Test
+    void compareSerializers() {
+        for (int size : new int[]{10, 1_000, 10_000}) {
+            List<AddressBookDTO> contacts = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                contacts.add(new AddressBookDTO((long) i, "First" + i, "Last" + i,
+                        i + " Main Street Block-" + (i % 50), "contact" + i + "@example.com", "98765" + String.format("%05d", i)));
+            }
+            serializers.forEach((name, serializer) -> report(size, name, serializer, contacts));
+        }
+    }
+
+    private void report(int size, String name, RedisSerializer<Object> serializer, Object value) {
+        byte[] bytes = serializer.serialize(value);
+        // Warm up before timing
+        for (int i = 0; i < ITERATIONS; i++) {
+            serializer.deserialize(serializer.serialize(value));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            serializer.serialize(value);
+        }
+        long encodeNs = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            serializer.deserialize(bytes);
+        }
+        long decodeNs = (System.nanoTime() - start) / ITERATIONS;
+
+        System.out.printf("contacts=%d serializer=%s bytesPerEntry=%d encodeNs=%d decodeNs=%d%n",
+                size, name, bytes.length, encodeNs, decodeNs);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.addressbook.benchmark;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import com.example.addressbook.dto.ResponseDTO;
+import com.example.addressbook.util.ContactFieldSet;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares payload size and serialization time of full AddressBookDTO responses
+ * with sparse fieldset responses (fields=firstName,phoneNumber) for large books.
+ * Run with: mvn test -Dtest=SparseFieldsetBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SparseFieldsetBenchmarkTest {
+
+    private static final int ITERATIONS = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void compareFullAndSparsePayloads() throws Exception {
+        ContactFieldSet fieldSet = ContactFieldSet.parse("firstName,phoneNumber");
+        for (int size : new int[]{1_000, 10_000, 100_000}) {
+            List<AddressBookDTO> full = new ArrayList<>(size);
+            List<Map<String, Object>> sparse = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                AddressBookDTO dto = new AddressBookDTO((long) i, "First" + i, "Last" + i,
+                        i + " Main Street Block-" + (i % 50), "contact" + i + "@example.com", "98765" + String.format("%05d", i % 100_000));
+                full.add(dto);
+                Map<String, Object> row = new LinkedHashMap<>();
+                for (String field : fieldSet.getFields()) {
+                    row.put(field, switch (field) {
+                        case "id" -> dto.getId();
+                        case "firstName" -> dto.getFirstName();
+                        default -> dto.getPhoneNumber();
+                    });
+                }
+                sparse.add(row);
+            }
+            report(size, "full", new ResponseDTO<>("Get All Address Book Data", full));
+            report(size, "sparse", new ResponseDTO<>("Get All Address Book Data", sparse));
+        }
+    }
+
+    private void report(int size, String projection, Object response) throws Exception {
+        byte[] bytes = objectMapper.writeValueAsBytes(response);    // warm up
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            bytes = objectMapper.writeValueAsBytes(response);
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+        System.out.printf("contacts=%d projection=%s bytes=%d serializeMs=%.2f%n", size, projection, bytes.length, millis);
+    }
+}
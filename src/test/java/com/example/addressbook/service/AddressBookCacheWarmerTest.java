@@ -0,0 +1,147 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.model.UserAuthentication;
+import com.example.addressbook.repository.AddressBookRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.modelmapper.ModelMapper;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AddressBookCacheWarmerTest {
+
+    private static final Duration CACHE_TTL = Duration.ofMinutes(10);
+
+    @InjectMocks
+    private AddressBookCacheWarmer addressBookCacheWarmer;
+
+    @Mock
+    private AddressBookRepository addressBookRepository;
+
+    @Mock
+    private ModelMapper modelMapper;
+
+    @Mock
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, Object> valueOperations;
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        addressBookCacheWarmer.meterRegistry = meterRegistry;
+        addressBookCacheWarmer.cacheTtl = CACHE_TTL;
+        addressBookCacheWarmer.enabled = true;
+        addressBookCacheWarmer.maxPerSecond = 1;
+        addressBookCacheWarmer.threads = 1;
+        addressBookCacheWarmer.queueCapacity = 1;
+        addressBookCacheWarmer.init();
+        // Warm-ups run on the login thread
+        addressBookCacheWarmer.shutdown();
+        addressBookCacheWarmer.executor = Runnable::run;
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @AfterEach
+    void tearDown() {
+        meterRegistry.close();
+    }
+
+    @Test
+    void testWarmedLoginRecordsWarmedFirstRead() {
+        when(redisTemplate.hasKey(AddressBookCacheWarmer.listCacheKey("john@example.com"))).thenReturn(false);
+        when(shardRouter.onShardOf(eq(1L), eq(true), any())).thenReturn(List.of());
+
+        addressBookCacheWarmer.warmUp(user(1L, "john@example.com"));
+        addressBookCacheWarmer.recordFirstRead("john@example.com", TimeUnit.MILLISECONDS.toNanos(3));
+
+        verify(valueOperations).setIfAbsent(AddressBookCacheWarmer.listCacheKey("john@example.com"), List.of(), CACHE_TTL);
+        assertEquals(1, warmups("warmed"));
+        assertEquals(1, firstReads(true));
+        assertEquals(0, firstReads(false));
+    }
+
+    @Test
+    void testSkippedLoginCountsAsWarmed() {
+        when(redisTemplate.hasKey(AddressBookCacheWarmer.listCacheKey("john@example.com"))).thenReturn(true);
+
+        addressBookCacheWarmer.warmUp(user(1L, "john@example.com"));
+        addressBookCacheWarmer.recordFirstRead("john@example.com", TimeUnit.MILLISECONDS.toNanos(3));
+
+        verifyNoInteractions(shardRouter, valueOperations);
+        assertEquals(1, warmups("skipped"));
+        assertEquals(1, firstReads(true));
+    }
+
+    @Test
+    void testThrottledLoginRecordsColdFirstRead() {
+        when(redisTemplate.hasKey(any())).thenReturn(true);
+
+        addressBookCacheWarmer.warmUp(user(1L, "john@example.com"));
+        addressBookCacheWarmer.warmUp(user(2L, "jane@example.com"));
+        addressBookCacheWarmer.recordFirstRead("jane@example.com", TimeUnit.MILLISECONDS.toNanos(40));
+        // Only the first read after login is recorded
+        addressBookCacheWarmer.recordFirstRead("jane@example.com", TimeUnit.MILLISECONDS.toNanos(40));
+
+        assertEquals(1, warmups("throttled"));
+        assertEquals(1, firstReads(false));
+        assertEquals(0, firstReads(true));
+    }
+
+    @Test
+    void testLoginsWithoutListExpire() {
+        // Enough logins of users who never list to fill the first-read tracking
+        for (int i = 0; i < 10_000; i++) {
+            addressBookCacheWarmer.warmUp(user((long) i, "user" + i + "@example.com"));
+        }
+
+        addressBookCacheWarmer.sweepFirstReads(System.nanoTime() + CACHE_TTL.toNanos() + 1);
+        addressBookCacheWarmer.recordFirstRead("user1@example.com", TimeUnit.MILLISECONDS.toNanos(40));
+
+        // A read after the cache TTL says nothing about the warm-up
+        assertEquals(0, firstReads(false));
+
+        addressBookCacheWarmer.warmUp(user(10_000L, "late@example.com"));
+        addressBookCacheWarmer.recordFirstRead("late@example.com", TimeUnit.MILLISECONDS.toNanos(40));
+
+        assertEquals(1, firstReads(false));
+    }
+
+    private double warmups(String result) {
+        Counter counter = meterRegistry.find("addressbook.cache.warmup").tag("result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private long firstReads(boolean warmed) {
+        Timer timer = meterRegistry.find("addressbook.contacts.first_read").tag("warmed", Boolean.toString(warmed)).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private static UserAuthentication user(Long userId, String email) {
+        UserAuthentication user = new UserAuthentication();
+        user.setUserId(userId);
+        user.setEmail(email);
+        return user;
+    }
+}
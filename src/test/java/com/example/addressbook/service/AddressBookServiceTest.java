@@ -1,17 +1,22 @@
 package com.example.addressbook.service;
 
+import com.example.addressbook.dto.AddressBookChangesDTO;
 import com.example.addressbook.dto.AddressBookDTO;
 import com.example.addressbook.model.AddressBook;
+import com.example.addressbook.model.ContactTombstone;
 import com.example.addressbook.model.UserAuthentication;
 import com.example.addressbook.repository.AddressBookRepository;
 import com.example.addressbook.repository.UserAuthenticationRepository;
+import com.example.addressbook.util.AuthenticatedUser;
 import com.example.addressbook.util.JwtToken;
+import com.example.addressbook.util.RedisCircuitBreaker;
 import com.example.addressbook.util.SecurityUtil;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.modelmapper.ModelMapper;
+import org.springframework.cache.CacheManager;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -20,6 +25,7 @@ import org.springframework.data.redis.core.ValueOperations;
 
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -44,6 +50,30 @@ class AddressBookServiceTest {
     @Mock
     private ModelMapper modelMapper;
 
+    @Mock
+    private ContactTombstoneService contactTombstoneService;
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @Mock
+    private NegativeLookupCache negativeLookupCache;
+
+    @Mock
+    private RedisCircuitBreaker redisCircuitBreaker;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private ContactEventService contactEventService;
+
+    @Mock
+    private ContactExportService contactExportService;
+
+    @Mock
+    private ContactStatsService contactStatsService;
+
     @InjectMocks
     private AddressBookService addressBookService;
 
@@ -66,6 +96,13 @@ class AddressBookServiceTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
 
+        // Run shard-scoped work inline, as on an unsharded deployment
+        when(shardRouter.onShardOf(any(), anyBoolean(), any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+        // Redis calls go through a closed circuit breaker
+        when(redisCircuitBreaker.call(any(), any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+
         // Mocking User
         user = new UserAuthentication();
         user.setUserId(1L);
@@ -91,8 +128,8 @@ class AddressBookServiceTest {
         addressBookDTO.setPhoneNumber("9876543210");
 
         jwtToken = Mockito.mock(JwtToken.class);
-        validToken = when(jwtToken.createToken(user.getEmail(), user.getRole())).thenReturn(validToken).toString();
-        invalidToken = when(jwtToken.createToken(user.getEmail(), user.getRole())).thenReturn(invalidToken).toString();
+        validToken = when(jwtToken.createToken(user)).thenReturn(validToken).toString();
+        invalidToken = when(jwtToken.createToken(user)).thenReturn(invalidToken).toString();
 
         System.out.println(validToken);
         System.out.println(invalidToken);
@@ -115,6 +152,22 @@ class AddressBookServiceTest {
         verify(redisTemplate).expire(anyString(), anyLong(), any());
     }
 
+    @Test
+    void testGetMyAddressBookData_UsesTokenClaimsWithoutAccountLookup() {
+        SecurityUtil.setAuthenticatedUser(new AuthenticatedUser(1L, "test@example.com", "USER", 0));
+        when(addressBookRepository.findByUser(1L)).thenReturn(List.of(addressBook));
+        when(modelMapper.map(addressBook, AddressBookDTO.class)).thenReturn(addressBookDTO);
+
+        try {
+            List<AddressBookDTO> result = addressBookService.getMyAddressBookData(null);
+
+            assertEquals(1, result.size());
+            verify(userAuthenticationRepository, never()).findByEmail(anyString());
+        } finally {
+            SecurityUtil.setAuthenticatedUserEmail("test@example.com");
+        }
+    }
+
     @Test
     void testGetMyAddressBookData_UserNotFound() {
         when(userAuthenticationRepository.findByEmail("test@example.com")).thenReturn(Optional.empty());
@@ -137,6 +190,28 @@ class AddressBookServiceTest {
         verify(redisTemplate).expire(anyString(), anyLong(), any());
     }
 
+    @Test
+    void testGetAddressBookDataById_KnownMissingSkipsDatabase() {
+        when(userAuthenticationRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(negativeLookupCache.isKnownMissingContact(1L, 99L)).thenReturn(true);
+
+        Exception exception = assertThrows(RuntimeException.class, () ->
+                addressBookService.getAddressBookDataById(null, 99L));
+
+        assertEquals("Address Data not found with id: 99", exception.getMessage());
+        verify(addressBookRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void testGetAddressBookDataById_MissingIsRemembered() {
+        when(userAuthenticationRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(addressBookRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThrows(RuntimeException.class, () -> addressBookService.getAddressBookDataById(null, 99L));
+
+        verify(negativeLookupCache).recordMissingContact(1L, 99L);
+    }
+
     @Test
     void testGetAddressBookDataById_NotOwner() {
         UserAuthentication otherUser = new UserAuthentication();
@@ -153,6 +228,23 @@ class AddressBookServiceTest {
         assertEquals("Can't Access Address Book Data with id: 1. You are not the owner of that data", exception.getMessage());
     }
 
+    @Test
+    void testGetAddressBookDataByIds_CacheHitsAndDatabaseMisses() {
+        AddressBookDTO cachedDTO = new AddressBookDTO(2L, "Jane", "Doe", "456 Street", "jane@example.com", "9876543211");
+        AddressBookDTO loadedDTO = new AddressBookDTO(1L, "John", "Doe", "123 Street", "john@example.com", "9876543210");
+        when(userAuthenticationRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(cachedDTO, null, null));
+        when(addressBookRepository.findByIdsAndUser(List.of(1L, 3L), 1L)).thenReturn(List.of(addressBook));
+        when(modelMapper.map(addressBook, AddressBookDTO.class)).thenReturn(loadedDTO);
+
+        List<AddressBookDTO> result = addressBookService.getAddressBookDataByIds(null, List.of(2L, 1L, 3L, 2L));
+
+        assertEquals(List.of(cachedDTO, loadedDTO), result);
+        verify(valueOperations).multiGet(List.of("addressBookCache::contact:1:2", "addressBookCache::contact:1:1", "addressBookCache::contact:1:3"));
+        verify(addressBookRepository, never()).findById(anyLong());
+    }
+
     @Test
     void testCreateAddressBookData_Success() {
         when(userAuthenticationRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
@@ -163,6 +255,20 @@ class AddressBookServiceTest {
         AddressBookDTO result = addressBookService.createAddressBookData(addressBookDTO);
 
         assertEquals("John", result.getFirstName());
+        verify(contactEventService, times(1)).publish(1L, "created", 1L, addressBookDTO);
+        verify(contactStatsService).contactCreated(1L, addressBook.getEmail());
+    }
+
+    @Test
+    void testCreateAddressBookData_IgnoresClientId() {
+        when(userAuthenticationRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(modelMapper.map(addressBookDTO, AddressBook.class)).thenReturn(addressBook);
+        when(addressBookRepository.save(addressBook)).thenReturn(addressBook);
+        addressBookDTO.setId(99L);
+
+        addressBookService.createAddressBookData(addressBookDTO);
+
+        assertNull(addressBookDTO.getId());
     }
 
     @Test
@@ -200,13 +306,52 @@ class AddressBookServiceTest {
 
     @Test
     void testDeleteAddressBookData_Success() {
+        when(userAuthenticationRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
         doNothing().when(addressBookRepository).deleteById(1L);
 
         assertDoesNotThrow(() -> addressBookService.deleteAddressBookData(1L));
     }
 
+    @Test
+    void testDeleteAddressBookData_RecordsTombstone() {
+        when(userAuthenticationRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(addressBookRepository.findById(1L)).thenReturn(Optional.of(addressBook));
+
+        addressBookService.deleteAddressBookData(1L);
+
+        verify(addressBookRepository).deleteById(1L);
+        verify(contactTombstoneService).recordDeletion(1L, 1L);
+        verify(contactStatsService).contactDeleted(1L, addressBook.getEmail());
+    }
+
+    @Test
+    void testDeleteAddressBookData_TombstoneFailureFailsDelete() {
+        when(userAuthenticationRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(addressBookRepository.findById(1L)).thenReturn(Optional.of(addressBook));
+        doThrow(new RuntimeException("database down")).when(contactTombstoneService).recordDeletion(1L, 1L);
+
+        assertThrows(RuntimeException.class, () -> addressBookService.deleteAddressBookData(1L));
+
+        verifyNoInteractions(contactEventService, contactStatsService);
+    }
+
+    @Test
+    void testDeleteAddressBookData_NotOwner() {
+        UserAuthentication otherUser = new UserAuthentication();
+        otherUser.setUserId(2L);
+        addressBook.setUser(otherUser);
+        when(userAuthenticationRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(addressBookRepository.findById(1L)).thenReturn(Optional.of(addressBook));
+
+        assertThrows(RuntimeException.class, () -> addressBookService.deleteAddressBookData(1L));
+
+        verify(addressBookRepository, never()).deleteById(1L);
+        verifyNoInteractions(contactTombstoneService, contactStatsService);
+    }
+
     @Test
     void testDeleteAddressBookData_NotFound() {
+        when(userAuthenticationRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
         doThrow(new RuntimeException("Address Book not found with id: 1"))
                 .when(addressBookRepository).deleteById(1L);
 
@@ -239,4 +384,72 @@ class AddressBookServiceTest {
 
         assertEquals("You are not authorized to access this data", exception.getMessage());
     }
+
+    @Test
+    void testGetAddressBookChanges_DeltaSinceCursor() {
+        long since = System.currentTimeMillis() * 1000 - 60_000_000L;
+        addressBook.setChangeSequence(since + 10);
+        ContactTombstone tombstone = new ContactTombstone(1L, 7L, 1L, since + 20);
+
+        when(userAuthenticationRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(contactTombstoneService.getRetentionHorizon()).thenReturn(0L);
+        when(addressBookRepository.findChangedSince(1L, since)).thenReturn(List.of(addressBook));
+        when(contactTombstoneService.findDeletedSince(1L, since)).thenReturn(List.of(tombstone));
+        when(modelMapper.map(addressBook, AddressBookDTO.class)).thenReturn(addressBookDTO);
+
+        AddressBookChangesDTO result = addressBookService.getAddressBookChanges(since);
+
+        assertFalse(result.isFullResync());
+        assertEquals(1, result.getChanged().size());
+        assertEquals(List.of(7L), result.getDeletedIds());
+        assertTrue(result.getCursor() >= since + 20);
+        assertTrue(result.getCursor() <= System.currentTimeMillis() * 1000);
+        verify(addressBookRepository, never()).findByUser(anyLong());
+    }
+
+    @Test
+    void testGetAddressBookChanges_ExpiredCursorForcesFullResync() {
+        when(userAuthenticationRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(contactTombstoneService.getRetentionHorizon()).thenReturn(1_000L);
+        when(addressBookRepository.findByUser(1L)).thenReturn(List.of(addressBook));
+        when(modelMapper.map(addressBook, AddressBookDTO.class)).thenReturn(addressBookDTO);
+
+        AddressBookChangesDTO result = addressBookService.getAddressBookChanges(500L);
+
+        assertTrue(result.isFullResync());
+        assertEquals(1, result.getChanged().size());
+        assertTrue(result.getDeletedIds().isEmpty());
+        verify(contactTombstoneService, never()).findDeletedSince(anyLong(), anyLong());
+    }
+
+    @Test
+    void testGetAddressBookChanges_FullResyncOfEmptyBookMovesCursorPastHorizon() {
+        long horizon = System.currentTimeMillis() * 1000 - 60_000_000L;
+        when(userAuthenticationRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(contactTombstoneService.getRetentionHorizon()).thenReturn(horizon);
+        when(addressBookRepository.findByUser(1L)).thenReturn(List.of());
+
+        AddressBookChangesDTO result = addressBookService.getAddressBookChanges(0L);
+
+        assertTrue(result.isFullResync());
+        assertTrue(result.getCursor() > horizon);
+    }
+
+    @Test
+    void testGetAddressBookChanges_FullResyncOfOldRowsMovesCursorPastHorizon() {
+        long horizon = System.currentTimeMillis() * 1000 - 60_000_000L;
+        addressBook.setChangeSequence(horizon - 1_000_000L);
+        AddressBook legacy = new AddressBook();    // Created before change sequences existed
+        legacy.setId(2L);
+        legacy.setUser(user);
+        when(userAuthenticationRepository.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(contactTombstoneService.getRetentionHorizon()).thenReturn(horizon);
+        when(addressBookRepository.findByUser(1L)).thenReturn(List.of(addressBook, legacy));
+
+        AddressBookChangesDTO result = addressBookService.getAddressBookChanges(0L);
+
+        assertTrue(result.isFullResync());
+        assertEquals(2, result.getChanged().size());
+        assertTrue(result.getCursor() > horizon);
+    }
 }
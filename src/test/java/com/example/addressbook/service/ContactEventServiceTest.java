@@ -0,0 +1,170 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.util.RedisCircuitBreaker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ContactEventServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Completion callbacks the servlet container would run once a closed response has ended
+    private final List<Runnable> pendingCompletions = new ArrayList<>();
+    private ContactEventService contactEventService;
+
+    @BeforeEach
+    void setUp() {
+        contactEventService = new ContactEventService() {
+            @Override
+            SseEmitter createEmitter() {
+                return mockEmitter();
+            }
+        };
+        contactEventService.redisMessageListenerContainer = mock(RedisMessageListenerContainer.class);
+        contactEventService.redisCircuitBreaker = mock(RedisCircuitBreaker.class);
+        // Redis is unavailable, so events are delivered on this node
+        when(contactEventService.redisCircuitBreaker.call(any(), eq(false))).thenReturn(false);
+        contactEventService.objectMapper = new ObjectMapper();
+        contactEventService.meterRegistry = meterRegistry;
+        contactEventService.streamTimeout = Duration.ofMinutes(30);
+        contactEventService.bufferSize = 2;
+        contactEventService.maxStreamsPerUser = 2;
+        contactEventService.maxStreams = 100;
+        contactEventService.senderThreads = 1;
+        contactEventService.init();
+        // Sends run on the publishing thread, unless a test queues them
+        contactEventService.shutdown();
+        contactEventService.sender = Runnable::run;
+    }
+
+    @AfterEach
+    void tearDown() {
+        meterRegistry.close();
+    }
+
+    @Test
+    void testFullBufferDropsStream() {
+        List<Runnable> tasks = new ArrayList<>();
+        contactEventService.sender = tasks::add;
+        SseEmitter emitter = contactEventService.subscribe(1L);
+        assertEquals(1, openStreams());
+
+        // "connected" and the first event fill the buffer of two, the client reads nothing
+        contactEventService.publish(1L, "created", 10L, null);
+        contactEventService.publish(1L, "updated", 10L, null);
+
+        verify(emitter).complete();
+        assertEquals(0, openStreams());
+        assertEquals(1, droppedStreams());
+
+        completeResponses();
+        assertEquals(0, openStreams());
+    }
+
+    @Test
+    void testEventsAreSentInOrder() throws IOException {
+        SseEmitter emitter = contactEventService.subscribe(1L);
+
+        contactEventService.publish(1L, "created", 10L, null);
+        contactEventService.publish(1L, "updated", 10L, null);
+        contactEventService.publish(1L, "deleted", 10L, null);
+        contactEventService.publish(2L, "created", 11L, null);
+
+        ArgumentCaptor<SseEmitter.SseEventBuilder> events = ArgumentCaptor.forClass(SseEmitter.SseEventBuilder.class);
+        verify(emitter, times(4)).send(events.capture());
+        List<String> sent = events.getAllValues().stream().map(ContactEventServiceTest::dataOf).toList();
+        assertTrue(sent.get(0).contains("connected"));
+        assertTrue(sent.get(1).contains("\"created\""));
+        assertTrue(sent.get(2).contains("\"updated\""));
+        assertTrue(sent.get(3).contains("\"deleted\""));
+        verify(emitter, never()).complete();
+    }
+
+    @Test
+    void testMaxStreamsPerUserClosesOldest() throws IOException {
+        SseEmitter oldest = contactEventService.subscribe(1L);
+        SseEmitter second = contactEventService.subscribe(1L);
+        SseEmitter newest = contactEventService.subscribe(1L);
+
+        verify(oldest).complete();
+        verify(second, never()).complete();
+        verify(newest, never()).complete();
+        assertEquals(2, openStreams());
+
+        completeResponses();
+        contactEventService.publish(1L, "created", 10L, null);
+
+        assertEquals(2, openStreams());
+        assertEquals(0, droppedStreams());
+        verify(oldest, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(second, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+        verify(newest, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void testFailedSendRemovesStream() throws IOException {
+        SseEmitter emitter = contactEventService.subscribe(1L);
+        IOException failure = new IOException("Broken pipe");
+        doThrow(failure).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+
+        contactEventService.publish(1L, "created", 10L, null);
+
+        verify(emitter).completeWithError(failure);
+        completeResponses();
+        assertEquals(0, openStreams());
+
+        contactEventService.publish(1L, "updated", 10L, null);
+
+        // The client went away, it was not a slow consumer
+        assertEquals(0, droppedStreams());
+        verify(emitter, times(2)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    private SseEmitter mockEmitter() {
+        SseEmitter emitter = mock(SseEmitter.class);
+        AtomicReference<Runnable> onCompletion = new AtomicReference<>();
+        doAnswer(invocation -> {
+            onCompletion.set(invocation.getArgument(0));
+            return null;
+        }).when(emitter).onCompletion(any());
+        doAnswer(invocation -> pendingCompletions.add(onCompletion.get())).when(emitter).complete();
+        doAnswer(invocation -> pendingCompletions.add(onCompletion.get())).when(emitter).completeWithError(any());
+        return emitter;
+    }
+
+    private void completeResponses() {
+        List<Runnable> completions = new ArrayList<>(pendingCompletions);
+        pendingCompletions.clear();
+        completions.forEach(Runnable::run);
+    }
+
+    private double openStreams() {
+        return meterRegistry.get("addressbook.events.streams").gauge().value();
+    }
+
+    private double droppedStreams() {
+        Counter counter = meterRegistry.find("addressbook.events.dropped_streams").counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static String dataOf(SseEmitter.SseEventBuilder event) {
+        return event.build().stream().map(data -> data.getData().toString()).collect(Collectors.joining());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.util.RedisCircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ContactStatsServiceTest {
+
+    @InjectMocks
+    private ContactStatsService contactStatsService;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private RedisCircuitBreaker redisCircuitBreaker;
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testDomainIsLowerCasedPartAfterAt() {
+        assertEquals("example.com", ContactStatsService.domainOf("John.Doe@Example.COM"));
+        assertEquals(ContactStatsService.UNKNOWN_DOMAIN, ContactStatsService.domainOf("no-address"));
+        assertEquals(ContactStatsService.UNKNOWN_DOMAIN, ContactStatsService.domainOf("trailing@"));
+        assertEquals(ContactStatsService.UNKNOWN_DOMAIN, ContactStatsService.domainOf(null));
+    }
+
+    @Test
+    void testUpdateWithinSameDomainTouchesNoCounter() {
+        contactStatsService.contactUpdated("john@example.com", "john.doe@EXAMPLE.com");
+
+        verifyNoInteractions(redisCircuitBreaker, stringRedisTemplate);
+    }
+
+    @Test
+    void testStatsRequireAdmin() {
+        assertThrows(RuntimeException.class, () -> contactStatsService.getStats(10, 30));
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    void testReconcileSkippedWhileAnotherNodeHoldsTheLock() {
+        when(redisCircuitBreaker.call(any(), eq(false))).thenReturn(false);
+
+        contactStatsService.reconcile();
+
+        verifyNoInteractions(shardRouter);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.addressbook.service;
+
+import com.example.addressbook.config.EmailLaneProperties;
+import com.example.addressbook.util.EmailLane;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailSendException;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.example.addressbook.config.RabbitMQConfig.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EmailRetryServiceTest {
+
+    @InjectMocks
+    private EmailRetryService emailRetryService;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        emailRetryService.properties = new EmailLaneProperties();
+        emailRetryService.meterRegistry = meterRegistry;
+    }
+
+    @Test
+    void testFirstFailureGoesToFirstDelayQueue() {
+        Message message = message(null);
+
+        emailRetryService.retryOrDeadLetter(EmailLane.BULK, message, new MailSendException("SMTP unavailable"));
+
+        verify(rabbitTemplate).send(RETRY_EXCHANGE_NAME, "emailQueue.retry.10000ms", message);
+        assertEquals(1, (Integer) message.getMessageProperties().getHeader(EmailRetryService.RETRY_COUNT_HEADER));
+        assertEquals(1.0, meterRegistry.get("addressbook.email.deliveries").tag("outcome", "retried").counter().count());
+    }
+
+    @Test
+    void testCriticalLaneRetriesSoonerOnItsOwnQueues() {
+        Message message = message(null);
+
+        emailRetryService.retryOrDeadLetter(EmailLane.CRITICAL, message, new MailSendException("SMTP unavailable"));
+
+        verify(rabbitTemplate).send(RETRY_EXCHANGE_NAME, "emailQueue.critical.retry.2000ms", message);
+        assertEquals("CRITICAL", message.getMessageProperties().getHeader(EmailRetryService.LANE_HEADER));
+    }
+
+    @Test
+    void testLaterFailuresBackOffFurther() {
+        Message message = message(2);
+
+        emailRetryService.retryOrDeadLetter(EmailLane.BULK, message, new MailSendException("SMTP unavailable"));
+
+        verify(rabbitTemplate).send(RETRY_EXCHANGE_NAME, "emailQueue.retry.300000ms", message);
+    }
+
+    @Test
+    void testDeadLettersAfterLastDelay() {
+        Message message = message(4);
+
+        emailRetryService.retryOrDeadLetter(EmailLane.BULK, message, new MailSendException("SMTP unavailable"));
+
+        verify(rabbitTemplate).send(RETRY_EXCHANGE_NAME, DEAD_LETTER_QUEUE_NAME, message);
+        assertEquals(1.0, meterRegistry.get("addressbook.email.deliveries").tag("outcome", "dead_lettered").counter().count());
+    }
+
+    @Test
+    void testPermanentFailureIsDeadLetteredAtOnce() {
+        Message message = message(null);
+
+        emailRetryService.retryOrDeadLetter(EmailLane.BULK, message, new MailParseException("Illegal address"));
+
+        verify(rabbitTemplate).send(RETRY_EXCHANGE_NAME, DEAD_LETTER_QUEUE_NAME, message);
+        assertEquals("MailParseException: Illegal address", message.getMessageProperties().getHeader(EmailRetryService.LAST_ERROR_HEADER));
+    }
+
+    @Test
+    void testReplayRequiresAdmin() {
+        assertThrows(RuntimeException.class, () -> emailRetryService.replayDeadLetters(10));
+        verifyNoInteractions(rabbitTemplate);
+    }
+
+    private static Message message(Integer retryCount) {
+        MessageProperties properties = new MessageProperties();
+        if (retryCount != null)
+            properties.setHeader(EmailRetryService.RETRY_COUNT_HEADER, retryCount);
+        return new Message("LOGIN|john@example.com|John".getBytes(StandardCharsets.UTF_8), properties);
+    }
+}
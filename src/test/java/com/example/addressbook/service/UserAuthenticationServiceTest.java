@@ -1,9 +1,11 @@
 package com.example.addressbook.service;
 
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.example.addressbook.dto.*;
 import com.example.addressbook.exception.UserException;
 import com.example.addressbook.model.UserAuthentication;
 import com.example.addressbook.repository.UserAuthenticationRepository;
+import com.example.addressbook.util.AuthenticatedUser;
 import com.example.addressbook.util.JwtToken;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -43,6 +45,24 @@ class UserAuthenticationServiceTest {
     @Mock
     private MessageProducer messageProducer;
 
+    @Mock
+    private AddressBookCacheWarmer addressBookCacheWarmer;
+
+    @Mock
+    private NegativeLookupCache negativeLookupCache;
+
+    @Mock
+    private TokenVersionService tokenVersionService;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private ContactStatsService contactStatsService;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
@@ -105,15 +125,66 @@ class UserAuthenticationServiceTest {
 
         when(userAuthenticationRepository.findByEmail(loginDTO.getEmail())).thenReturn(Optional.of(user));
         when(passwordEncoder.matches(loginDTO.getPassword(), user.getPassword())).thenReturn(true);
-        when(tokenUtil.createToken(anyString(), anyString())).thenReturn("jwtToken");
+        when(tokenUtil.createToken(user)).thenReturn("jwtToken");
+        when(refreshTokenService.issue(user)).thenReturn("refreshToken");
 
         String loginResult = userAuthenticationService.login(loginDTO);
 
         assertTrue(loginResult.contains("logged in successfully"));
+        assertTrue(loginResult.contains("jwtToken"));
+        assertTrue(loginResult.contains("refreshToken"));
+        verify(addressBookCacheWarmer, times(1)).warmUp(user);
         verify(emailSenderService, times(1)).sendEmail(eq(user.getEmail()), anyString(), anyString());
         verify(messageProducer, times(1)).sendMessage(anyString());
     }
 
+    /**
+     * Test case for refreshing an access token, which neither loads the account nor checks the password.
+     */
+    @Test
+    void testRefreshTokenSuccess() throws Exception {
+        AuthenticatedUser user = new AuthenticatedUser(1L, "john@example.com", "User", 0);
+        when(refreshTokenService.rotate("oldRefreshToken"))
+                .thenReturn(new RefreshTokenService.Rotation(user, "newRefreshToken"));
+        when(tokenUtil.createToken(user)).thenReturn("jwtToken");
+
+        String result = userAuthenticationService.refresh(new RefreshTokenDTO("oldRefreshToken"));
+
+        assertTrue(result.contains("jwtToken"));
+        assertTrue(result.contains("newRefreshToken"));
+        verify(passwordEncoder, never()).matches(any(), any());
+        verify(userAuthenticationRepository, never()).findByEmail(anyString());
+    }
+
+    /**
+     * Test case for logout, which revokes the access token and the refresh token family.
+     */
+    @Test
+    void testLogoutRevokesTokens() throws Exception {
+        DecodedJWT decodedJWT = mock(DecodedJWT.class);
+        when(tokenUtil.verify("jwtToken")).thenReturn(decodedJWT);
+
+        String result = userAuthenticationService.logout("jwtToken", "refreshToken");
+
+        assertEquals("Logged out successfully!!", result);
+        verify(tokenRevocationService, times(1)).revoke(decodedJWT);
+        verify(refreshTokenService, times(1)).revoke("refreshToken");
+    }
+
+    /**
+     * Test case for login of an email known not to be registered, answered without a query.
+     */
+    @Test
+    void testLoginKnownMissingEmail() {
+        LoginDTO loginDTO = new LoginDTO("nobody@example.com", "password123");
+        when(negativeLookupCache.isKnownMissingEmail(loginDTO.getEmail())).thenReturn(true);
+
+        Exception exception = assertThrows(UserException.class, () -> userAuthenticationService.login(loginDTO));
+
+        assertEquals("Sorry! User not Found!", exception.getMessage());
+        verify(userAuthenticationRepository, never()).findByEmail(anyString());
+    }
+
     /**
      * Test case for login failure due to incorrect password.
      */
@@ -145,7 +216,7 @@ class UserAuthenticationServiceTest {
         user.setRole("User");
 
         when(userAuthenticationRepository.findByEmail(forgotPasswordDTO.getEmail())).thenReturn(Optional.of(user));
-        when(tokenUtil.createToken(user.getEmail(), user.getRole())).thenReturn("resetToken");
+        when(tokenUtil.createResetToken(user)).thenReturn("resetToken");
 
         String result = userAuthenticationService.forgotPassword(forgotPasswordDTO);
 
@@ -180,13 +251,14 @@ class UserAuthenticationServiceTest {
         user.setEmail("john@example.com");
 
         when(tokenUtil.isTokenExpired(resetToken)).thenReturn(false);
-        when(tokenUtil.decodeToken(resetToken)).thenReturn(user.getEmail());
+        when(tokenUtil.verifyResetToken(resetToken)).thenReturn(new AuthenticatedUser(1L, user.getEmail(), "USER", 0));
         when(userAuthenticationRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
         when(passwordEncoder.encode(resetPasswordDTO.getNewPassword())).thenReturn("encodedNewPassword");
 
         String result = userAuthenticationService.resetPassword(resetToken, resetPasswordDTO);
 
         assertEquals("Password reset successfully!!", result);
+        verify(tokenVersionService, times(1)).bumpVersion(user);
         verify(emailSenderService, times(1)).sendEmail(eq(user.getEmail()), anyString(), anyString());
     }
 
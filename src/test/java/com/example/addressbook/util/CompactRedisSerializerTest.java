@@ -0,0 +1,73 @@
+package com.example.addressbook.util;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactRedisSerializerTest {
+
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(1024);
+
+    @Test
+    void testContactRoundTrip() {
+        AddressBookDTO contact = new AddressBookDTO(42L, "John", "Doe", "12 Main Street", "john@example.com", "9876543210");
+
+        assertEquals(contact, serializer.deserialize(serializer.serialize(contact)));
+    }
+
+    @Test
+    void testNullFieldsRoundTrip() {
+        AddressBookDTO contact = new AddressBookDTO(null, "John", null, "", "john@example.com", null);
+
+        assertEquals(contact, serializer.deserialize(serializer.serialize(contact)));
+    }
+
+    @Test
+    void testLargeListIsCompressedAndRoundTrips() {
+        List<AddressBookDTO> contacts = new ArrayList<>();
+        for (long i = 0; i < 500; i++) {
+            contacts.add(new AddressBookDTO(i, "First" + i, "Last" + i, i + " Main Street", "contact" + i + "@example.com", "9876500000"));
+        }
+
+        byte[] bytes = serializer.serialize(contacts);
+
+        assertEquals(CompactRedisSerializer.FORMAT_VERSION, bytes[0]);
+        assertEquals(1, bytes[1]);
+        assertEquals(contacts, serializer.deserialize(bytes));
+    }
+
+    @Test
+    void testOtherValuesFallBackToJson() {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 1);
+        row.put("email", "john@example.com");
+        List<Map<String, Object>> rows = new ArrayList<>(List.of(row));
+
+        assertEquals(rows, serializer.deserialize(serializer.serialize(rows)));
+    }
+
+    @Test
+    void testReadsValuesWrittenByJsonSerializer() {
+        AddressBookDTO contact = new AddressBookDTO(7L, "Jane", "Doe", "1 High Street", "jane@example.com", "9123456789");
+        byte[] legacy = new GenericJackson2JsonRedisSerializer().serialize(contact);
+
+        AddressBookDTO read = (AddressBookDTO) serializer.deserialize(legacy);
+        assertEquals(7L, read.getId());
+        assertEquals(contact, read);
+    }
+
+    @Test
+    void testUnknownFormatVersionIsCacheMiss() {
+        byte[] bytes = serializer.serialize(new AddressBookDTO(1L, "John", "Doe", "Street", "john@example.com", "9876543210"));
+        bytes[0] = CompactRedisSerializer.FORMAT_VERSION + 1;
+
+        assertNull(serializer.deserialize(bytes));
+    }
+}
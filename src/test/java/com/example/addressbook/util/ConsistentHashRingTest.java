@@ -0,0 +1,50 @@
+package com.example.addressbook.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final int USERS = 10_000;
+
+    @Test
+    void testUsersAreSpreadOverAllShards() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("shard-0", "shard-1", "shard-2"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            counts.merge(ring.shardFor(userId), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertTrue(count > USERS / 5, "unbalanced ring: " + counts));
+    }
+
+    @Test
+    void testAddingShardOnlyMovesUsersToNewShard() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("shard-0", "shard-1", "shard-2"), 128);
+        ConsistentHashRing extended = ring.withShard("shard-3");
+        int moved = 0;
+        for (long userId = 1; userId <= USERS; userId++) {
+            String before = ring.shardFor(userId);
+            String after = extended.shardFor(userId);
+            if (!before.equals(after)) {
+                assertEquals("shard-3", after);
+                moved++;
+            }
+        }
+
+        assertTrue(moved > USERS / 8 && moved < USERS / 2, "moved " + moved + " users");
+    }
+
+    @Test
+    void testEmptyRingRejectsLookups() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(), 128);
+
+        assertThrows(IllegalStateException.class, () -> ring.shardFor(1L));
+    }
+}
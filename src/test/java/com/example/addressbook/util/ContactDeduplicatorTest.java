@@ -0,0 +1,60 @@
+package com.example.addressbook.util;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import com.example.addressbook.dto.DuplicateSuggestionDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactDeduplicatorTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final ContactDeduplicator deduplicator = new ContactDeduplicator(pool, 0.85, 200, 20);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testSoundexAndJaroWinkler() {
+        assertEquals("R163", ContactDeduplicator.soundex("robert"));
+        assertEquals("R163", ContactDeduplicator.soundex("rupert"));
+        assertEquals("A261", ContactDeduplicator.soundex("ashcraft"));
+        assertEquals(0.961, ContactDeduplicator.jaroWinkler("martha", "marhta"), 0.001);
+        assertEquals("9876543210", ContactDeduplicator.normalizePhone("+91 98765-43210"));
+    }
+
+    @Test
+    void testFindsDuplicatesSharingPhoneOrSpelledAlike() {
+        List<AddressBookDTO> contacts = List.of(
+                new AddressBookDTO(1L, "John", "Smith", "12 Main Street", "john@example.com", "+91 98765-43210"),
+                new AddressBookDTO(2L, "Jon", "Smith", null, "john.smith@example.com", "9876543210"),
+                new AddressBookDTO(3L, "Jonn", "Smyth", "12 Main St", "john@example.com", null),
+                new AddressBookDTO(4L, "Alice", "Brown", "4 Park Lane", "alice@example.com", "9123456780"),
+                new AddressBookDTO(5L, "Robert", "Jones", "9 Hill Road", "robert@example.com", "9000000001"));
+
+        ContactDeduplicator.Result result = deduplicator.findDuplicates(contacts);
+
+        assertEquals(1, result.suggestions().size());
+        DuplicateSuggestionDTO suggestion = result.suggestions().get(0);
+        assertEquals(1L, suggestion.getPrimaryId());
+        assertEquals(List.of(2L, 3L), suggestion.getDuplicateIds().stream().sorted().toList());
+        assertTrue(suggestion.getScore() >= 0.85);
+        // Only contacts sharing a phone, an email or a phonetic name were compared
+        assertTrue(result.comparisons() < 10);
+    }
+
+    @Test
+    void testUnrelatedContactsWithSameNameAreNotDuplicates() {
+        List<AddressBookDTO> contacts = List.of(
+                new AddressBookDTO(1L, "John", "Smith", "12 Main Street", "john@example.com", "9876543210"),
+                new AddressBookDTO(2L, "John", "Smith", "77 River Road", "jsmith@other.org", "9123456780"));
+
+        assertTrue(deduplicator.findDuplicates(contacts).suggestions().isEmpty());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.addressbook.util;
+
+import com.example.addressbook.dto.AddressBookDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContactExportFormatTest {
+
+    @Test
+    void testCsvQuotesOnlyFieldsThatNeedIt() throws Exception {
+        StringWriter writer = new StringWriter();
+        ContactExportFormat.CSV.writeHeader(writer);
+        ContactExportFormat.CSV.writeContact(writer,
+                new AddressBookDTO(7L, "Ann", "O\"Neil", "12 Main Street, Flat 3", null, "9876543210"));
+
+        assertEquals("id,firstName,lastName,address,email,phoneNumber\r\n"
+                + "7,Ann,\"O\"\"Neil\",\"12 Main Street, Flat 3\",,9876543210\r\n", writer.toString());
+    }
+
+    @Test
+    void testVCardEscapesAndFoldsLongLines() throws Exception {
+        StringWriter writer = new StringWriter();
+        ContactExportFormat.VCARD.writeContact(writer,
+                new AddressBookDTO(7L, "Ann", "Smith", "Flat 3; " + "x".repeat(100), "ann@example.com", null));
+        String vCard = writer.toString();
+
+        assertTrue(vCard.startsWith("BEGIN:VCARD\r\nVERSION:3.0\r\nUID:7\r\nN:Smith;Ann;;;\r\nFN:Ann Smith\r\n"));
+        assertTrue(vCard.endsWith("EMAIL;TYPE=INTERNET:ann@example.com\r\nEND:VCARD\r\n"));
+        assertFalse(vCard.contains("TEL"));
+        for (String line : vCard.split("\r\n")) {
+            assertTrue(line.length() <= 75, line);
+        }
+        assertTrue(vCard.replace("\r\n ", "").contains("ADR;TYPE=HOME:;;Flat 3\\; " + "x".repeat(100) + ";;;;\r\n"));
+    }
+
+    @Test
+    void testFromNameRejectsUnknownFormats() {
+        assertEquals(ContactExportFormat.VCARD, ContactExportFormat.fromName("vCard"));
+        assertThrows(RuntimeException.class, () -> ContactExportFormat.fromName("xml"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.addressbook.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalBloomFilterTest {
+
+    @Test
+    void testAddedMembersAreAlwaysFound() {
+        LocalBloomFilter filter = new LocalBloomFilter(10_000, 0.001);
+        String[] members = new String[10_000];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = UUID.randomUUID().toString();
+            filter.add(members[i]);
+        }
+
+        for (String member : members) {
+            assertTrue(filter.mightContain(member));
+        }
+    }
+
+    @Test
+    void testFalsePositiveRateStaysNearConfiguredRate() {
+        LocalBloomFilter filter = new LocalBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(UUID.randomUUID().toString());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString()))
+                falsePositives++;
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+}
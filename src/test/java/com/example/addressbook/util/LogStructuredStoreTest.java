@@ -0,0 +1,119 @@
+package com.example.addressbook.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogStructuredStoreTest {
+
+    private static final LogStructuredStore.Codec<String> CODEC = new LogStructuredStore.Codec<>() {
+        @Override
+        public void write(DataOutput out, String value) throws IOException {
+            out.writeUTF(value);
+        }
+
+        @Override
+        public String read(DataInput in) throws IOException {
+            return in.readUTF();
+        }
+    };
+
+    @TempDir
+    Path directory;
+
+    // Values are indexed by their first letter; small segments make the tests roll and compact often
+    private LogStructuredStore<String> open() throws IOException {
+        return new LogStructuredStore<>(directory, CODEC, value -> value.substring(0, 1), 4096, false);
+    }
+
+    @Test
+    void testReplayAfterCompactionAndCrashRestoresEveryRecord() throws IOException {
+        LogStructuredStore<String> store = open();
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 5_000; i++) {
+            long id = random.nextInt(300) + 1;
+            if (random.nextInt(4) == 0) {
+                store.delete(id);
+                expected.remove(id);
+            } else {
+                String value = (char) ('a' + random.nextInt(3)) + "-" + i;
+                store.put(id, value);
+                expected.put(id, value);
+            }
+            if (i % 1_000 == 999)
+                assertTrue(store.compact(0.3) > 0);
+        }
+        assertContents(store, expected);
+
+        // Not closed, as after a crash
+        LogStructuredStore<String> reopened = open();
+        assertContents(reopened, expected);
+        assertTrue(reopened.nextId() > 300);
+        reopened.close();
+    }
+
+    @Test
+    void testTornRecordAtTheEndIsCutOff() throws IOException {
+        LogStructuredStore<String> store = open();
+        store.put(1, "alice");
+        store.put(2, "bob");
+        store.close();
+
+        File[] segments = directory.toFile().listFiles();
+        Arrays.sort(segments);
+        try (RandomAccessFile segment = new RandomAccessFile(segments[segments.length - 1], "rw")) {
+            segment.seek(segment.length());
+            segment.writeInt(50);
+            segment.writeInt(12345);
+            segment.write(new byte[10]);
+        }
+
+        LogStructuredStore<String> reopened = open();
+        assertEquals("alice", reopened.get(1));
+        assertEquals("bob", reopened.get(2));
+        reopened.put(3, "carol");
+        assertEquals("carol", reopened.get(3));
+        reopened.close();
+    }
+
+    @Test
+    void testSecondaryIndexFollowsUpdatesAndDeletes() throws IOException {
+        LogStructuredStore<String> store = open();
+        store.put(1, "alice");
+        store.put(2, "anna");
+        store.put(2, "bella");
+        store.put(3, "arthur");
+        store.delete(3);
+
+        assertArrayEquals(new long[]{1}, store.idsFor("a"));
+        assertArrayEquals(new long[]{2}, store.idsFor("b"));
+        assertFalse(store.delete(3));
+        store.close();
+    }
+
+    private void assertContents(LogStructuredStore<String> store, Map<Long, String> expected) {
+        assertEquals(expected.size(), store.size());
+        expected.forEach((id, value) -> assertEquals(value, store.get(id)));
+        int indexed = 0;
+        for (String key : new String[]{"a", "b", "c"}) {
+            for (long id : store.idsFor(key)) {
+                assertTrue(store.get(id).startsWith(key));
+                indexed++;
+            }
+        }
+        assertEquals(expected.size(), indexed);
+    }
+}
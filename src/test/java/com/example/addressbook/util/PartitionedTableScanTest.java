@@ -0,0 +1,117 @@
+package com.example.addressbook.util;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedTableScanTest {
+
+    private final ExecutorService fetchExecutor = Executors.newFixedThreadPool(3);
+    private final ForkJoinPool mapPool = new ForkJoinPool(2);
+
+    @AfterEach
+    void tearDown() {
+        fetchExecutor.shutdownNow();
+        mapPool.shutdownNow();
+    }
+
+    @Test
+    void testRangesCoverIdsWithoutGapsOrOverlap() {
+        List<long[]> ranges = PartitionedTableScan.ranges(5, 104, 7);
+
+        assertEquals(7, ranges.size());
+        assertEquals(5, ranges.get(0)[0]);
+        assertEquals(104, ranges.get(6)[1]);
+        for (int i = 1; i < ranges.size(); i++) {
+            assertEquals(ranges.get(i - 1)[1] + 1, ranges.get(i)[0]);
+        }
+        assertEquals(3, PartitionedTableScan.ranges(10, 12, 16).size());
+    }
+
+    @Test
+    void testReadMergesShardsInIdOrder() {
+        JdbcDataSource first = shard("first", 1, 20_000, 2);
+        JdbcDataSource second = shard("second", 2, 20_000, 2);
+        // A user in the middle of a rebalance has rows on both shards
+        new JdbcTemplate(second).update("INSERT INTO ADDRESS_BOOK (id, name) VALUES (3, 'contact3')");
+
+        List<String> names = new PartitionedTableScan<>(List.of(first, second), "ADDRESS_BOOK", "id, name",
+                row -> (String) row[1], 8, 500, fetchExecutor, mapPool).read();
+
+        assertEquals(20_000, names.size());
+        for (int i = 0; i < names.size(); i++) {
+            assertEquals("contact" + (i + 1), names.get(i));
+        }
+    }
+
+    @Test
+    void testReadEmptyTable() {
+        JdbcDataSource empty = shard("empty", 1, 0, 1);
+
+        assertTrue(new PartitionedTableScan<>(List.of(empty), "ADDRESS_BOOK", "id, name",
+                row -> row[1], 4, 500, fetchExecutor, mapPool).read().isEmpty());
+    }
+
+    @Test
+    void testFailureCancelsPendingPartitions() throws InterruptedException {
+        AtomicInteger connections = new AtomicInteger();
+        CountDownLatch released = new CountDownLatch(1);
+        // The id bounds get a connection, the first partition fails, and later partitions block until interrupted
+        DataSource failing = new DelegatingDataSource(shard("failing", 1, 800, 1)) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                int connection = connections.incrementAndGet();
+                if (connection == 2)
+                    throw new SQLException("Connection reset");
+                if (connection > 2) {
+                    try {
+                        released.await();
+                    } catch (InterruptedException e) {
+                        throw new SQLException("Interrupted", e);
+                    }
+                }
+                return super.getConnection();
+            }
+        };
+        ExecutorService singleFetch = Executors.newSingleThreadExecutor();
+
+        assertThrows(RuntimeException.class, () -> new PartitionedTableScan<>(List.of(failing), "ADDRESS_BOOK", "id, name",
+                row -> row[1], 8, 500, singleFetch, mapPool).read());
+        singleFetch.shutdown();
+
+        try {
+            // A partition that had started was interrupted, and the queued ones never ran
+            assertTrue(singleFetch.awaitTermination(10, TimeUnit.SECONDS));
+            assertTrue(connections.get() <= 3);
+        } finally {
+            released.countDown();
+        }
+    }
+
+    private static JdbcDataSource shard(String name, long firstId, long lastId, long step) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:partitioned-scan-" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS ADDRESS_BOOK");
+        jdbcTemplate.execute("CREATE TABLE ADDRESS_BOOK (id BIGINT PRIMARY KEY, name VARCHAR(64))");
+        jdbcTemplate.update("INSERT INTO ADDRESS_BOOK (id, name) SELECT X, CONCAT('contact', X) FROM SYSTEM_RANGE(?, ?, ?)",
+                firstId, lastId, step);
+        return dataSource;
+    }
+}
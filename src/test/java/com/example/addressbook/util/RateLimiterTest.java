@@ -0,0 +1,117 @@
+package com.example.addressbook.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void testAllowsBurstThenRejectsWithWaitTime() {
+        RateLimiter<String> limiter = new RateLimiter<>(5, 10, false, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("client"));
+        }
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.tryAcquire("client"));
+        assertEquals(0, limiter.tryAcquire("other"));
+    }
+
+    @Test
+    void testRefillsOverTimeUpToCapacity() {
+        RateLimiter<String> limiter = new RateLimiter<>(2, 10, false, clock::get);
+        limiter.tryAcquire("client");
+        limiter.tryAcquire("client");
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertTrue(limiter.tryAcquire("client") > 0);
+
+        // A long pause refills the bucket to its capacity, not beyond
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertTrue(limiter.tryAcquire("client") > 0);
+    }
+
+    @Test
+    void testConcurrentRequestsNeverExceedCapacity() throws Exception {
+        RateLimiter<Long> limiter = new RateLimiter<>(1000, 0.001, false);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    if (limiter.tryAcquire(42L) == 0)
+                        allowed.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1000, allowed.get());
+    }
+
+    @Test
+    void testDrainsCountsAndBlocksKeys() {
+        RateLimiter<String> limiter = new RateLimiter<>(10, 1, true, clock::get);
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("b");
+
+        Map<String, Long> counts = new HashMap<>();
+        limiter.drainCounts(counts::put);
+        assertEquals(Map.of("a", 2L, "b", 1L), counts);
+        counts.clear();
+        limiter.drainCounts(counts::put);
+        assertTrue(counts.isEmpty());
+
+        limiter.blockUntil("a", clock.get() + 5_000);
+        assertEquals(5_000, limiter.tryAcquire("a"));
+        clock.addAndGet(5_000);
+        assertEquals(0, limiter.tryAcquire("a"));
+    }
+
+    @Test
+    void testEvictsOnlyFullBuckets() {
+        RateLimiter<String> limiter = new RateLimiter<>(10, 1, false, clock::get);
+        limiter.tryAcquire("a");
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        limiter.tryAcquire("b");
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+
+        assertEquals(1, limiter.evictFull());
+        assertEquals(1, limiter.size());
+    }
+
+    @Test
+    void testGroupChecksAddressBeforeUser() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RateLimitGroup group = new RateLimitGroup("addressbook", "/api/addressbook/",
+                new RateLimiter<>(1, 1, false, clock::get), 0, new RateLimiter<>(2, 1, false, clock::get), 0, meterRegistry);
+
+        assertTrue(group.matches("/api/addressbook/1"));
+        assertFalse(group.matches("/api/auth/login"));
+        assertEquals(0, group.tryAcquire(1L, "10.0.0.1"));
+        assertTrue(group.tryAcquire(1L, "10.0.0.1") > 0);
+        assertTrue(group.tryAcquire(2L, "10.0.0.1") > 0);
+
+        assertEquals(1.0, meterRegistry.get("addressbook.ratelimit.rejected").tag("limit", "user").counter().count());
+        assertEquals(1.0, meterRegistry.get("addressbook.ratelimit.rejected").tag("limit", "ip").counter().count());
+    }
+}
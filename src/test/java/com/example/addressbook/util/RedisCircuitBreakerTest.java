@@ -0,0 +1,70 @@
+package com.example.addressbook.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisCircuitBreakerTest {
+
+    private final AtomicBoolean redisUp = new AtomicBoolean(false);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker(redisUp::get, meterRegistry,
+            10, 5, 0.5, Duration.ofMillis(100), 0.8);
+
+    @Test
+    void testOpensAfterFailureRateIsReached() {
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onFailure();
+        }
+        assertFalse(circuitBreaker.isOpen());
+
+        circuitBreaker.onFailure();
+
+        assertTrue(circuitBreaker.isOpen());
+        assertEquals("fallback", circuitBreaker.call(() -> "redis", "fallback"));
+        assertEquals(1.0, meterRegistry.get("addressbook.cache.circuit.state").gauge().value());
+    }
+
+    @Test
+    void testOpensWhenCallsAreSlow() {
+        for (int i = 0; i < 5; i++) {
+            circuitBreaker.onSuccess(Duration.ofMillis(500).toNanos());
+        }
+
+        assertTrue(circuitBreaker.isOpen());
+    }
+
+    @Test
+    void testStaysClosedWhenMostCallsSucceed() {
+        for (int i = 0; i < 20; i++) {
+            circuitBreaker.onSuccess(Duration.ofMillis(1).toNanos());
+            if (i % 4 == 0)
+                circuitBreaker.onFailure();
+        }
+
+        assertFalse(circuitBreaker.isOpen());
+    }
+
+    @Test
+    void testProbeClosesBreakerAndNotifiesListeners() {
+        AtomicBoolean recovered = new AtomicBoolean();
+        circuitBreaker.addRecoveryListener(() -> recovered.set(true));
+        for (int i = 0; i < 5; i++) {
+            circuitBreaker.onFailure();
+        }
+
+        circuitBreaker.probe();
+        assertTrue(circuitBreaker.isOpen());
+
+        redisUp.set(true);
+        circuitBreaker.probe();
+
+        assertFalse(circuitBreaker.isOpen());
+        assertTrue(recovered.get());
+        assertEquals("redis", circuitBreaker.call(() -> "redis", "fallback"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.addressbook.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes queries between two embedded H2 databases, each of which reports its own name.
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() {
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(Duration.ofSeconds(5));
+        routingDataSource = new ReplicaRoutingDataSource(database("primary"), Map.of("replica-0", database("replica")),
+                tracker, new SimpleMeterRegistry());
+        routingDataSource.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testReadWriteWorkGoesToPrimary() {
+        assertEquals("primary", currentNode());
+    }
+
+    @Test
+    void testReadOnlyWorkGoesToReplica() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals("replica", currentNode());
+    }
+
+    @Test
+    void testReadsStickToPrimaryAfterOwnWrite() {
+        authenticate("test@example.com");
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        assertEquals("primary", currentNode());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals("primary", currentNode());
+
+        authenticate("other@example.com");
+        assertEquals("replica", currentNode());
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        routingDataSource.setReplicaHealthy("replica-0", false);
+
+        assertEquals("primary", currentNode());
+
+        routingDataSource.setReplicaHealthy("replica-0", true);
+        assertEquals("replica", currentNode());
+    }
+
+    private String currentNode() {
+        return new JdbcTemplate(routingDataSource).queryForObject("SELECT NAME FROM NODE", String.class);
+    }
+
+    private void authenticate(String email) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+
+    private DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS NODE (NAME VARCHAR(20))");
+        jdbcTemplate.update("DELETE FROM NODE");
+        jdbcTemplate.update("INSERT INTO NODE VALUES (?)", name);
+        return dataSource;
+    }
+}
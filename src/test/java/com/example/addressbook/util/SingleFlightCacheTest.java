@@ -0,0 +1,103 @@
+package com.example.addressbook.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SingleFlightCacheTest {
+
+    private ConcurrentMapCache delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private ValueOperations<String, String> valueOperations;
+    private SingleFlightCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        delegate = new ConcurrentMapCache("addressBookCache");
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SingleFlightCache(delegate, stringRedisTemplate, meterRegistry,
+                Duration.ofMinutes(10), Duration.ofSeconds(2), 1.0, Runnable::run);
+    }
+
+    @Test
+    void testConcurrentMissesLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Callable<String> loader = () -> {
+            loads.incrementAndGet();
+            release.await();
+            return "contacts";
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> cache.get("test@example.com", loader)));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("contacts", result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(1, loads.get());
+        assertEquals(7, meterRegistry.counter("addressbook.cache.singleflight", "cache", "addressBookCache", "outcome", "coalesced").count());
+        assertEquals("contacts", cache.get("test@example.com").get());
+    }
+
+    @Test
+    void testEntryNearExpiryIsRefreshedEarly() {
+        delegate.put("test@example.com", new CacheEnvelope("stale", 100, System.currentTimeMillis() - 1));
+
+        String value = cache.get("test@example.com", () -> "fresh");
+
+        // The reader that triggers the refresh is served the current value
+        assertEquals("stale", value);
+        assertEquals("fresh", cache.get("test@example.com").get());
+    }
+
+    @Test
+    void testEarlyRefreshIsSkippedWhileAnotherNodeHoldsTheLock() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        delegate.put("test@example.com", new CacheEnvelope("current", 100, System.currentTimeMillis() - 1));
+        AtomicInteger loads = new AtomicInteger();
+
+        String value = cache.get("test@example.com", () -> "fresh" + loads.incrementAndGet());
+
+        assertEquals("current", value);
+        assertEquals(0, loads.get());
+        assertEquals("current", cache.get("test@example.com").get());
+    }
+
+    @Test
+    void testFailedEarlyRefreshServesCurrentValue() {
+        delegate.put("test@example.com", new CacheEnvelope("current", 100, System.currentTimeMillis() - 1));
+
+        String value = cache.get("test@example.com", () -> {
+            throw new IllegalStateException("database down");
+        });
+
+        assertEquals("current", value);
+    }
+}
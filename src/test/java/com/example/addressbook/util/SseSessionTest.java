@@ -0,0 +1,83 @@
+package com.example.addressbook.util;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SseSessionTest {
+
+    private final SseEmitter emitter = mock(SseEmitter.class);
+
+    @Test
+    void testDrainSendsEventsInOrder() throws IOException {
+        List<Runnable> tasks = new ArrayList<>();
+        SseSession session = new SseSession(1L, emitter, 4, tasks::add);
+        SseEmitter.SseEventBuilder first = SseEmitter.event().data("first");
+        SseEmitter.SseEventBuilder second = SseEmitter.event().data("second");
+        SseEmitter.SseEventBuilder third = SseEmitter.event().data("third");
+
+        assertTrue(session.offer(first));
+        assertTrue(session.offer(second));
+        assertTrue(session.offer(third));
+        // One drain task per session, however many events are queued
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+
+        InOrder inOrder = inOrder(emitter);
+        inOrder.verify(emitter).send(first);
+        inOrder.verify(emitter).send(second);
+        inOrder.verify(emitter).send(third);
+    }
+
+    @Test
+    void testDirectExecutorSendsOnOffer() throws IOException {
+        SseSession session = new SseSession(1L, emitter, 1, Runnable::run);
+        SseEmitter.SseEventBuilder first = SseEmitter.event().data("first");
+        SseEmitter.SseEventBuilder second = SseEmitter.event().data("second");
+
+        assertTrue(session.offer(first));
+        assertTrue(session.offer(second));
+
+        InOrder inOrder = inOrder(emitter);
+        inOrder.verify(emitter).send(first);
+        inOrder.verify(emitter).send(second);
+        verify(emitter, never()).complete();
+    }
+
+    @Test
+    void testFullBufferClosesSession() throws IOException {
+        List<Runnable> tasks = new ArrayList<>();
+        SseSession session = new SseSession(1L, emitter, 2, tasks::add);
+
+        assertTrue(session.offer(SseEmitter.event().data("first")));
+        assertTrue(session.offer(SseEmitter.event().data("second")));
+        assertFalse(session.offer(SseEmitter.event().data("third")));
+        assertFalse(session.offer(SseEmitter.event().data("fourth")));
+
+        verify(emitter).complete();
+        // The buffer was dropped with the connection
+        tasks.forEach(Runnable::run);
+        verify(emitter, never()).send(any(SseEmitter.SseEventBuilder.class));
+    }
+
+    @Test
+    void testFailedSendClosesSession() throws IOException {
+        IOException failure = new IOException("Broken pipe");
+        doThrow(failure).when(emitter).send(any(SseEmitter.SseEventBuilder.class));
+        SseSession session = new SseSession(1L, emitter, 4, Runnable::run);
+
+        assertTrue(session.offer(SseEmitter.event().data("first")));
+        assertFalse(session.offer(SseEmitter.event().data("second")));
+
+        verify(emitter).completeWithError(failure);
+        verify(emitter, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+    }
+}